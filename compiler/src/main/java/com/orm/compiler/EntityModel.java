@@ -0,0 +1,375 @@
+package com.orm.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Everything the mapper writer needs to know about an entity class. The persisted fields are
+ * collected with the same rules as {@code ReflectionUtil.getTableFields}.
+ */
+final class EntityModel {
+    static final String TABLE = "com.orm.annotation.Table";
+    static final String COLUMN = "com.orm.annotation.Column";
+    static final String IGNORE = "com.orm.annotation.Ignore";
+    static final String SUGAR_RECORD = "com.orm.SugarRecord";
+    static final String MAPPER_SUFFIX = "_SugarMapper";
+
+    private final String packageName;
+    private final String entityName;
+    private final String mapperName;
+    private final List<PropertyModel> properties;
+    private final PropertyModel id;
+    private final boolean primitiveId;
+
+    private EntityModel(String packageName, String entityName, String mapperName, List<PropertyModel> properties,
+                        PropertyModel id, boolean primitiveId) {
+        this.packageName = packageName;
+        this.entityName = entityName;
+        this.mapperName = mapperName;
+        this.properties = properties;
+        this.id = id;
+        this.primitiveId = primitiveId;
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    String getEntityName() {
+        return entityName;
+    }
+
+    String getMapperName() {
+        return mapperName;
+    }
+
+    List<PropertyModel> getProperties() {
+        return properties;
+    }
+
+    PropertyModel getId() {
+        return id;
+    }
+
+    boolean isPrimitiveId() {
+        return primitiveId;
+    }
+
+    /**
+     * @param type the class to check
+     * @param env the processing environment
+     * @return true if the runtime would treat the class as a domain class: either annotated with
+     *         {@code @Table} or a concrete subclass of {@code SugarRecord}
+     */
+    static boolean isEntity(TypeElement type, ProcessingEnvironment env) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+
+        return isSugarEntity(type, env) && !type.getQualifiedName().contentEquals(SUGAR_RECORD);
+    }
+
+    /**
+     * Mirrors {@code SugarRecord.isSugarEntity(Class)}.
+     */
+    static boolean isSugarEntity(TypeElement type, ProcessingEnvironment env) {
+        if (getAnnotation(type, TABLE) != null) {
+            return true;
+        }
+
+        TypeElement sugarRecord = env.getElementUtils().getTypeElement(SUGAR_RECORD);
+        return sugarRecord != null
+                && env.getTypeUtils().isSubtype(env.getTypeUtils().erasure(type.asType()), env.getTypeUtils().erasure(sugarRecord.asType()));
+    }
+
+    static EntityModel parse(TypeElement type, ProcessingEnvironment env) throws UnsupportedEntityException {
+        Elements elements = env.getElementUtils();
+        Types types = env.getTypeUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+
+        checkAccessible(type);
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedEntityException("generic entities are not supported");
+        }
+        if (!hasNoArgConstructor(type)) {
+            throw new UnsupportedEntityException("no accessible no-arg constructor");
+        }
+
+        DeclaredType entityType = (DeclaredType) type.asType();
+        List<PropertyModel> properties = new ArrayList<>();
+        PropertyModel id = null;
+        boolean primitiveId = false;
+
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)
+                        || getAnnotation(field, IGNORE) != null) {
+                    continue;
+                }
+
+                TypeMirror fieldType = types.asMemberOf(entityType, field);
+                PropertyModel property = toProperty(field, fieldType, packageName, type, env);
+                properties.add(property);
+
+                if (id == null && property.getName().equals("id")) {
+                    if (fieldType.getKind() == TypeKind.LONG) {
+                        primitiveId = true;
+                    } else if (!isType(fieldType, "java.lang.Long")) {
+                        throw new UnsupportedEntityException("id field must be a Long");
+                    }
+                    id = property;
+                }
+            }
+        }
+
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        String mapperName = simpleBinaryName.replace('$', '_') + MAPPER_SUFFIX;
+
+        return new EntityModel(packageName, type.getQualifiedName().toString(), mapperName,
+                Collections.unmodifiableList(properties), id, primitiveId);
+    }
+
+    private static PropertyModel toProperty(VariableElement field, TypeMirror fieldType, String packageName,
+                                            TypeElement entity, ProcessingEnvironment env) throws UnsupportedEntityException {
+        String name = field.getSimpleName().toString();
+        PropertyModel.Kind kind = kindOf(fieldType, env);
+        String typeName = null;
+        if (kind == PropertyModel.Kind.ENUM || kind == PropertyModel.Kind.RELATION) {
+            typeName = ((TypeElement) ((DeclaredType) fieldType).asElement()).getQualifiedName().toString();
+        }
+
+        String getter = null;
+        String setter = null;
+        if (!isAccessible(field, packageName, env)) {
+            Types types = env.getTypeUtils();
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            boolean isBoolean = kind == PropertyModel.Kind.BOOLEAN;
+
+            for (ExecutableElement method : ElementFilter.methodsIn(env.getElementUtils().getAllMembers(entity))) {
+                if (method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method, packageName, env)) {
+                    continue;
+                }
+
+                String methodName = method.getSimpleName().toString();
+                List<? extends VariableElement> parameters = method.getParameters();
+                ExecutableType methodType = (ExecutableType) types.asMemberOf((DeclaredType) entity.asType(), method);
+
+                if (parameters.isEmpty() && getter == null
+                        && (methodName.equals("get" + capitalized) || (isBoolean && methodName.equals("is" + capitalized)))
+                        && types.isSameType(methodType.getReturnType(), fieldType)) {
+                    getter = methodName;
+                } else if (parameters.size() == 1 && setter == null && methodName.equals("set" + capitalized)
+                        && types.isSameType(methodType.getParameterTypes().get(0), fieldType)) {
+                    setter = methodName;
+                }
+            }
+
+            if (getter == null || setter == null) {
+                throw new UnsupportedEntityException("field " + name + " is not accessible and has no getter and setter");
+            }
+        }
+
+        return new PropertyModel(name, columnName(field), kind, typeName, getter, setter);
+    }
+
+    /**
+     * Classifies a field type in the same order the runtime checks it.
+     */
+    static PropertyModel.Kind kindOf(TypeMirror type, ProcessingEnvironment env) {
+        switch (type.getKind()) {
+            case SHORT:
+                return PropertyModel.Kind.SHORT;
+            case INT:
+                return PropertyModel.Kind.INTEGER;
+            case LONG:
+                return PropertyModel.Kind.LONG;
+            case FLOAT:
+                return PropertyModel.Kind.FLOAT;
+            case DOUBLE:
+                return PropertyModel.Kind.DOUBLE;
+            case BOOLEAN:
+                return PropertyModel.Kind.BOOLEAN;
+            case ARRAY:
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                return (component.getKind() == TypeKind.BYTE) ? PropertyModel.Kind.BLOB : PropertyModel.Kind.OTHER;
+            case DECLARED:
+                break;
+            default:
+                return PropertyModel.Kind.OTHER;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        if (isSugarEntity(element, env)) {
+            return PropertyModel.Kind.RELATION;
+        }
+
+        String name = element.getQualifiedName().toString();
+        switch (name) {
+            case "java.lang.Short":
+                return PropertyModel.Kind.SHORT;
+            case "java.lang.Integer":
+                return PropertyModel.Kind.INTEGER;
+            case "java.lang.Long":
+                return PropertyModel.Kind.LONG;
+            case "java.lang.Float":
+                return PropertyModel.Kind.FLOAT;
+            case "java.lang.Double":
+                return PropertyModel.Kind.DOUBLE;
+            case "java.lang.Boolean":
+                return PropertyModel.Kind.BOOLEAN;
+            case "java.lang.String":
+                return PropertyModel.Kind.STRING;
+            case "java.math.BigDecimal":
+                return PropertyModel.Kind.BIG_DECIMAL;
+            case "java.sql.Timestamp":
+                return PropertyModel.Kind.TIMESTAMP;
+            case "java.util.Date":
+                return PropertyModel.Kind.DATE;
+            case "java.util.Calendar":
+                return PropertyModel.Kind.CALENDAR;
+            case "com.orm.SugarLazy":
+                return PropertyModel.Kind.LAZY;
+            default:
+                return (element.getKind() == ElementKind.ENUM) ? PropertyModel.Kind.ENUM : PropertyModel.Kind.OTHER;
+        }
+    }
+
+    /**
+     * Mirrors {@code NamingHelper.toColumnName(Field)}.
+     */
+    static String columnName(VariableElement field) {
+        AnnotationMirror column = getAnnotation(field, COLUMN);
+        if (column != null) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : column.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("name")) {
+                    return String.valueOf(entry.getValue().getValue());
+                }
+            }
+        }
+
+        return toSQLNameDefault(field.getSimpleName().toString());
+    }
+
+    /**
+     * Copy of {@code NamingHelper.toSQLNameDefault(String)}, which can't be referenced from here
+     * as the compiler runs without the Android library on its class path.
+     */
+    static String toSQLNameDefault(String camelCased) {
+        if (camelCased.equalsIgnoreCase("_id")) {
+            return "_id";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        char[] buf = camelCased.toCharArray();
+
+        for (int i = 0; i < buf.length; i++) {
+            char prevChar = (i > 0) ? buf[i - 1] : 0;
+            char c = buf[i];
+            char nextChar = (i < buf.length - 1) ? buf[i + 1] : 0;
+            boolean isFirstChar = (i == 0);
+
+            if (isFirstChar || Character.isLowerCase(c) || Character.isDigit(c)) {
+                sb.append(Character.toUpperCase(c));
+            } else if (Character.isUpperCase(c)) {
+                if (Character.isLetterOrDigit(prevChar)) {
+                    if (Character.isLowerCase(prevChar)) {
+                        sb.append('_').append(c);
+                    } else if (nextChar > 0 && Character.isLowerCase(nextChar)) {
+                        sb.append('_').append(c);
+                    } else {
+                        sb.append(c);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotation.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static void checkAccessible(TypeElement type) throws UnsupportedEntityException {
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            TypeElement currentType = (TypeElement) current;
+            if (currentType.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedEntityException("private classes are not supported");
+            }
+            if (currentType.getNestingKind() == NestingKind.MEMBER && !currentType.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnsupportedEntityException("inner classes must be static");
+            }
+            if (currentType.getNestingKind() == NestingKind.LOCAL || currentType.getNestingKind() == NestingKind.ANONYMOUS) {
+                throw new UnsupportedEntityException("local classes are not supported");
+            }
+        }
+    }
+
+    private static boolean hasNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccessible(Element member, String packageName, ProcessingEnvironment env) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+
+        PackageElement memberPackage = env.getElementUtils().getPackageOf(member);
+        return memberPackage.getQualifiedName().contentEquals(packageName);
+    }
+
+    private static boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private static TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+}
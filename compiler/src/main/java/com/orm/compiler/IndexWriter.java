@@ -0,0 +1,50 @@
+package com.orm.compiler;
+
+import java.util.List;
+
+/**
+ * Writes the source of the {@code EntityIndex} listing every entity compiled.
+ */
+final class IndexWriter {
+    static final String PACKAGE = "com.orm.generated";
+    static final String NAME = "SugarEntityIndex";
+    private static final String INDENT = "    ";
+
+    private final List<String> entityNames;
+    private final StringBuilder out = new StringBuilder();
+
+    /**
+     * @param entityNames the binary names of the entities
+     */
+    IndexWriter(List<String> entityNames) {
+        this.entityNames = entityNames;
+    }
+
+    String write() {
+        line(0, "// Generated code from Sugar ORM. Do not modify!");
+        line(0, "package " + PACKAGE + ";");
+        line(0, "");
+        line(0, "public final class " + NAME + " implements com.orm.mapper.EntityIndex {");
+        line(1, "private static final String[] ENTITIES = {");
+        for (int i = 0; i < entityNames.size(); i++) {
+            line(3, "\"" + entityNames.get(i) + "\"" + ((i < entityNames.size() - 1) ? "," : ""));
+        }
+        line(1, "};");
+        line(0, "");
+
+        line(1, "@Override");
+        line(1, "public String[] getEntityClassNames() {");
+        line(2, "return ENTITIES.clone();");
+        line(1, "}");
+
+        line(0, "}");
+        return out.toString();
+    }
+
+    private void line(int indent, String text) {
+        for (int i = 0; i < indent; i++) {
+            out.append(INDENT);
+        }
+        out.append(text).append('\n');
+    }
+}
@@ -0,0 +1,211 @@
+package com.orm.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the source of the {@code EntityMapper} generated for an {@link EntityModel}.
+ */
+final class MapperWriter {
+    private static final String HELPER = "com.orm.helper.MapperHelper";
+    private static final String INDENT = "    ";
+
+    private final EntityModel entity;
+    private final StringBuilder out = new StringBuilder();
+
+    MapperWriter(EntityModel entity) {
+        this.entity = entity;
+    }
+
+    String write() {
+        String type = entity.getEntityName();
+
+        line(0, "// Generated code from Sugar ORM. Do not modify!");
+        if (!entity.getPackageName().isEmpty()) {
+            line(0, "package " + entity.getPackageName() + ";");
+            line(0, "");
+        }
+        line(0, "public final class " + entity.getMapperName() + " implements com.orm.mapper.EntityMapper<" + type + "> {");
+        line(0, "");
+
+        line(1, "@Override");
+        line(1, "public " + type + " newInstance() {");
+        line(2, "return new " + type + "();");
+        line(1, "}");
+        line(0, "");
+
+        writeId(type);
+        writeBindValues(type);
+        writeReadCursor(type);
+
+        line(0, "}");
+        return out.toString();
+    }
+
+    private void writeId(String type) {
+        PropertyModel id = entity.getId();
+
+        line(1, "@Override");
+        line(1, "public boolean hasIdField() {");
+        line(2, "return " + (id != null) + ";");
+        line(1, "}");
+        line(0, "");
+
+        line(1, "@Override");
+        line(1, "public Long getId(" + type + " entity) {");
+        line(2, "return " + ((id != null) ? id.read("entity") : "null") + ";");
+        line(1, "}");
+        line(0, "");
+
+        line(1, "@Override");
+        line(1, "public void setId(" + type + " entity, Long id) {");
+        if (id != null) {
+            line(2, id.write("entity", entity.isPrimitiveId() ? "(id == null) ? 0L : id" : "id"));
+        }
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeBindValues(String type) {
+        line(1, "@Override");
+        line(1, "public void bindValues(" + type + " entity, android.content.ContentValues values) {");
+
+        for (PropertyModel property : entity.getProperties()) {
+            String column = literal(property.getColumnName());
+            String value = property.read("entity");
+
+            switch (property.getKind()) {
+                case SHORT:
+                case INTEGER:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                case BOOLEAN:
+                    line(2, "values.put(" + column + ", " + value + ");");
+                    break;
+                case BIG_DECIMAL:
+                    line(2, HELPER + ".putBigDecimal(values, " + column + ", " + value + ");");
+                    break;
+                case TIMESTAMP:
+                case DATE:
+                    line(2, HELPER + ".putDate(values, " + column + ", " + value + ");");
+                    break;
+                case CALENDAR:
+                    line(2, HELPER + ".putCalendar(values, " + column + ", " + value + ");");
+                    break;
+                case BLOB:
+                    line(2, HELPER + ".putBytes(values, " + column + ", " + value + ");");
+                    break;
+                case ENUM:
+                    line(2, HELPER + ".putEnum(values, " + column + ", " + value + ");");
+                    break;
+                case RELATION:
+                    line(2, HELPER + ".putRelation(values, " + column + ", " + property.getTypeName() + ".class, " + value + ");");
+                    break;
+                case LAZY:
+                    line(2, HELPER + ".putLazy(values, " + column + ", " + value + ");");
+                    break;
+                default:
+                    line(2, HELPER + ".putString(values, " + column + ", " + value + ");");
+                    break;
+            }
+        }
+
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeReadCursor(String type) {
+        List<PropertyModel> readable = new ArrayList<>();
+        for (PropertyModel property : entity.getProperties()) {
+            if (readExpression(property) != null) {
+                readable.add(property);
+            }
+        }
+
+        StringBuilder columns = new StringBuilder();
+        for (PropertyModel property : readable) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(literal(property.getColumnName()));
+        }
+
+        line(1, "@Override");
+        line(1, "public String[] getColumnNames() {");
+        line(2, "return COLUMNS;");
+        line(1, "}");
+        line(0, "");
+
+        line(1, "@Override");
+        line(1, "public void readCursor(android.database.Cursor cursor, int[] indexes, " + type + " entity) {");
+        line(2, "int index;");
+
+        for (int i = 0; i < readable.size(); i++) {
+            PropertyModel property = readable.get(i);
+
+            line(0, "");
+            line(2, "index = indexes[" + i + "];");
+            line(2, "if (index >= 0 && !cursor.isNull(index)) {");
+            line(3, property.write("entity", readExpression(property)));
+            line(2, "}");
+        }
+
+        line(1, "}");
+        line(0, "");
+        line(1, "private static final String[] COLUMNS = {" + columns + "};");
+    }
+
+    private static String readExpression(PropertyModel property) {
+        if (property.getColumnName().equalsIgnoreCase("id")) {
+            return "cursor.getLong(index)";
+        }
+
+        switch (property.getKind()) {
+            case SHORT:
+                return "cursor.getShort(index)";
+            case INTEGER:
+                return "cursor.getInt(index)";
+            case LONG:
+                return "cursor.getLong(index)";
+            case FLOAT:
+                return "cursor.getFloat(index)";
+            case DOUBLE:
+                return "cursor.getDouble(index)";
+            case BOOLEAN:
+                return "cursor.getString(index).equals(\"1\")";
+            case STRING:
+                return HELPER + ".getString(cursor, index)";
+            case BIG_DECIMAL:
+                return HELPER + ".getBigDecimal(cursor, index)";
+            case TIMESTAMP:
+                return "new java.sql.Timestamp(cursor.getLong(index))";
+            case DATE:
+                return "new java.util.Date(cursor.getLong(index))";
+            case CALENDAR:
+                return HELPER + ".getCalendar(cursor, index)";
+            case BLOB:
+                return HELPER + ".getBytes(cursor, index)";
+            case ENUM:
+                return HELPER + ".getEnum(cursor, index, " + property.getTypeName() + ".class)";
+            case RELATION:
+            case LAZY:
+                // Relations are loaded by SugarRecord once the whole result set is read
+                return null;
+            default:
+                // The reflection path can't read these back either
+                return null;
+        }
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void line(int indent, String text) {
+        for (int i = 0; i < indent; i++) {
+            out.append(INDENT);
+        }
+        out.append(text).append('\n');
+    }
+}
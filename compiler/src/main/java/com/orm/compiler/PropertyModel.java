@@ -0,0 +1,87 @@
+package com.orm.compiler;
+
+/**
+ * A persisted field of an entity, as seen by the generated mapper.
+ */
+final class PropertyModel {
+
+    /**
+     * The conversions the runtime applies to a column, one per branch of the reflection based
+     * {@code ReflectionUtil.addFieldValueToColumn} and {@code ReflectionUtil.setFieldValueFromCursor}.
+     */
+    enum Kind {
+        SHORT,
+        INTEGER,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        BOOLEAN,
+        STRING,
+        BIG_DECIMAL,
+        TIMESTAMP,
+        DATE,
+        CALENDAR,
+        BLOB,
+        ENUM,
+        RELATION,
+        LAZY,
+        OTHER
+    }
+
+    private final String name;
+    private final String columnName;
+    private final Kind kind;
+    private final String typeName;
+    private final String getter;
+    private final String setter;
+
+    /**
+     * @param name the field name
+     * @param columnName the column the field is stored in
+     * @param kind the conversion used for the field
+     * @param typeName the canonical name of the field type, used for enums and relations
+     * @param getter the method used to read the field or null if it is read directly
+     * @param setter the method used to write the field or null if it is written directly
+     */
+    PropertyModel(String name, String columnName, Kind kind, String typeName, String getter, String setter) {
+        this.name = name;
+        this.columnName = columnName;
+        this.kind = kind;
+        this.typeName = typeName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getColumnName() {
+        return columnName;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @param target the expression holding the entity
+     * @return an expression reading this property from the target
+     */
+    String read(String target) {
+        return (getter == null) ? target + "." + name : target + "." + getter + "()";
+    }
+
+    /**
+     * @param target the expression holding the entity
+     * @param value the expression to assign
+     * @return a statement writing the value to this property of the target
+     */
+    String write(String target, String value) {
+        return (setter == null) ? target + "." + name + " = " + value + ";" : target + "." + setter + "(" + value + ");";
+    }
+}
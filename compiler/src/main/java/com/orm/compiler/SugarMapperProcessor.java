@@ -0,0 +1,124 @@
+package com.orm.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates an {@code EntityMapper} next to every {@code @Table} annotated class and every
+ * {@code SugarRecord} subclass being compiled. SugarRecord subclasses don't need any annotation,
+ * so the processor looks at every root element instead of claiming a specific annotation.
+ *
+ * Entities whose fields can't be reached from generated code are skipped with a note and keep
+ * using reflection at runtime.
+ *
+ * Every entity, with or without a mapper, is also listed in a single {@code EntityIndex}, written
+ * once a round no longer brings new entities. Pass {@code -Asugar.entityIndex=false} to a module
+ * whose entities are indexed by another one, as only one index can be packaged.
+ */
+@SupportedAnnotationTypes("*")
+public final class SugarMapperProcessor extends AbstractProcessor {
+    static final String OPTION_ENTITY_INDEX = "sugar.entityIndex";
+
+    private final List<String> entityNames = new ArrayList<>();
+    private boolean indexWritten;
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_ENTITY_INDEX);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        List<TypeElement> types = new ArrayList<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectTypes(type, types);
+        }
+
+        int indexed = entityNames.size();
+        for (TypeElement type : types) {
+            if (!EntityModel.isEntity(type, processingEnv)) {
+                continue;
+            }
+
+            entityNames.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+            try {
+                EntityModel entity = EntityModel.parse(type, processingEnv);
+                writeMapper(type, entity);
+            } catch (UnsupportedEntityException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Sugar: no mapper generated for " + type.getQualifiedName() + ", " + e.getMessage(), type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Sugar: unable to write mapper for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+            }
+        }
+
+        if (entityNames.size() == indexed && !entityNames.isEmpty() && !indexWritten && isIndexEnabled()) {
+            indexWritten = true;
+            try {
+                writeIndex();
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Sugar: unable to write entity index: " + e.getMessage());
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isIndexEnabled() {
+        return !"false".equals(processingEnv.getOptions().get(OPTION_ENTITY_INDEX));
+    }
+
+    private static void collectTypes(TypeElement type, List<TypeElement> types) {
+        types.add(type);
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                collectTypes((TypeElement) enclosed, types);
+            }
+        }
+    }
+
+    private void writeMapper(TypeElement type, EntityModel entity) throws IOException {
+        String mapperName = entity.getPackageName().isEmpty()
+                ? entity.getMapperName() : entity.getPackageName() + "." + entity.getMapperName();
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(mapperName, type);
+
+        Writer writer = file.openWriter();
+        try {
+            writer.write(new MapperWriter(entity).write());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(IndexWriter.PACKAGE + "." + IndexWriter.NAME);
+
+        Writer writer = file.openWriter();
+        try {
+            writer.write(new IndexWriter(entityNames).write());
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.orm.compiler;
+
+/**
+ * Thrown when no mapper can be generated for an entity, for instance because one of its fields
+ * is private and has no accessors. Such entities keep using the reflection based code path.
+ */
+final class UnsupportedEntityException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedEntityException(String message) {
+        super(message);
+    }
+}
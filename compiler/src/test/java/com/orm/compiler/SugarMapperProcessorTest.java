@@ -0,0 +1,259 @@
+package com.orm.compiler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class SugarMapperProcessorTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sources;
+    private File generated;
+
+    @Before
+    public void setUp() throws IOException {
+        sources = folder.newFolder("src");
+        generated = folder.newFolder("generated");
+
+        source("com/orm/annotation/Table.java",
+                "package com.orm.annotation;",
+                "public @interface Table { String name() default \"\"; }");
+        source("com/orm/annotation/Column.java",
+                "package com.orm.annotation;",
+                "public @interface Column { String name(); }");
+        source("com/orm/annotation/Ignore.java",
+                "package com.orm.annotation;",
+                "public @interface Ignore { }");
+        source("com/orm/SugarRecord.java",
+                "package com.orm;",
+                "public class SugarRecord {",
+                "    private Long id;",
+                "    public Long getId() { return id; }",
+                "    public void setId(Long id) { this.id = id; }",
+                "}");
+        source("com/orm/SugarLazy.java",
+                "package com.orm;",
+                "public final class SugarLazy<T> { }");
+    }
+
+    @Test
+    public void testRecordMapper() throws IOException {
+        source("com/example/Book.java",
+                "package com.example;",
+                "public class Book extends com.orm.SugarRecord {",
+                "    String title;",
+                "    @com.orm.annotation.Column(name = \"pages\") int pageCount;",
+                "    private boolean published;",
+                "    @com.orm.annotation.Ignore String cached;",
+                "    static String STATIC;",
+                "    public boolean isPublished() { return published; }",
+                "    public void setPublished(boolean published) { this.published = published; }",
+                "}");
+
+        compile();
+
+        String mapper = read("com/example/Book_SugarMapper.java");
+        assertTrue(mapper.contains("public final class Book_SugarMapper implements com.orm.mapper.EntityMapper<com.example.Book>"));
+        assertTrue(mapper.contains("com.orm.helper.MapperHelper.putString(values, \"TITLE\", entity.title);"));
+        assertTrue(mapper.contains("values.put(\"pages\", entity.pageCount);"));
+        assertTrue(mapper.contains("values.put(\"PUBLISHED\", entity.isPublished());"));
+        assertTrue(mapper.contains("entity.setPublished(cursor.getString(index).equals(\"1\"));"));
+        assertTrue(mapper.contains("entity.setId(id);"));
+        assertTrue(mapper.contains("private static final String[] COLUMNS = {\"TITLE\", \"pages\", \"PUBLISHED\", \"ID\"};"));
+        assertTrue(mapper.contains("index = indexes[3];"));
+        assertFalse(mapper.contains("CACHED"));
+        assertFalse(mapper.contains("STATIC"));
+    }
+
+    @Test
+    public void testAnnotatedMapperWithoutId() throws IOException {
+        source("com/example/Note.java",
+                "package com.example;",
+                "@com.orm.annotation.Table",
+                "public class Note {",
+                "    java.util.Date created;",
+                "    Book book;",
+                "    com.orm.SugarLazy<Book> author;",
+                "}");
+        source("com/example/Book.java",
+                "package com.example;",
+                "public class Book extends com.orm.SugarRecord { }");
+
+        compile();
+
+        String mapper = read("com/example/Note_SugarMapper.java");
+        assertTrue(mapper.contains("return false;"));
+        assertTrue(mapper.contains("com.orm.helper.MapperHelper.putDate(values, \"CREATED\", entity.created);"));
+        assertTrue(mapper.contains("com.orm.helper.MapperHelper.putRelation(values, \"BOOK\", com.example.Book.class, entity.book);"));
+        assertFalse(mapper.contains("entity.book ="));
+        assertTrue(mapper.contains("com.orm.helper.MapperHelper.putLazy(values, \"AUTHOR\", entity.author);"));
+        assertFalse(mapper.contains("entity.author ="));
+    }
+
+    @Test
+    public void testNestedEntity() throws IOException {
+        source("com/example/Library.java",
+                "package com.example;",
+                "public class Library {",
+                "    @com.orm.annotation.Table",
+                "    public static class Shelf { Long id; }",
+                "}");
+
+        compile();
+
+        String mapper = read("com/example/Library_Shelf_SugarMapper.java");
+        assertTrue(mapper.contains("return new com.example.Library.Shelf();"));
+    }
+
+    @Test
+    public void testSkipsInaccessibleEntity() throws IOException {
+        source("com/example/Secret.java",
+                "package com.example;",
+                "public class Secret extends com.orm.SugarRecord {",
+                "    private String value;",
+                "    public String getValue() { return value; }",
+                "}");
+        source("com/example/Hidden.java",
+                "package com.example;",
+                "@com.orm.annotation.Table",
+                "public class Hidden {",
+                "    private Hidden() { }",
+                "}");
+
+        compile();
+
+        assertFalse(new File(generated, "com/example/Secret_SugarMapper.java").exists());
+        assertFalse(new File(generated, "com/example/Hidden_SugarMapper.java").exists());
+    }
+
+    @Test
+    public void testNoMapperForSugarRecord() throws IOException {
+        compile();
+        assertFalse(new File(generated, "com/orm/SugarRecord_SugarMapper.java").exists());
+    }
+
+    @Test
+    public void testEntityIndex() throws IOException {
+        source("com/example/Library.java",
+                "package com.example;",
+                "public class Library {",
+                "    @com.orm.annotation.Table",
+                "    public static class Shelf { Long id; }",
+                "}");
+        source("com/example/Secret.java",
+                "package com.example;",
+                "public class Secret extends com.orm.SugarRecord {",
+                "    private String value;",
+                "}");
+        source("com/example/Base.java",
+                "package com.example;",
+                "public abstract class Base extends com.orm.SugarRecord { }");
+
+        compile();
+
+        String index = read("com/orm/generated/SugarEntityIndex.java");
+        assertTrue(index.contains("public final class SugarEntityIndex implements com.orm.mapper.EntityIndex"));
+        assertTrue(index.contains("\"com.example.Library$Shelf\""));
+        assertTrue(index.contains("\"com.example.Secret\""));
+        assertFalse(index.contains("Base"));
+        assertFalse(index.contains("com.orm.SugarRecord"));
+    }
+
+    @Test
+    public void testEntityIndexDisabled() throws IOException {
+        source("com/example/Book.java",
+                "package com.example;",
+                "public class Book extends com.orm.SugarRecord { }");
+
+        compile("-Asugar.entityIndex=false");
+
+        assertTrue(new File(generated, "com/example/Book_SugarMapper.java").exists());
+        assertFalse(new File(generated, "com/orm/generated/SugarEntityIndex.java").exists());
+    }
+
+    @Test
+    public void testNoEntityIndexWithoutEntities() throws IOException {
+        compile();
+        assertFalse(new File(generated, "com/orm/generated/SugarEntityIndex.java").exists());
+    }
+
+    @Test
+    public void testToSQLNameDefault() {
+        assertEquals("PAGE_COUNT", EntityModel.toSQLNameDefault("pageCount"));
+        assertEquals("URL_VALUE", EntityModel.toSQLNameDefault("URLValue"));
+        assertEquals("_id", EntityModel.toSQLNameDefault("_ID"));
+    }
+
+    private void source(String path, String... lines) throws IOException {
+        File file = new File(sources, path);
+        file.getParentFile().mkdirs();
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void compile(String... options) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, UTF_8);
+
+        List<File> files = new ArrayList<>();
+        collect(sources, files);
+        Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+
+        // The generated mappers reference the Android library, which isn't on the class path here,
+        // so only the processing rounds are run and their outcome is checked through the files
+        List<String> arguments = new ArrayList<>(Arrays.asList("-proc:only", "-s", generated.getPath()));
+        arguments.addAll(Arrays.asList(options));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, new DiagnosticCollector<JavaFileObject>(),
+                arguments, null, units);
+        task.setProcessors(Arrays.asList(new SugarMapperProcessor()));
+        task.call();
+        fileManager.close();
+    }
+
+    private static void collect(File directory, List<File> files) {
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                collect(file, files);
+            } else {
+                files.add(file);
+            }
+        }
+    }
+
+    private String read(String path) throws IOException {
+        return new String(Files.readAllBytes(new File(generated, path).toPath()), UTF_8);
+    }
+}
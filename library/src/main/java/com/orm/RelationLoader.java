@@ -0,0 +1,155 @@
+package com.orm;
+
+import com.orm.util.ColumnInfo;
+import com.orm.util.QueryBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Resolves the relationship fields of inflated entities.
+ *
+ * A deferred loader collects the foreign keys of a whole result set and then loads each related
+ * type with {@code IN (...)} queries, chunked to SQLite's variable limit. An immediate loader is
+ * used when rows are read one at a time and resolves each key as it comes. Both load a given id
+ * only once, so entities sharing a parent share the same instance. Entities held by the entity
+ * cache aren't loaded again.
+ */
+final class RelationLoader {
+    private final boolean deferred;
+    private final Map<Class<?>, Map<Long, Object>> loaded = new HashMap<>();
+    private final Map<Class<?>, Set<Long>> pendingIds = new LinkedHashMap<>();
+    private final List<PendingRelation> pending = new ArrayList<>();
+
+    private RelationLoader(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    /**
+     * @return a loader resolving relations once {@link #load()} is called
+     */
+    static RelationLoader deferred() {
+        return new RelationLoader(true);
+    }
+
+    /**
+     * @return a loader resolving relations as soon as they are added
+     */
+    static RelationLoader immediate() {
+        return new RelationLoader(false);
+    }
+
+    /**
+     * Sets the relation held by the column of the entity to the entity with the given id, or to
+     * null if the id isn't positive. {@link SugarLazy} columns get a holder sharing the entities
+     * loaded by this loader instead.
+     */
+    void add(Object entity, ColumnInfo column, long id) throws IllegalAccessException {
+        Class<?> type = column.getRelatedType();
+        Object related;
+
+        if (column.getConverter() == ColumnInfo.Converter.LAZY) {
+            column.set(entity, lazy(type, id));
+        } else if (id <= 0) {
+            column.set(entity, null);
+        } else if (isLoaded(type, id)) {
+            column.set(entity, loaded.get(type).get(id));
+        } else if (deferred && null != (related = getSugarContext().getEntityCache().get(type, id))) {
+            loadedOf(type).put(id, related);
+            column.set(entity, related);
+        } else if (deferred) {
+            Set<Long> ids = pendingIds.get(type);
+            if (ids == null) {
+                ids = new LinkedHashSet<>();
+                pendingIds.put(type, ids);
+            }
+            ids.add(id);
+            pending.add(new PendingRelation(entity, column, id));
+        } else {
+            related = SugarRecord.findById(type, id);
+            loadedOf(type).put(id, related);
+            column.set(entity, related);
+        }
+    }
+
+    /**
+     * Loads every pending relation and sets it on its entity.
+     */
+    void load() throws IllegalAccessException {
+        for (Map.Entry<Class<?>, Set<Long>> entry : pendingIds.entrySet()) {
+            loadAll(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+
+        for (PendingRelation relation : pending) {
+            Class<?> type = relation.column.getRelatedType();
+            relation.column.set(relation.entity, loaded.get(type).get(relation.id));
+        }
+
+        pendingIds.clear();
+        pending.clear();
+    }
+
+    private void loadAll(Class<?> type, List<Long> ids) {
+        Map<Long, Object> byId = loadedOf(type);
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+
+        for (int start = 0; start < ids.size(); start += QueryBuilder.SQLITE_MAX_VARIABLE_NUMBER) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + QueryBuilder.SQLITE_MAX_VARIABLE_NUMBER));
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = String.valueOf(chunk.get(i));
+            }
+
+            List<?> entities = SugarRecord.find(type, "id IN (" + QueryBuilder.generatePlaceholders(args.length) + ")", args);
+            for (Object entity : entities) {
+                byId.put(entitiesMap.get(entity), entity);
+            }
+        }
+
+        for (Long id : ids) {
+            if (!byId.containsKey(id)) {
+                byId.put(id, null);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private SugarLazy<?> lazy(Class<?> type, long id) {
+        Long lazyId = (id > 0) ? id : null;
+        Map<Long, Object> cache = (type != null) ? loadedOf(type) : null;
+        return new SugarLazy<>((Class<Object>) type, lazyId, cache);
+    }
+
+    private boolean isLoaded(Class<?> type, long id) {
+        Map<Long, Object> byId = loaded.get(type);
+        return byId != null && byId.containsKey(id);
+    }
+
+    private Map<Long, Object> loadedOf(Class<?> type) {
+        Map<Long, Object> byId = loaded.get(type);
+        if (byId == null) {
+            byId = new HashMap<>();
+            loaded.put(type, byId);
+        }
+        return byId;
+    }
+
+    private static final class PendingRelation {
+        final Object entity;
+        final ColumnInfo column;
+        final long id;
+
+        PendingRelation(Object entity, ColumnInfo column, long id) {
+            this.entity = entity;
+            this.column = column;
+            this.id = id;
+        }
+    }
+}
@@ -1,32 +1,37 @@
 package com.orm;
 
 import android.database.Cursor;
-import android.database.SQLException;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
-import com.orm.annotation.Column;
 import com.orm.annotation.MultiUnique;
 import com.orm.annotation.NotNull;
-import com.orm.annotation.Unique;
 import com.orm.dsl.BuildConfig;
 import com.orm.helper.ManifestHelper;
+import com.orm.util.ColumnInfo;
+import com.orm.util.IndexInfo;
 import com.orm.util.KeyWordUtil;
-import com.orm.util.MigrationFileParser;
 import com.orm.helper.NamingHelper;
 import com.orm.util.NumberComparator;
-import com.orm.util.QueryBuilder;
-import com.orm.util.ReflectionUtil;
+import com.orm.util.SqlScriptReader;
+import com.orm.util.TableInfo;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.Field;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.orm.util.ReflectionUtil.getDomainClasses;
 import static com.orm.util.ContextUtil.getAssets;
@@ -36,6 +41,13 @@ public class SchemaGenerator {
     public static final String NOT_NULL = " NOT NULL";
     public static final String UNIQUE = " UNIQUE";
     public static final String SUGAR = "Sugar";
+    /**
+     * Holds the fingerprint of every table created or upgraded, so upgrades only look at the tables
+     * whose entity changed
+     */
+    public static final String SCHEMA_TABLE = "SUGAR_SCHEMA";
+
+    private final Map<String, Long> timings = new LinkedHashMap<>();
 
     //Prevent instantiation
     private SchemaGenerator() { }
@@ -44,13 +56,45 @@ public class SchemaGenerator {
         return new SchemaGenerator();
     }
 
+    /**
+     * Creates every table and its indexes, runs their after create scripts and stores their
+     * fingerprints in a single transaction, nested in the one of {@code onCreate} when called from
+     * there.
+     */
     public void createDatabase(SQLiteDatabase sqLiteDatabase) {
+        long start = startTimings();
         List<Class> domainClasses = getDomainClasses();
+        start = step("domain classes", start);
+
+        boolean partial = supportsPartialIndexes(sqLiteDatabase);
+        List<String> statements = new ArrayList<>(domainClasses.size());
         for (Class domain : domainClasses) {
-            createTable(domain, sqLiteDatabase);
-            afterTableCreated(domain,sqLiteDatabase);
+            statements.add(createTableSQL(domain));
+            statements.addAll(createIndexesSQL(domain, partial));
         }
+        start = step("generate", start);
+
+        sqLiteDatabase.beginTransaction();
+        try {
+            createSchemaTable(sqLiteDatabase);
+            for (String statement : statements) {
+                execute(sqLiteDatabase, statement);
+            }
+            start = step("create tables", start);
+
+            for (Class domain : domainClasses) {
+                afterTableCreated(domain,sqLiteDatabase);
+            }
+            start = step("after create scripts", start);
 
+            saveFingerprints(sqLiteDatabase, domainClasses);
+            start = step("fingerprints", start);
+            sqLiteDatabase.setTransactionSuccessful();
+        } finally {
+            sqLiteDatabase.endTransaction();
+        }
+        step("commit", start);
+        logTimings("createDatabase");
     }
 
     public void afterTableCreated(Class<?> table, SQLiteDatabase sqLiteDatabase) {
@@ -59,40 +103,203 @@ public class SchemaGenerator {
 
     }
 
+    /**
+     * Creates the missing tables and adds the missing columns, creates the new indexes and drops
+     * the removed ones, then runs the upgrade scripts, all in a single transaction. Tables whose
+     * fingerprint didn't change since they were last created or upgraded are left alone without
+     * being introspected.
+     */
     public void doUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        long start = startTimings();
         List<Class> domainClasses = getDomainClasses();
-        String sql = "select count(*) from sqlite_master where type='table' and name='%s';";
+        start = step("domain classes", start);
 
-        for (Class domain : domainClasses) {
-            String tableName = NamingHelper.toTableName(domain);
-            Cursor c = sqLiteDatabase.rawQuery(String.format(sql, tableName), null);
-            if (c.moveToFirst() && c.getInt(0) == 0) {
-                createTable(domain, sqLiteDatabase);
-            } else {
-                addColumns(domain, sqLiteDatabase);
+        sqLiteDatabase.beginTransaction();
+        try {
+            Map<String, String> fingerprints = getFingerprints(sqLiteDatabase);
+            Set<String> tables = getTableNames(sqLiteDatabase);
+            boolean partial = supportsPartialIndexes(sqLiteDatabase);
+
+            List<Class> changed = new ArrayList<>();
+            List<String> creates = new ArrayList<>();
+            List<String> alters = new ArrayList<>();
+            List<String> indexes = new ArrayList<>();
+            for (Class domain : domainClasses) {
+                String tableName = TableInfo.get(domain).getName();
+                if (tables.contains(tableName) && fingerprint(domain).equals(fingerprints.get(tableName))) {
+                    if (ManifestHelper.isDebugEnabled()) {
+                        Log.i(SUGAR, "Table " + tableName + " unchanged");
+                    }
+                    continue;
+                }
+
+                changed.add(domain);
+                if (!tables.contains(tableName)) {
+                    creates.add(createTableSQL(domain));
+                    indexes.addAll(createIndexesSQL(domain, partial));
+                } else {
+                    alters.addAll(addColumnsSQL(domain, sqLiteDatabase));
+                    indexes.addAll(updateIndexesSQL(domain, sqLiteDatabase, partial));
+                }
+            }
+            start = step("introspection", start);
+
+            for (String statement : creates) {
+                execute(sqLiteDatabase, statement);
+            }
+            for (String statement : alters) {
+                if (ManifestHelper.isDebugEnabled()) {
+                    Log.i(SUGAR, statement);
+                }
+                sqLiteDatabase.execSQL(statement);
+            }
+            for (String statement : indexes) {
+                execute(sqLiteDatabase, statement);
             }
+            saveFingerprints(sqLiteDatabase, changed);
+            start = step("alter tables", start);
+
+            executeSugarUpgrade(sqLiteDatabase, oldVersion, newVersion);
+            start = step("upgrade scripts", start);
+            sqLiteDatabase.setTransactionSuccessful();
+        } finally {
+            sqLiteDatabase.endTransaction();
+        }
+        step("commit", start);
+        logTimings("doUpgrade");
+    }
+
+    /**
+     * @return the time in ms taken by each step of the last {@link #createDatabase} or
+     *         {@link #doUpgrade}, in the order they ran
+     */
+    public Map<String, Long> getTimings() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    private long startTimings() {
+        timings.clear();
+        return System.nanoTime();
+    }
+
+    private long step(String name, long start) {
+        long now = System.nanoTime();
+        timings.put(name, (now - start) / 1000000);
+        return now;
+    }
+
+    private void logTimings(String operation) {
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, operation + " timings (ms): " + timings);
         }
-        executeSugarUpgrade(sqLiteDatabase, oldVersion, newVersion);
     }
 
+    /**
+     * Reads the columns of a table from {@code PRAGMA table_info}, without querying its rows.
+     *
+     * @return the column names, empty if the table doesn't exist
+     */
     protected ArrayList<String> getColumnNames(SQLiteDatabase sqLiteDatabase, String tableName) {
-        Cursor resultsQuery = sqLiteDatabase.query(tableName, null, null, null, null, null, null);
+        Cursor resultsQuery = sqLiteDatabase.rawQuery("PRAGMA table_info(" + tableName + ")", null);
         //Check if columns match vs the one on the domain class
         ArrayList<String> columnNames = new ArrayList<>();
-        for (int i = 0; i < resultsQuery.getColumnCount(); i++) {
-            String columnName = resultsQuery.getColumnName(i);
-            columnNames.add(columnName);
+        try {
+            int nameIndex = resultsQuery.getColumnIndex("name");
+            while (resultsQuery.moveToNext()) {
+                columnNames.add(resultsQuery.getString(nameIndex));
+            }
+        } finally {
+            resultsQuery.close();
         }
-        resultsQuery.close();
         return columnNames;
     }
 
+    /**
+     * @return a hash of the table definition of the entity: its name, columns, types, constraints
+     *         and indexes
+     */
+    protected String fingerprint(Class<?> table) {
+        StringBuilder definition = new StringBuilder(createTableSQL(table));
+        for (String index : createIndexesSQL(table)) {
+            definition.append("; ").append(index);
+        }
+        String createSQL = definition.toString();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(createSQL.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return createSQL;
+        }
+    }
+
+    private static void createSchemaTable(SQLiteDatabase sqLiteDatabase) {
+        sqLiteDatabase.execSQL("CREATE TABLE IF NOT EXISTS " + SCHEMA_TABLE
+                + " ( TABLE_NAME TEXT PRIMARY KEY, FINGERPRINT TEXT NOT NULL )");
+    }
+
+    /**
+     * Stores the fingerprints of the tables through a single compiled statement.
+     */
+    private void saveFingerprints(SQLiteDatabase sqLiteDatabase, List<Class> tables) {
+        if (tables.isEmpty()) {
+            return;
+        }
+
+        SQLiteStatement statement = sqLiteDatabase.compileStatement(
+                "INSERT OR REPLACE INTO " + SCHEMA_TABLE + " ( TABLE_NAME, FINGERPRINT ) VALUES ( ?, ? )");
+        try {
+            for (Class table : tables) {
+                statement.bindString(1, TableInfo.get(table).getName());
+                statement.bindString(2, fingerprint(table));
+                statement.executeInsert();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * @return the stored fingerprints by table name, empty for a database created before they were
+     */
+    private static Map<String, String> getFingerprints(SQLiteDatabase sqLiteDatabase) {
+        createSchemaTable(sqLiteDatabase);
+        Map<String, String> fingerprints = new HashMap<>();
+        Cursor c = sqLiteDatabase.rawQuery("SELECT TABLE_NAME, FINGERPRINT FROM " + SCHEMA_TABLE, null);
+        try {
+            while (c.moveToNext()) {
+                fingerprints.put(c.getString(0), c.getString(1));
+            }
+        } finally {
+            c.close();
+        }
+        return fingerprints;
+    }
+
+    private static Set<String> getTableNames(SQLiteDatabase sqLiteDatabase) {
+        Set<String> tables = new HashSet<>();
+        Cursor c = sqLiteDatabase.rawQuery("select name from sqlite_master where type='table'", null);
+        try {
+            while (c.moveToNext()) {
+                tables.add(c.getString(0));
+            }
+        } finally {
+            c.close();
+        }
+        return tables;
+    }
+
 
     public void deleteTables(SQLiteDatabase sqLiteDatabase) {
         List<Class> tables = getDomainClasses();
         for (Class table : tables) {
-            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + NamingHelper.toTableName(table));
+            sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + TableInfo.get(table).getName());
         }
+        sqLiteDatabase.execSQL("DROP TABLE IF EXISTS " + SCHEMA_TABLE);
     }
 
     private boolean executeSugarUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
@@ -129,29 +336,35 @@ public class SchemaGenerator {
         return isSuccess;
     }
 
+    /**
+     * Executes the statements of a script asset as they are read, so it is never held in memory
+     * as a whole.
+     */
     private void executeScript(SQLiteDatabase db,String path ,String file) {
+        SqlScriptReader reader = null;
         try {
             InputStream is = getAssets().open(path + file);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
-            MigrationFileParser migrationFileParser = new MigrationFileParser(sb.toString());
-            for(String statement: migrationFileParser.getStatements()){
+            reader = new SqlScriptReader(new InputStreamReader(is, "UTF-8"));
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
                 if(ManifestHelper.isDebugEnabled()) {
                     Log.i("Sugar script", statement);
                 }
-                if (!statement.isEmpty()) {
-                    db.execSQL(statement);
-                }
+                db.execSQL(statement);
             }
 
         } catch (IOException e) {
             if(ManifestHelper.isDebugEnabled()) {
                 Log.e(SUGAR, e.getMessage());
             }
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // Nothing left to read
+                }
+            }
         }
 
         if(ManifestHelper.isDebugEnabled()) {
@@ -159,25 +372,23 @@ public class SchemaGenerator {
         }
     }
 
-    private void addColumns(Class<?> table, SQLiteDatabase sqLiteDatabase) {
-        List<Field> fields = ReflectionUtil.getTableFields(table);
-        String tableName = NamingHelper.toTableName(table);
+    /**
+     * @return the ALTER TABLE statements adding the columns missing from the table
+     */
+    private List<String> addColumnsSQL(Class<?> table, SQLiteDatabase sqLiteDatabase) {
+        TableInfo tableInfo = TableInfo.get(table);
+        String tableName = tableInfo.getName();
         ArrayList<String> presentColumns = getColumnNames(sqLiteDatabase, tableName);
         ArrayList<String> alterCommands = new ArrayList<>();
 
-        for (Field column : fields) {
-            String columnName = NamingHelper.toColumnName(column);
-            String columnType = QueryBuilder.getColumnType(column.getType());
-
-            if (column.isAnnotationPresent(Column.class)) {
-                Column columnAnnotation = column.getAnnotation(Column.class);
-                columnName = columnAnnotation.name();
-            }
+        for (ColumnInfo column : tableInfo.getColumns()) {
+            String columnName = column.getName();
+            String columnType = column.getSqlType();
 
             if (!presentColumns.contains(columnName)) {
                 StringBuilder sb = new StringBuilder("ALTER TABLE ");
                 sb.append(tableName).append(" ADD COLUMN ").append(columnName).append(" ").append(columnType);
-                if (column.isAnnotationPresent(NotNull.class)) {
+                if (column.getField().isAnnotationPresent(NotNull.class)) {
                     if (columnType.endsWith(" NULL")) {
                         sb.delete(sb.length() - 5, sb.length());
                     }
@@ -192,20 +403,15 @@ public class SchemaGenerator {
             }
         }
 
-        for (String command : alterCommands) {
-            if(ManifestHelper.isDebugEnabled()) {
-                Log.i("Sugar", command);
-            }
-            sqLiteDatabase.execSQL(command);
-        }
+        return alterCommands;
     }
 
     protected String createTableSQL(Class<?> table) {
         if(ManifestHelper.isDebugEnabled()) {
             Log.i(SUGAR, "Create table if not exists");
         }
-        List<Field> fields = ReflectionUtil.getTableFields(table);
-        String tableName = NamingHelper.toTableName(table);
+        TableInfo tableInfo = TableInfo.get(table);
+        String tableName = tableInfo.getName();
 
         if(KeyWordUtil.isKeyword(tableName)) {
             if(ManifestHelper.isDebugEnabled()) {
@@ -216,45 +422,26 @@ public class SchemaGenerator {
         StringBuilder sb = new StringBuilder("CREATE TABLE IF NOT EXISTS ");
         sb.append(tableName).append(" ( ID INTEGER PRIMARY KEY AUTOINCREMENT ");
 
-        for (Field column : fields) {
-            String columnName = NamingHelper.toColumnName(column);
-            String columnType = QueryBuilder.getColumnType(column.getType());
+        for (ColumnInfo column : tableInfo.getColumns()) {
+            String columnName = column.getName();
+            String columnType = column.getSqlType();
 
             if (columnType != null) {
                 if (columnName.equalsIgnoreCase("Id")) {
                     continue;
                 }
 
-                if (column.isAnnotationPresent(Column.class)) {
-                    Column columnAnnotation = column.getAnnotation(Column.class);
-                    columnName = columnAnnotation.name();
-
-                    sb.append(", ").append(columnName).append(" ").append(columnType);
-
-                    if (columnAnnotation.notNull()) {
-                        if (columnType.endsWith(NULL)) {
-                            sb.delete(sb.length() - 5, sb.length());
-                        }
-                        sb.append(NOT_NULL);
-                    }
-
-                    if (columnAnnotation.unique()) {
-                        sb.append(UNIQUE);
-                    }
+                sb.append(", ").append(columnName).append(" ").append(columnType);
 
-                } else {
-                    sb.append(", ").append(columnName).append(" ").append(columnType);
-
-                    if (column.isAnnotationPresent(NotNull.class)) {
-                        if (columnType.endsWith(NULL)) {
-                            sb.delete(sb.length() - 5, sb.length());
-                        }
-                        sb.append(NOT_NULL);
+                if (column.isNotNull()) {
+                    if (columnType.endsWith(NULL)) {
+                        sb.delete(sb.length() - 5, sb.length());
                     }
+                    sb.append(NOT_NULL);
+                }
 
-                    if (column.isAnnotationPresent(Unique.class)) {
-                        sb.append(UNIQUE);
-                    }
+                if (column.isUnique()) {
+                    sb.append(UNIQUE);
                 }
             }
         }
@@ -285,15 +472,87 @@ public class SchemaGenerator {
         return sb.toString();
     }
 
+    /**
+     * @return the CREATE INDEX statements of the indexes declared by the entity, see
+     *         {@link TableInfo#getIndexes()}
+     */
+    protected List<String> createIndexesSQL(Class<?> table) {
+        return createIndexesSQL(table, true);
+    }
+
+    private static List<String> createIndexesSQL(Class<?> table, boolean partial) {
+        List<IndexInfo> indexes = TableInfo.get(table).getIndexes();
+        List<String> statements = new ArrayList<>(indexes.size());
+        for (IndexInfo index : indexes) {
+            statements.add(index.createSQL(partial));
+        }
+        return statements;
+    }
+
+    /**
+     * Compares the indexes Sugar created on an existing table with those the entity declares.
+     *
+     * @return the DROP INDEX statements of the removed and changed indexes, followed by the
+     *         CREATE INDEX statements of the declared ones
+     */
+    private static List<String> updateIndexesSQL(Class<?> table, SQLiteDatabase sqLiteDatabase, boolean partial) {
+        TableInfo tableInfo = TableInfo.get(table);
+        List<String> statements = new ArrayList<>();
+        Cursor c = sqLiteDatabase.rawQuery("SELECT name, sql FROM sqlite_master WHERE type = 'index' AND tbl_name = ?",
+                new String[]{tableInfo.getName()});
+        try {
+            while (c.moveToNext()) {
+                String name = c.getString(0);
+                if (!name.startsWith(IndexInfo.prefix(tableInfo.getName()))) {
+                    continue;
+                }
+
+                IndexInfo declared = null;
+                for (IndexInfo index : tableInfo.getIndexes()) {
+                    if (index.getName().equals(name)) {
+                        declared = index;
+                    }
+                }
+                if (declared == null || !declared.isCreatedBy(c.getString(1), partial)) {
+                    statements.add("DROP INDEX IF EXISTS " + name);
+                }
+            }
+        } finally {
+            c.close();
+        }
+
+        statements.addAll(createIndexesSQL(table, partial));
+        return statements;
+    }
+
+    /**
+     * @return true if SQLite is 3.8.0 or later, Android 5.0 or later
+     */
+    private static boolean supportsPartialIndexes(SQLiteDatabase sqLiteDatabase) {
+        String[] version = DatabaseUtils.stringForQuery(sqLiteDatabase, "SELECT sqlite_version()", null).split("\\.");
+        try {
+            int major = Integer.parseInt(version[0]);
+            int minor = (version.length > 1) ? Integer.parseInt(version[1]) : 0;
+            return major > 3 || (major == 3 && minor >= 8);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     protected void createTable(Class<?> table, SQLiteDatabase sqLiteDatabase) {
-        String createSQL = createTableSQL(table);
+        execute(sqLiteDatabase, createTableSQL(table));
+    }
 
-        if (!createSQL.isEmpty()) {
-            try {
-                sqLiteDatabase.execSQL(createSQL);
-            } catch (SQLException e) {
-                e.printStackTrace();
+    /**
+     * Runs the statement, letting a failure through so that the transaction it runs in is rolled
+     * back rather than committed without it.
+     */
+    private static void execute(SQLiteDatabase sqLiteDatabase, String statement) {
+        if (!statement.isEmpty()) {
+            if(ManifestHelper.isDebugEnabled()) {
+                Log.i(SUGAR, statement);
             }
+            sqLiteDatabase.execSQL(statement);
         }
     }
 
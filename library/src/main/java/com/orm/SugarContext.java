@@ -3,10 +3,12 @@ package com.orm;
 import android.content.Context;
 
 import com.orm.util.ContextUtil;
+import com.orm.util.EntityCache;
+import com.orm.util.QueryCache;
+import com.orm.util.ThreadUtil;
+import com.orm.util.WeakIdentityMap;
 
-import java.util.Collections;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 public class SugarContext {
 
@@ -14,10 +16,20 @@ public class SugarContext {
     private static SugarContext instance = null;
     private SugarDb sugarDb;
     private Map<Object, Long> entitiesMap;
+    private EntityCache entityCache;
+    private QueryCache queryCache;
 
-    private SugarContext() {
+    private SugarContext(SugarDbConfiguration configuration) {
         this.sugarDb = SugarDb.getInstance();
-        this.entitiesMap = Collections.synchronizedMap(new WeakHashMap<Object, Long>());
+        this.entitiesMap = new WeakIdentityMap<Object, Long>();
+
+        boolean cached = configuration != null && configuration.getEntityCacheSize() != null;
+        this.entityCache = new EntityCache(cached ? configuration.getEntityCacheSize() : 0,
+                cached && Boolean.TRUE.equals(configuration.isEntityCacheWeakValues()));
+
+        boolean queriesCached = configuration != null && configuration.getQueryCacheSize() != null;
+        this.queryCache = new QueryCache(queriesCached ? configuration.getQueryCacheSize() : 0,
+                (queriesCached && configuration.getQueryCacheTtl() != null) ? configuration.getQueryCacheTtl() : 0);
     }
     
     public static SugarContext getSugarContext() {
@@ -28,13 +40,12 @@ public class SugarContext {
     }
 
     public static void init(Context context) {
-        ContextUtil.init(context);
-        instance = new SugarContext();
-        dbConfiguration = null;
+        init(context, null);
     }
 
     public static void init(Context context, SugarDbConfiguration configuration) {
-        init(context);
+        ContextUtil.init(context);
+        instance = new SugarContext(configuration);
         dbConfiguration = configuration;
     }
 
@@ -54,7 +65,11 @@ public class SugarContext {
      * Robolectric Android mock.
      */
     private void doTerminate() {
+        ThreadUtil.shutdown();
         if (this.sugarDb != null) {
+            this.sugarDb.clearStatementCache();
+            this.entityCache.clear();
+            this.queryCache.invalidateAll();
             this.sugarDb.getDB().close();
         }
     }
@@ -67,7 +82,24 @@ public class SugarContext {
         return sugarDb;
     }
 
+    /**
+     * @return the ids of the entities without an id field, by identity, held weakly
+     */
     public Map<Object, Long> getEntitiesMap() {
         return entitiesMap;
     }
+
+    /**
+     * @return the entity cache, disabled unless {@link SugarDbConfiguration#setEntityCacheSize(Integer)} was set
+     */
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * @return the query cache, disabled unless {@link SugarDbConfiguration#setQueryCacheSize(Integer)} was set
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
 }
@@ -1,10 +1,12 @@
 package com.orm;
 
 import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 import static com.orm.util.ThreadUtil.*;
@@ -13,45 +15,69 @@ import static com.orm.util.ThreadUtil.*;
  * SugarDataSource provides basic crud operations and simplifies SugarRecord by using callbacks and
  * performing Asynchronous execution to run queries.
  *
+ * Every method returns immediately: the query runs on Sugar's background threads, see
+ * {@link com.orm.util.ThreadUtil}, and the callbacks are then run by the callback executor, which
+ * posts them to the main thread unless another one is given. The returned {@link Handle} cancels
+ * the operation.
+ *
  * @author jonatan.salas
  */
 @SuppressWarnings("all")
 public final class SugarDataSource<T> {
     private final Class<T> sClass;
+    private final Executor callbackExecutor;
 
     /**
      * SugarDataSource constructor with params
      *
      * @param tClass class argument used then to run SugarRecord class queries
+     * @param callbackExecutor the executor running the callbacks
      */
-    private SugarDataSource(Class<T> tClass) {
+    private SugarDataSource(Class<T> tClass, Executor callbackExecutor) {
         if (null == tClass) {
             throw new IllegalArgumentException("sClass shouldn't be null!");
         }
+        if (null == callbackExecutor) {
+            throw new IllegalArgumentException("callbackExecutor shouldn't be null!");
+        }
 
         this.sClass = tClass;
+        this.callbackExecutor = callbackExecutor;
     }
 
     /**
-     * SugarDataSource static method to construct an Instance of this class.
+     * SugarDataSource static method to construct an Instance of this class, running callbacks on
+     * the main thread.
      *
      * @param sClass class argument used then to run SugarRecord class queries
      * @param <T> generic argument that must be a SugarRecord extended class or @Table annotated class
      * @return an instance of SugarDataSource
      */
     public static <T> SugarDataSource<T> getInstance(Class<T> sClass) {
-        return new SugarDataSource<>(sClass);
+        return getInstance(sClass, new MainThreadExecutor());
     }
 
     /**
-     * Method used to perform an Asynchronous insert. It works on top of SugarRecord class, executes the
-     * insert query using Futures.
+     * SugarDataSource static method to construct an Instance of this class.
+     *
+     * @param sClass class argument used then to run SugarRecord class queries
+     * @param callbackExecutor the executor running the callbacks
+     * @param <T> generic argument that must be a SugarRecord extended class or @Table annotated class
+     * @return an instance of SugarDataSource
+     */
+    public static <T> SugarDataSource<T> getInstance(Class<T> sClass, Executor callbackExecutor) {
+        return new SugarDataSource<>(sClass, callbackExecutor);
+    }
+
+    /**
+     * Method used to perform an Asynchronous insert. It works on top of SugarRecord class.
      *
      * @param object the object you want to insert. It must be a SugarRecord extended class or @Table annotated class
      * @param successCallback the callback for a successful insert operation
      * @param errorCallback the callback for an error in insert operation
+     * @return a handle cancelling the insert
      */
-    public void insert(final T object, final SuccessCallback<Long> successCallback, final ErrorCallback errorCallback) {
+    public Handle insert(final T object, final SuccessCallback<Long> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
         checkNotNull(object);
@@ -59,36 +85,27 @@ public final class SugarDataSource<T> {
         final Callable<Long> call = new Callable<Long>() {
             @Override
             public Long call() throws Exception {
-                return SugarRecord.save(object);
+                Long id = SugarRecord.save(object);
+                if (null == id) {
+                    throw new Exception("Error when performing insert of " + object.toString());
+                }
+                return id;
             }
         };
 
-        final Future<Long> future = doInBackground(call);
-        Long id;
-
-        try {
-            id = future.get();
-
-            if (null == id) {
-                errorCallback.onError(new Exception("Error when performing insert of " + object.toString()));
-            } else {
-                successCallback.onSuccess(id);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, true, successCallback, errorCallback);
     }
 
     /**
      * Method that performs a bulk insert. It works on top of SugarRecord class, and executes the query
-     * asynchronously using Futures.
+     * asynchronously.
      *
      * @param objects the list of objects that you want to insert. They must be SugarRecord extended objects or @Table annotatd objects.
      * @param successCallback the callback for successful bulk insert operation
      * @param errorCallback the callback for an error in bulk insert operation
+     * @return a handle cancelling the insert
      */
-    public void bulkInsert(final List<T> objects, final SuccessCallback<List<Long>> successCallback, final ErrorCallback errorCallback) {
+    public Handle bulkInsert(final List<T> objects, final SuccessCallback<List<Long>> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
         checkNotNull(objects);
@@ -96,43 +113,27 @@ public final class SugarDataSource<T> {
         final Callable<List<Long>> call = new Callable<List<Long>>() {
             @Override
             public List<Long> call() throws Exception {
-                List<Long> ids = new ArrayList<>(objects.size());
-
-                for (int i = 0; i < objects.size(); i++) {
-                    Long id = SugarRecord.save(objects.get(i));
-                    ids.add(i, id);
+                List<Long> ids = SugarRecord.bulkInsert(sClass, objects);
+                if (null == ids || ids.isEmpty()) {
+                    throw new Exception("Error when performing bulk insert");
                 }
-
                 return ids;
             }
         };
 
-        final Future<List<Long>> future = doInBackground(call);
-        List<Long> ids;
-
-        try {
-            ids = future.get();
-
-            if (null == ids || ids.isEmpty()) {
-                errorCallback.onError(new Exception("Error when performing bulk insert"));
-            } else {
-                successCallback.onSuccess(ids);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, true, successCallback, errorCallback);
     }
 
     /**
      * Method that performs a findById, It works on top of SugarRecord class providing asynchronous
-     * execution with the use of Futures.
+     * execution.
      *
      * @param id the id of the object you want to retrieve
      * @param successCallback the callback to execute when the operation is successful
      * @param errorCallback the callback to execute when the operation has a trouble
+     * @return a handle cancelling the query
      */
-    public void findById(final Long id, final SuccessCallback<T> successCallback, final ErrorCallback errorCallback) {
+    public Handle findById(final Long id, final SuccessCallback<T> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
         checkNotNull(id);
@@ -140,30 +141,21 @@ public final class SugarDataSource<T> {
         final Callable<T> call = new Callable<T>() {
             @Override
             public T call() throws Exception {
-                return SugarRecord.findById(getSugarClass(), id);
+                T object = SugarRecord.findById(getSugarClass(), id);
+                if (null == object) {
+                    throw new Exception("The object with " + id.toString() + "doesn't exist in database");
+                }
+                return object;
             }
         };
 
-        final Future<T> future = doInBackground(call);
-        T object;
-
-        try {
-            object = future.get();
-
-            if (null == object) {
-                errorCallback.onError(new Exception("The object with " + id.toString() + "doesn't exist in database"));
-            } else {
-                successCallback.onSuccess(object);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, false, successCallback, errorCallback);
     }
 
     /**
      * Method that provides you the ability of perform a custom query and retrieve a cursor. It works on top of SugarRecord class,
-     * All the code is executed asynchronously with the usage of Futures and callbacks.
+     * All the code is executed asynchronously with the usage of callbacks. The cursor is closed if
+     * the query is cancelled before it is delivered.
      *
      * @param whereClause the clause of the search
      * @param whereArgs the arguments for the search
@@ -172,81 +164,65 @@ public final class SugarDataSource<T> {
      * @param limit the limit of objects to want
      * @param successCallback the callback to be executed if the operation is successful
      * @param errorCallback the callback to be executed if the operation has an error
+     * @return a handle cancelling the query
      */
-    public void query(final String whereClause, final String[] whereArgs, final String groupBy, final String orderBy, final String limit, final SuccessCallback<Cursor> successCallback, final ErrorCallback errorCallback) {
+    public Handle query(final String whereClause, final String[] whereArgs, final String groupBy, final String orderBy, final String limit, final SuccessCallback<Cursor> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
 
         final Callable<Cursor> call = new Callable<Cursor>() {
             @Override
             public Cursor call() throws Exception {
-                return SugarRecord.getCursor(getSugarClass(), whereClause, whereArgs, groupBy, orderBy, limit);
+                Cursor cursor = SugarRecord.getCursor(getSugarClass(), whereClause, whereArgs, groupBy, orderBy, limit);
+                if (null == cursor) {
+                    throw new Exception("Problem when trying to get the cursor");
+                }
+                // Runs the query, which SQLite defers until the cursor is first read
+                cursor.getCount();
+                return cursor;
             }
         };
 
-        final Future<Cursor> future = doInBackground(call);
-        Cursor cursor;
-
-        try {
-            cursor = future.get();
-
-            if (null == cursor) {
-                errorCallback.onError(new Exception("Problem when trying to get the cursor"));
-            } else {
-                successCallback.onSuccess(cursor);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, false, successCallback, errorCallback);
     }
 
     /**
      * Method that list all elements. It run a SugarRecord.listAll but it's code is performed asynchronously
-     * with the usage of Futures and callbacks.
+     * with the usage of callbacks.
      *
      * @param orderBy the way you want to order the objects you get
      * @param successCallback the callback that is performed if the operation is successful
      * @param errorCallback the callback that is performed if your code has an error
+     * @return a handle cancelling the query
      */
-    public void listAll(final String orderBy, final SuccessCallback<List<T>> successCallback, final ErrorCallback errorCallback) {
+    public Handle listAll(final String orderBy, final SuccessCallback<List<T>> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
 
         final Callable<List<T>> call = new Callable<List<T>>() {
             @Override
             public List<T> call() throws Exception {
-                return SugarRecord.listAll(getSugarClass(), orderBy);
+                List<T> objects = SugarRecord.listAll(getSugarClass(), orderBy);
+                if (null == objects || objects.isEmpty()) {
+                    throw new Exception("There are no objects in the database");
+                }
+                return objects;
             }
         };
 
-        final Future<List<T>> future = doInBackground(call);
-        List<T> objects;
-
-        try {
-            objects = future.get();
-
-            if (null == objects || objects.isEmpty()) {
-                errorCallback.onError(new Exception("There are no objects in the database"));
-            } else {
-                successCallback.onSuccess(objects);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, false, successCallback, errorCallback);
     }
 
 
     /**
-     * Method that works on top of SugarRecord.update and runs the code asynchronously via Futures
-     * and callbacks.
+     * Method that works on top of SugarRecord.update and runs the code asynchronously via callbacks.
      *
      * @param object the object you want to update
      * @param successCallback the callback that will be performed if the update is successful
      * @param errorCallback the callback that will be performed if the update has an error
+     * @return a handle cancelling the update
      */
-    public void update(final T object, final SuccessCallback<Long> successCallback, final ErrorCallback errorCallback) {
+    public Handle update(final T object, final SuccessCallback<Long> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
         checkNotNull(object);
@@ -254,36 +230,27 @@ public final class SugarDataSource<T> {
         final Callable<Long> call = new Callable<Long>() {
             @Override
             public Long call() throws Exception {
-                return SugarRecord.update(object);
+                Long id = SugarRecord.update(object);
+                if (null == id) {
+                    throw new Exception("Error when performing update of " + object.toString());
+                }
+                return id;
             }
         };
 
-        final Future<Long> future = doInBackground(call);
-        Long id;
-
-        try {
-            id = future.get();
-
-            if (null == id) {
-                errorCallback.onError(new Exception("Error when performing update of " + object.toString()));
-            } else {
-                successCallback.onSuccess(id);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, true, successCallback, errorCallback);
     }
 
     /**
      * This method works on top of SugarRecord and provides asynchronous code execution via the usage of
-     * Futures and callbacks to handle success result and error.
+     * callbacks to handle success result and error.
      *
      * @param object the object you want to delete
      * @param successCallback the callback to be performed when the operation is successful
      * @param errorCallback the callback to be performed when the operation has an error
+     * @return a handle cancelling the delete
      */
-    public void delete(final T object, final SuccessCallback<Boolean> successCallback, final ErrorCallback errorCallback) {
+    public Handle delete(final T object, final SuccessCallback<Boolean> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
         checkNotNull(object);
@@ -291,62 +258,43 @@ public final class SugarDataSource<T> {
         final Callable<Boolean> call = new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
-                return SugarRecord.delete(object);
+                Boolean isDeleted = SugarRecord.delete(object);
+                if (null == isDeleted || !isDeleted) {
+                    throw new Exception("Error when performing delete of " + object.toString());
+                }
+                return isDeleted;
             }
         };
 
-        final Future<Boolean> future = doInBackground(call);
-        Boolean isDeleted;
-
-        try {
-            isDeleted = future.get();
-
-            if (null == isDeleted || !isDeleted) {
-                errorCallback.onError(new Exception("Error when performing delete of " + object.toString()));
-            } else {
-                successCallback.onSuccess(isDeleted);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, true, successCallback, errorCallback);
     }
 
     /**
-     * Method that performs a selective delete. The code is executed asynchronously via the usage of Futures
-     * and result callbacks
+     * Method that performs a selective delete. The code is executed asynchronously via the usage of
+     * result callbacks
      *
      * @param whereClause the clause for the search
      * @param whereArgs the values
      * @param successCallback the callback to be executed if there is no trouble
      * @param errorCallback the callback to be executed if there is an error
+     * @return a handle cancelling the delete
      */
-    public void delete(final String whereClause, final String[] whereArgs, final SuccessCallback<Integer> successCallback, final ErrorCallback errorCallback) {
+    public Handle delete(final String whereClause, final String[] whereArgs, final SuccessCallback<Integer> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
 
         final Callable<Integer> call = new Callable<Integer>() {
             @Override
             public Integer call() throws Exception {
-                return SugarRecord.deleteAll(getSugarClass(), whereClause, whereArgs);
+                Integer count = SugarRecord.deleteAll(getSugarClass(), whereClause, whereArgs);
+                if (null == count) {
+                    throw new Exception("Error when performing delete of all elements");
+                }
+                return count;
             }
         };
 
-        final Future<Integer> future = doInBackground(call);
-        Integer count;
-
-        try {
-            count = future.get();
-
-            if (null == count) {
-                errorCallback.onError(new Exception("Error when performing delete of all elements"));
-            } else {
-                successCallback.onSuccess(count);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, true, successCallback, errorCallback);
     }
 
     /**
@@ -354,9 +302,10 @@ public final class SugarDataSource<T> {
      *
      * @param successCallback the callback that is executed if the operation is succesful
      * @param errorCallback the callback that is executed if there is an error
+     * @return a handle cancelling the delete
      */
-    public void deleteAll(final SuccessCallback<Integer> successCallback, final ErrorCallback errorCallback) {
-        delete(null, null, successCallback, errorCallback);
+    public Handle deleteAll(final SuccessCallback<Integer> successCallback, final ErrorCallback errorCallback) {
+        return delete(null, null, successCallback, errorCallback);
     }
 
     /**
@@ -364,33 +313,24 @@ public final class SugarDataSource<T> {
      *
      * @param successCallback the callback that is executed if this is successful
      * @param errorCallback the callback that is executed if there is an error
+     * @return a handle cancelling the count
      */
-    public void count(final SuccessCallback<Long> successCallback, final ErrorCallback errorCallback) {
+    public Handle count(final SuccessCallback<Long> successCallback, final ErrorCallback errorCallback) {
         checkNotNull(successCallback);
         checkNotNull(errorCallback);
 
         final Callable<Long> call = new Callable<Long>() {
             @Override
             public Long call() throws Exception {
-                return SugarRecord.count(getSugarClass());
+                Long count = SugarRecord.count(getSugarClass());
+                if (null == count) {
+                    throw new Exception("Error when trying to get count");
+                }
+                return count;
             }
         };
 
-        final Future<Long> future = doInBackground(call);
-        Long count;
-
-        try {
-            count = future.get();
-
-            if (null == count) {
-                errorCallback.onError(new Exception("Error when trying to get count"));
-            } else {
-                successCallback.onSuccess(count);
-            }
-
-        } catch (Exception e) {
-            errorCallback.onError(e);
-        }
+        return execute(call, false, successCallback, errorCallback);
     }
 
     /**
@@ -408,6 +348,133 @@ public final class SugarDataSource<T> {
         return sClass;
     }
 
+    /**
+     * Runs the call on the writer thread or the reader pool, then its callback on the callback
+     * executor unless the handle has been cancelled in the meantime.
+     */
+    private <R> Handle execute(final Callable<R> call, boolean write, final SuccessCallback<R> successCallback,
+                               final ErrorCallback errorCallback) {
+        final Handle handle = new Handle();
+
+        final Callable<Void> task = new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    final R result = call.call();
+                    deliver(handle, result, new Runnable() {
+                        @Override
+                        public void run() {
+                            successCallback.onSuccess(result);
+                        }
+                    });
+                } catch (final Exception e) {
+                    deliver(handle, null, new Runnable() {
+                        @Override
+                        public void run() {
+                            errorCallback.onError(e);
+                        }
+                    });
+                }
+                return null;
+            }
+        };
+
+        handle.setFuture(write ? writeInBackground(task) : readInBackground(task));
+        return handle;
+    }
+
+    private void deliver(final Handle handle, final Object result, final Runnable callback) {
+        if (handle.isCancelled()) {
+            close(result);
+            return;
+        }
+
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (handle.isCancelled()) {
+                    close(result);
+                } else {
+                    try {
+                        callback.run();
+                    } finally {
+                        handle.setDone();
+                    }
+                }
+            }
+        });
+    }
+
+    private static void close(Object result) {
+        if (result instanceof Cursor) {
+            ((Cursor) result).close();
+        }
+    }
+
+    /**
+     * A pending SugarDataSource operation.
+     */
+    public static final class Handle {
+        private Future<?> future;
+        private boolean cancelled;
+        private boolean done;
+
+        Handle() { }
+
+        /**
+         * Cancels the operation. It isn't run if it hasn't started yet, otherwise its result is
+         * discarded. Either way no callback is run after this returns, as long as it is called
+         * from the callback executor's thread.
+         *
+         * @return false if the callbacks have already been run
+         */
+        public synchronized boolean cancel() {
+            if (done) {
+                return false;
+            }
+
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+            return true;
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true once a callback has been run
+         */
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        synchronized void setFuture(Future<?> future) {
+            this.future = future;
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        synchronized void setDone() {
+            done = true;
+        }
+    }
+
+    /**
+     * Posts callbacks to the main thread.
+     */
+    private static final class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable runnable) {
+            handler.post(runnable);
+        }
+    }
+
     /**
      * The callback to be executed when some SugarDataSource operation is successful.
      *
@@ -1,11 +1,14 @@
 package com.orm;
 
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.util.Log;
 
 import com.orm.dsl.BuildConfig;
 import com.orm.helper.ManifestHelper;
+import com.orm.util.StatementCache;
 import com.orm.util.SugarCursorFactory;
 
 import static com.orm.util.ContextUtil.getContext;
@@ -17,7 +20,8 @@ public class SugarDb extends SQLiteOpenHelper {
     private static final String LOG_TAG = "Sugar";
 
     private final SchemaGenerator schemaGenerator;
-    private SQLiteDatabase sqLiteDatabase;
+    private volatile SQLiteDatabase sqLiteDatabase;
+    private StatementCache statementCache;
     private int openedConnections = 0;
 
     //Prevent instantiation
@@ -32,6 +36,7 @@ public class SugarDb extends SQLiteOpenHelper {
 
     @Override
     public void onCreate(SQLiteDatabase sqLiteDatabase) {
+        clearStatementCache();
         schemaGenerator.createDatabase(sqLiteDatabase);
     }
 
@@ -40,25 +45,194 @@ public class SugarDb extends SQLiteOpenHelper {
         final SugarDbConfiguration configuration = getDbConfiguration();
 
         if (null != configuration) {
-            db.setLocale(configuration.getDatabaseLocale());
-            db.setMaximumSize(configuration.getMaxSize());
-            db.setPageSize(configuration.getPageSize());
+            if (null != configuration.getDatabaseLocale()) {
+                db.setLocale(configuration.getDatabaseLocale());
+            }
+            if (null != configuration.getMaxSize()) {
+                db.setMaximumSize(configuration.getMaxSize());
+            }
+            if (null != configuration.getPageSize()) {
+                db.setPageSize(configuration.getPageSize());
+            }
+            // Enabling write-ahead logging resets synchronous, so the pragmas are applied after it
+            if (isWriteAheadLoggingRequested(configuration)) {
+                db.enableWriteAheadLogging();
+            }
+            if (null != configuration.isForeignKeysEnabled()) {
+                db.setForeignKeyConstraintsEnabled(configuration.isForeignKeysEnabled());
+            }
+            applyPragmas(db, configuration);
         }
 
         super.onConfigure(db);
     }
 
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+
+        // onConfigure is only called from Jelly Bean on
+        final SugarDbConfiguration configuration = getDbConfiguration();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && null != configuration) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && isWriteAheadLoggingRequested(configuration)) {
+                db.enableWriteAheadLogging();
+            }
+            pragma(db, "foreign_keys", toPragmaValue(configuration.isForeignKeysEnabled()));
+            applyPragmas(db, configuration);
+        }
+    }
+
+    private static boolean isWriteAheadLoggingRequested(SugarDbConfiguration configuration) {
+        return null != configuration && Boolean.TRUE.equals(configuration.isWriteAheadLoggingEnabled());
+    }
+
+    private static void applyPragmas(SQLiteDatabase db, SugarDbConfiguration configuration) {
+        pragma(db, "cache_size", configuration.getCacheSize());
+        pragma(db, "mmap_size", configuration.getMmapSize());
+        pragma(db, "synchronous", toPragmaValue(configuration.getSynchronous()));
+        pragma(db, "temp_store", toPragmaValue(configuration.getTempStore()));
+        pragma(db, "journal_size_limit", configuration.getJournalSizeLimit());
+        pragma(db, "busy_timeout", configuration.getBusyTimeout());
+        pragma(db, "wal_autocheckpoint", configuration.getWalAutoCheckpoint());
+    }
+
+    private static Object toPragmaValue(Boolean value) {
+        return (null != value) ? (value ? 1 : 0) : null;
+    }
+
+    private static Object toPragmaValue(Enum<?> value) {
+        return (null != value) ? value.ordinal() : null;
+    }
+
+    /**
+     * Sets a pragma unless the value is null. Some pragmas return the value they set, so this goes
+     * through a query rather than execSQL.
+     */
+    private static void pragma(SQLiteDatabase db, String name, Object value) {
+        if (null == value) {
+            return;
+        }
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.d(LOG_TAG, "PRAGMA " + name + " = " + value);
+        }
+        Cursor cursor = db.rawQuery("PRAGMA " + name + " = " + value, null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the value of the pragma, null if SQLite doesn't know it
+     */
+    private static Long readPragma(SQLiteDatabase db, String name) {
+        Cursor cursor = db.rawQuery("PRAGMA " + name, null);
+        try {
+            return (cursor.moveToFirst() && !cursor.isNull(0)) ? cursor.getLong(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reads the settings in effect on the connection writes go through, for diagnostics. Settings
+     * SQLite doesn't report, such as the locale and the reader pool size, are left null, and so
+     * are pragmas the SQLite version of the device doesn't know.
+     *
+     * @return the effective settings
+     */
+    public SugarDbConfiguration getEffectiveConfiguration() {
+        final SQLiteDatabase db = getDB();
+        final SugarDbConfiguration configuration = new SugarDbConfiguration();
+
+        // In a transaction, so the pragmas are read on the primary connection rather than a reader's
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.rawQuery("PRAGMA journal_mode", null);
+            try {
+                configuration.setWriteAheadLoggingEnabled(cursor.moveToFirst() && "wal".equalsIgnoreCase(cursor.getString(0)));
+            } finally {
+                cursor.close();
+            }
+
+            Long value;
+            configuration.setPageSize(db.getPageSize());
+            configuration.setMaxSize(db.getMaximumSize());
+            if (null != (value = readPragma(db, "cache_size"))) {
+                configuration.setCacheSize(value.intValue());
+            }
+            configuration.setMmapSize(readPragma(db, "mmap_size"));
+            if (null != (value = readPragma(db, "synchronous")) && value < SugarDbConfiguration.Synchronous.values().length) {
+                configuration.setSynchronous(SugarDbConfiguration.Synchronous.values()[value.intValue()]);
+            }
+            if (null != (value = readPragma(db, "temp_store")) && value < SugarDbConfiguration.TempStore.values().length) {
+                configuration.setTempStore(SugarDbConfiguration.TempStore.values()[value.intValue()]);
+            }
+            configuration.setJournalSizeLimit(readPragma(db, "journal_size_limit"));
+            if (null != (value = readPragma(db, "busy_timeout"))) {
+                configuration.setBusyTimeout(value.intValue());
+            }
+            if (null != (value = readPragma(db, "foreign_keys"))) {
+                configuration.setForeignKeysEnabled(value != 0);
+            }
+            if (null != (value = readPragma(db, "wal_autocheckpoint"))) {
+                configuration.setWalAutoCheckpoint(value.intValue());
+            }
+        } finally {
+            db.endTransaction();
+        }
+
+        return configuration;
+    }
+
     @Override
     public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        clearStatementCache();
         schemaGenerator.doUpgrade(sqLiteDatabase, oldVersion, newVersion);
     }
 
-    public synchronized SQLiteDatabase getDB() {
-        if (this.sqLiteDatabase == null) {
-            this.sqLiteDatabase = getWritableDatabase();
+    /**
+     * Returns the shared connection, opening it on first use. Only the first call synchronizes, so
+     * readers on other threads don't wait for each other here. With write-ahead logging enabled the
+     * platform runs their queries on separate connections, alongside a transaction in progress.
+     */
+    public SQLiteDatabase getDB() {
+        SQLiteDatabase db = this.sqLiteDatabase;
+        if (db == null) {
+            synchronized (this) {
+                db = this.sqLiteDatabase;
+                if (db == null) {
+                    db = getWritableDatabase();
+                    this.sqLiteDatabase = db;
+                }
+            }
+        }
+
+        return db;
+    }
+
+    /**
+     * @return the compiled statements of the connection returned by {@link #getDB()}
+     */
+    public synchronized StatementCache getStatementCache() {
+        SQLiteDatabase db = getDB();
+        if (statementCache == null || !statementCache.isFor(db)) {
+            statementCache = new StatementCache(db);
         }
+        return statementCache;
+    }
 
-        return this.sqLiteDatabase;
+    /**
+     * Closes the compiled statements, they are compiled again on their next use. Called whenever
+     * the schema changes and before the connection is closed.
+     */
+    public synchronized void clearStatementCache() {
+        if (statementCache != null) {
+            statementCache.clear();
+            statementCache = null;
+        }
     }
 
     @Override
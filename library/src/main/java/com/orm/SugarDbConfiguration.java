@@ -1,5 +1,11 @@
 package com.orm;
 
+import com.orm.util.ReflectionUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -22,6 +28,82 @@ public class SugarDbConfiguration {
      */
     private Long pageSize;
 
+    /**
+     * Tells Sugar how many threads read the database in background. With write-ahead logging
+     * each of them reads through its own connection, as long as the platform pool has one free
+     */
+    private Integer readerPoolSize;
+
+    /**
+     * Tells SQLite to use write-ahead logging, so reads don't wait for write transactions
+     */
+    private Boolean writeAheadLoggingEnabled;
+
+    /**
+     * Tells SQLite how many pages to cache, or how many KiB if negative
+     */
+    private Integer cacheSize;
+
+    /**
+     * Tells SQLite how many bytes of the database file to memory-map
+     */
+    private Long mmapSize;
+
+    /**
+     * Tells SQLite how often to sync the file system
+     */
+    private Synchronous synchronous;
+
+    /**
+     * Tells SQLite where to keep temporary tables and indices
+     */
+    private TempStore tempStore;
+
+    /**
+     * Tells SQLite how many bytes of journal or write-ahead log to keep after a transaction
+     */
+    private Long journalSizeLimit;
+
+    /**
+     * Tells SQLite how many milliseconds to wait for a locked database
+     */
+    private Integer busyTimeout;
+
+    /**
+     * Tells SQLite to enforce foreign key constraints
+     */
+    private Boolean foreignKeysEnabled;
+
+    /**
+     * Tells SQLite how many write-ahead log pages to write before a checkpoint
+     */
+    private Integer walAutoCheckpoint;
+
+    /**
+     * Tells Sugar how many entities to keep in the entity cache, which is disabled if not set
+     */
+    private Integer entityCacheSize;
+
+    /**
+     * Tells Sugar to hold cached entities weakly rather than softly
+     */
+    private Boolean entityCacheWeakValues;
+
+    /**
+     * Tells Sugar how many query results to keep in the query cache, which is disabled if not set
+     */
+    private Integer queryCacheSize;
+
+    /**
+     * Tells Sugar how many milliseconds a cached query result may be used
+     */
+    private Long queryCacheTtl;
+
+    /**
+     * Tells Sugar which classes are entities, so it doesn't have to look for them on startup
+     */
+    private List<Class<?>> entityClasses;
+
     public SugarDbConfiguration() { }
 
     public Locale getDatabaseLocale() {
@@ -51,12 +133,194 @@ public class SugarDbConfiguration {
         return this;
     }
 
+    public Integer getReaderPoolSize() {
+        return readerPoolSize;
+    }
+
+    public SugarDbConfiguration setReaderPoolSize(Integer readerPoolSize) {
+        this.readerPoolSize = readerPoolSize;
+        return this;
+    }
+
+    public Boolean isWriteAheadLoggingEnabled() {
+        return writeAheadLoggingEnabled;
+    }
+
+    public SugarDbConfiguration setWriteAheadLoggingEnabled(Boolean writeAheadLoggingEnabled) {
+        this.writeAheadLoggingEnabled = writeAheadLoggingEnabled;
+        return this;
+    }
+
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    public SugarDbConfiguration setCacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    public Long getMmapSize() {
+        return mmapSize;
+    }
+
+    public SugarDbConfiguration setMmapSize(Long mmapSize) {
+        this.mmapSize = mmapSize;
+        return this;
+    }
+
+    public Synchronous getSynchronous() {
+        return synchronous;
+    }
+
+    public SugarDbConfiguration setSynchronous(Synchronous synchronous) {
+        this.synchronous = synchronous;
+        return this;
+    }
+
+    public TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public SugarDbConfiguration setTempStore(TempStore tempStore) {
+        this.tempStore = tempStore;
+        return this;
+    }
+
+    public Long getJournalSizeLimit() {
+        return journalSizeLimit;
+    }
+
+    public SugarDbConfiguration setJournalSizeLimit(Long journalSizeLimit) {
+        this.journalSizeLimit = journalSizeLimit;
+        return this;
+    }
+
+    public Integer getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    public SugarDbConfiguration setBusyTimeout(Integer busyTimeout) {
+        this.busyTimeout = busyTimeout;
+        return this;
+    }
+
+    public Boolean isForeignKeysEnabled() {
+        return foreignKeysEnabled;
+    }
+
+    public SugarDbConfiguration setForeignKeysEnabled(Boolean foreignKeysEnabled) {
+        this.foreignKeysEnabled = foreignKeysEnabled;
+        return this;
+    }
+
+    public Integer getWalAutoCheckpoint() {
+        return walAutoCheckpoint;
+    }
+
+    public SugarDbConfiguration setWalAutoCheckpoint(Integer walAutoCheckpoint) {
+        this.walAutoCheckpoint = walAutoCheckpoint;
+        return this;
+    }
+
+    public Integer getEntityCacheSize() {
+        return entityCacheSize;
+    }
+
+    public SugarDbConfiguration setEntityCacheSize(Integer entityCacheSize) {
+        this.entityCacheSize = entityCacheSize;
+        return this;
+    }
+
+    public Boolean isEntityCacheWeakValues() {
+        return entityCacheWeakValues;
+    }
+
+    public SugarDbConfiguration setEntityCacheWeakValues(Boolean entityCacheWeakValues) {
+        this.entityCacheWeakValues = entityCacheWeakValues;
+        return this;
+    }
+
+    public Integer getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    public SugarDbConfiguration setQueryCacheSize(Integer queryCacheSize) {
+        this.queryCacheSize = queryCacheSize;
+        return this;
+    }
+
+    public Long getQueryCacheTtl() {
+        return queryCacheTtl;
+    }
+
+    public SugarDbConfiguration setQueryCacheTtl(Long queryCacheTtl) {
+        this.queryCacheTtl = queryCacheTtl;
+        return this;
+    }
+
+    public List<Class<?>> getEntityClasses() {
+        return entityClasses;
+    }
+
+    /**
+     * Registers every entity class of the application. The entity index and the application's
+     * classes are then no longer looked at to find them.
+     *
+     * @param entityClasses the {@link com.orm.annotation.Table} annotated classes and
+     *                      {@link SugarRecord} subclasses, null to find them again
+     * @throws IllegalArgumentException if one of the classes isn't an entity
+     */
+    public SugarDbConfiguration setEntityClasses(Class<?>... entityClasses) {
+        if (entityClasses == null) {
+            this.entityClasses = null;
+            return this;
+        }
+
+        for (Class<?> entityClass : entityClasses) {
+            if (entityClass == null || !ReflectionUtil.isDomainClass(entityClass)) {
+                throw new IllegalArgumentException(entityClass + " is not a concrete @Table class or SugarRecord subclass");
+            }
+        }
+        this.entityClasses = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(entityClasses)));
+        return this;
+    }
+
     @Override
     public String toString() {
         return "SugarDbConfiguration{" +
                 ", databaseLocale=" + databaseLocale +
                 ", maxSize=" + maxSize +
                 ", pageSize=" + pageSize +
+                ", readerPoolSize=" + readerPoolSize +
+                ", writeAheadLoggingEnabled=" + writeAheadLoggingEnabled +
+                ", cacheSize=" + cacheSize +
+                ", mmapSize=" + mmapSize +
+                ", synchronous=" + synchronous +
+                ", tempStore=" + tempStore +
+                ", journalSizeLimit=" + journalSizeLimit +
+                ", busyTimeout=" + busyTimeout +
+                ", foreignKeysEnabled=" + foreignKeysEnabled +
+                ", walAutoCheckpoint=" + walAutoCheckpoint +
+                ", entityCacheSize=" + entityCacheSize +
+                ", entityCacheWeakValues=" + entityCacheWeakValues +
+                ", queryCacheSize=" + queryCacheSize +
+                ", queryCacheTtl=" + queryCacheTtl +
+                ", entityClasses=" + entityClasses +
                 '}';
     }
+
+    /**
+     * Values of PRAGMA synchronous, in the order of their numeric values
+     */
+    public enum Synchronous {
+        OFF, NORMAL, FULL, EXTRA
+    }
+
+    /**
+     * Values of PRAGMA temp_store, in the order of their numeric values
+     */
+    public enum TempStore {
+        DEFAULT, FILE, MEMORY
+    }
 }
@@ -0,0 +1,355 @@
+package com.orm;
+
+import android.annotation.TargetApi;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.util.Base64;
+import android.util.JsonReader;
+import android.util.Log;
+
+import com.orm.helper.ManifestHelper;
+import com.orm.util.ColumnInfo;
+import com.orm.util.StatementCache;
+import com.orm.util.TableInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Streams rows from CSV or JSON straight into the table of an entity, without creating entities.
+ * Each record is read into a reused row buffer bound to a single compiled INSERT OR REPLACE, and
+ * rows are committed in transactions of a fixed size, so memory use doesn't grow with the input.
+ *
+ * Fields are matched to columns by column or field name, ignoring case. Unknown fields are
+ * skipped and columns missing from a record are set to null. Values are read from their text
+ * form: numbers, ids and dates (in milliseconds) as decimals, booleans as true/false or 1/0 and
+ * byte arrays as Base64. An empty CSV field is null unless the column is a string.
+ */
+public final class SugarImporter {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    //Prevent instantiation
+    private SugarImporter() { }
+
+    public static <T> long importCsv(Class<T> type, InputStream in) throws IOException {
+        return importCsv(type, in, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Imports UTF-8 CSV whose first line names the field of each column. Fields may be quoted
+     * with double quotes, quoted fields may contain commas, line breaks and doubled quotes.
+     *
+     * @param type the entity whose table the rows are inserted into
+     * @param in the CSV, not closed
+     * @param batchSize the number of rows committed per transaction
+     * @return the number of rows imported
+     * @throws IOException if the input can't be read or a value can't be converted. Batches
+     *         committed before the error are kept.
+     */
+    public static <T> long importCsv(Class<T> type, InputStream in, int batchSize) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, "UTF-8")));
+        List<String> fields = new ArrayList<>();
+        if (!reader.readRow(fields)) {
+            return 0;
+        }
+
+        RowWriter writer = new RowWriter(type, batchSize);
+        int[] positions = new int[fields.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = writer.positionOf(fields.get(i).trim());
+        }
+
+        try {
+            while (reader.readRow(fields)) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+
+                writer.clear();
+                for (int i = 0; i < fields.size() && i < positions.length; i++) {
+                    writer.set(positions[i], fields.get(i));
+                }
+                writer.insert();
+            }
+            return writer.finish();
+        } finally {
+            writer.close();
+        }
+    }
+
+    public static <T> long importJsonArray(Class<T> type, InputStream in) throws IOException {
+        return importJsonArray(type, in, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Imports a UTF-8 JSON array of objects, one row per object. Nested objects and arrays are
+     * skipped. Requires API 11, for {@link JsonReader}.
+     *
+     * @param type the entity whose table the rows are inserted into
+     * @param in the JSON, not closed
+     * @param batchSize the number of rows committed per transaction
+     * @return the number of rows imported
+     * @throws IOException if the input can't be read or a value can't be converted. Batches
+     *         committed before the error are kept.
+     * @throws UnsupportedOperationException below API 11
+     */
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    public static <T> long importJsonArray(Class<T> type, InputStream in, int batchSize) throws IOException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            throw new UnsupportedOperationException("Importing JSON requires API 11, import CSV instead");
+        }
+
+        JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+        RowWriter writer = new RowWriter(type, batchSize);
+
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                writer.clear();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    int position = writer.positionOf(reader.nextName());
+                    switch (reader.peek()) {
+                        case NULL:
+                            reader.nextNull();
+                            writer.set(position, null);
+                            break;
+                        case BOOLEAN:
+                            writer.set(position, String.valueOf(reader.nextBoolean()));
+                            break;
+                        case NUMBER:
+                        case STRING:
+                            writer.set(position, reader.nextString());
+                            break;
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+                reader.endObject();
+                writer.insert();
+            }
+            reader.endArray();
+            return writer.finish();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Binds a row buffer to the compiled insert of a table and commits every batchSize rows.
+     */
+    private static final class RowWriter {
+        private final Class<?> type;
+        private final SQLiteDatabase db;
+        private final SQLiteStatement statement;
+        private final ColumnInfo[] columns;
+        private final String[] row;
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final int batchSize;
+        private long count = 0;
+        private boolean inTransaction;
+
+        RowWriter(Class<?> type, int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+
+            StatementCache.TableStatements statements = getSugarContext().getSugarDb().getStatementCache().get(type);
+            List<ColumnInfo> insertColumns = statements.getInsertColumns();
+
+            // Position 0 is the id, it has no ColumnInfo when the entity doesn't declare it
+            this.columns = new ColumnInfo[insertColumns.size() + 1];
+            this.row = new String[columns.length];
+            positions.put("id", 0);
+            for (int i = 0; i < insertColumns.size(); i++) {
+                ColumnInfo column = insertColumns.get(i);
+                columns[i + 1] = column;
+                positions.put(column.getFieldName().toLowerCase(Locale.US), i + 1);
+                positions.put(column.getName().toLowerCase(Locale.US), i + 1);
+            }
+
+            this.type = type;
+            this.batchSize = batchSize;
+            this.db = getSugarContext().getSugarDb().getDB();
+            this.statement = statements.compileInsert(1);
+            db.beginTransaction();
+            inTransaction = true;
+        }
+
+        /**
+         * @return the position of the column in the row, -1 if the table has no such column
+         */
+        int positionOf(String name) {
+            Integer position = positions.get(name.toLowerCase(Locale.US));
+            return (position != null) ? position : -1;
+        }
+
+        void set(int position, String value) {
+            if (position >= 0) {
+                row[position] = value;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = null;
+            }
+        }
+
+        void insert() throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                bind(i, columns[i], row[i]);
+            }
+            statement.executeInsert();
+            count++;
+
+            if (count % batchSize == 0) {
+                db.setTransactionSuccessful();
+                db.endTransaction();
+                invalidateCaches();
+                db.beginTransaction();
+            }
+        }
+
+        long finish() {
+            db.setTransactionSuccessful();
+            db.endTransaction();
+            inTransaction = false;
+
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SugarRecord.SUGAR, "Imported " + count + " rows");
+            }
+            return count;
+        }
+
+        void close() {
+            if (inTransaction) {
+                db.endTransaction();
+                inTransaction = false;
+            }
+            statement.close();
+            invalidateCaches();
+        }
+
+        /**
+         * Drops what was cached from the table, called after every committed batch since imported
+         * rows may replace cached entities.
+         */
+        private void invalidateCaches() {
+            getSugarContext().getEntityCache().removeAll(type);
+            getSugarContext().getQueryCache().invalidate(TableInfo.get(type).getName());
+        }
+
+        private void bind(int index, ColumnInfo column, String value) throws IOException {
+            ColumnInfo.Converter converter = (column != null) ? column.getConverter() : ColumnInfo.Converter.LONG;
+            if (value == null || (value.isEmpty() && converter != ColumnInfo.Converter.STRING)) {
+                statement.bindNull(index + 1);
+                return;
+            }
+
+            try {
+                switch (converter) {
+                    case SHORT:
+                    case INTEGER:
+                    case LONG:
+                    case RELATION:
+                    case LAZY:
+                    case TIMESTAMP:
+                    case DATE:
+                    case CALENDAR:
+                        statement.bindLong(index + 1, Long.parseLong(value.trim()));
+                        break;
+                    case FLOAT:
+                    case DOUBLE:
+                        statement.bindDouble(index + 1, Double.parseDouble(value.trim()));
+                        break;
+                    case BOOLEAN:
+                        statement.bindLong(index + 1, ("true".equalsIgnoreCase(value) || "1".equals(value)) ? 1 : 0);
+                        break;
+                    case BLOB:
+                        statement.bindBlob(index + 1, Base64.decode(value, Base64.DEFAULT));
+                        break;
+                    default:
+                        statement.bindString(index + 1, value);
+                        break;
+                }
+            } catch (IllegalArgumentException e) {
+                String name = (column != null) ? column.getName() : "ID";
+                throw new IOException("Invalid value for " + name + " in row " + (count + 1) + ": " + value, e);
+            }
+        }
+    }
+
+    /**
+     * Reads CSV one row at a time, reusing the list of fields.
+     */
+    private static final class CsvReader {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private int next;
+
+        CsvReader(Reader reader) throws IOException {
+            this.reader = reader;
+            this.next = reader.read();
+        }
+
+        /**
+         * @return false if there are no more rows
+         */
+        boolean readRow(List<String> fields) throws IOException {
+            fields.clear();
+            if (next == -1) {
+                return false;
+            }
+
+            field.setLength(0);
+            boolean quoted = false;
+            boolean wasQuoted = false;
+
+            while (true) {
+                int c = next;
+                next = reader.read();
+
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field");
+                    } else if (c == '"' && next == '"') {
+                        field.append('"');
+                        next = reader.read();
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r' && next == '\n') {
+                        next = reader.read();
+                    }
+                    fields.add(field.toString());
+                    return true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.orm;
+
+import java.util.Map;
+
+/**
+ * Holds a relationship that is only loaded when first accessed. Declare the field as
+ * {@code SugarLazy<Customer> customer} instead of {@code Customer customer}: the column still
+ * stores the id of the related row, but inflating the entity doesn't query it.
+ *
+ * Holders inflated from the same result set share their loaded entities, so each related row is
+ * queried at most once.
+ *
+ * @param <T> the type of the related entity
+ */
+public final class SugarLazy<T> {
+    private final Class<T> type;
+    private Long id;
+    private T entity;
+    private boolean loaded;
+    private Map<Long, Object> cache;
+
+    SugarLazy(Class<T> type, Long id, Map<Long, Object> cache) {
+        this.type = type;
+        this.id = id;
+        this.cache = cache;
+    }
+
+    /**
+     * @param entity the related entity, may be null
+     * @param <T> the type of the related entity
+     * @return a holder already loaded with the given entity
+     */
+    public static <T> SugarLazy<T> of(T entity) {
+        SugarLazy<T> lazy = new SugarLazy<>(null, null, null);
+        lazy.set(entity);
+        return lazy;
+    }
+
+    /**
+     * @param type the type of the related entity
+     * @param id the id of the related entity, may be null
+     * @param <T> the type of the related entity
+     * @return a holder loading the entity with the given id on first access
+     */
+    public static <T> SugarLazy<T> of(Class<T> type, Long id) {
+        return new SugarLazy<>(type, id, null);
+    }
+
+    /**
+     * @return the id of the related entity, without loading it. Null if the holder was created
+     *         from an entity, in which case the id is read from the entity when saving.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the related entity, loaded on the first call, or null if there is none
+     */
+    public synchronized T get() {
+        if (!loaded) {
+            entity = load();
+            loaded = true;
+            cache = null;
+        }
+        return entity;
+    }
+
+    /**
+     * @param entity the new related entity, may be null
+     */
+    public synchronized void set(T entity) {
+        this.entity = entity;
+        this.id = null;
+        this.loaded = true;
+        this.cache = null;
+    }
+
+    /**
+     * @return true if the related entity has been loaded or set
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T load() {
+        if (type == null || id == null || id <= 0) {
+            return null;
+        }
+
+        if (cache == null) {
+            return SugarRecord.findById(type, id);
+        }
+
+        synchronized (cache) {
+            if (!cache.containsKey(id)) {
+                cache.put(id, SugarRecord.findById(type, id));
+            }
+            return (T) cache.get(id);
+        }
+    }
+}
@@ -5,26 +5,34 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.text.TextUtils;
 import android.util.Log;
 
 import com.orm.annotation.Table;
-import com.orm.annotation.Unique;
 import com.orm.dsl.BuildConfig;
 import com.orm.helper.ManifestHelper;
-import com.orm.helper.NamingHelper;
+import com.orm.helper.MapperHelper;
+import com.orm.mapper.EntityMapper;
+import com.orm.util.ColumnInfo;
+import com.orm.util.CursorProjection;
+import com.orm.util.EntityCache;
+import com.orm.util.QueryArguments;
+import com.orm.util.QueryCache;
 import com.orm.util.QueryBuilder;
 import com.orm.util.ReflectionUtil;
+import com.orm.util.StatementCache;
 import com.orm.util.SugarCursor;
+import com.orm.util.SugarCursorFactory;
+import com.orm.util.TableInfo;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static com.orm.SugarContext.getSugarContext;
 
@@ -37,82 +45,119 @@ public class SugarRecord {
         return getSugarContext().getSugarDb().getDB();
     }
 
+    private static EntityCache getEntityCache() {
+        return getSugarContext().getEntityCache();
+    }
+
+    private static QueryCache getQueryCache() {
+        return getSugarContext().getQueryCache();
+    }
+
+    /**
+     * @param whereClause the where clause of the query, see {@link QueryCache#isCacheable(String)}
+     * @return the query cache if results read on this thread may be cached, null otherwise. Rows
+     *         read in a transaction may not be committed, they never are.
+     */
+    private static QueryCache getQueryCache(SQLiteDatabase db, String whereClause) {
+        QueryCache cache = getQueryCache();
+        return (cache.isEnabled() && !db.inTransaction() && QueryCache.isCacheable(whereClause)) ? cache : null;
+    }
+
     public static <T> int deleteAll(Class<T> type) {
         return deleteAll(type, null);
     }
 
     public static <T> int deleteAll(Class<T> type, String whereClause, String... whereArgs) {
-        return getSugarDataBase().delete(NamingHelper.toTableName(type), whereClause, whereArgs);
+        int deleted = getSugarDataBase().delete(TableInfo.get(type).getName(), whereClause, whereArgs);
+        getEntityCache().removeAll(type);
+        getQueryCache().invalidate(TableInfo.get(type).getName());
+        return deleted;
     }
 
     public static <T> Cursor getCursor(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-        Cursor raw = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, whereArgs,
-                groupBy, null, orderBy, limit);
+        return getCursor(type, whereClause, (Object[]) whereArgs, groupBy, orderBy, limit);
+    }
+
+    /**
+     * Like {@link #getCursor(Class, String, String[], String, String, String)}, binding every
+     * argument with the type stored for it, see {@link QueryArguments}.
+     */
+    public static <T> Cursor getCursor(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit) {
+        Cursor raw = query(getSugarDataBase(), type, whereClause, QueryArguments.toSqlValues(whereArgs),
+                groupBy, orderBy, limit);
         return new SugarCursor(raw);
     }
 
-    @SuppressWarnings("deprecation")
+    private static Cursor query(SQLiteDatabase db, Class<?> type, String whereClause, Object[] sqlValues,
+                                String groupBy, String orderBy, String limit) {
+        SugarCursorFactory factory = new SugarCursorFactory(ManifestHelper.isDebugEnabled(), sqlValues);
+        return db.queryWithFactory(factory, false, TableInfo.get(type).getName(), null, whereClause, null,
+                groupBy, null, orderBy, limit);
+    }
+
     public static <T> void saveInTx(T... objects) {
         saveInTx(Arrays.asList(objects));
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> void saveInTx(Collection<T> objects) {
         SQLiteDatabase sqLiteDatabase = getSugarDataBase();
+        boolean successful = false;
         try {
             sqLiteDatabase.beginTransaction();
-            sqLiteDatabase.setLockingEnabled(false);
             for (T object: objects) {
                 save(object);
             }
             sqLiteDatabase.setTransactionSuccessful();
+            successful = true;
         } catch (Exception e) {
             if (ManifestHelper.isDebugEnabled()) {
                 Log.i(SUGAR, "Error in saving in transaction " + e.getMessage());
             }
         } finally {
             sqLiteDatabase.endTransaction();
-            sqLiteDatabase.setLockingEnabled(true);
+            if (!successful) {
+                evictEntities(objects);
+            }
+            invalidateQueries(objects);
         }
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> void updateInTx(T... objects) {
         updateInTx(Arrays.asList(objects));
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> void updateInTx(Collection<T> objects) {
         SQLiteDatabase sqLiteDatabase = getSugarDataBase();
+        boolean successful = false;
         try {
             sqLiteDatabase.beginTransaction();
-            sqLiteDatabase.setLockingEnabled(false);
             for (T object: objects) {
                 update(object);
             }
             sqLiteDatabase.setTransactionSuccessful();
+            successful = true;
         } catch (Exception e) {
             if (ManifestHelper.isDebugEnabled()) {
                 Log.i(SUGAR, "Error in saving in transaction " + e.getMessage());
             }
         } finally {
             sqLiteDatabase.endTransaction();
-            sqLiteDatabase.setLockingEnabled(true);
+            if (!successful) {
+                evictEntities(objects);
+            }
+            invalidateQueries(objects);
         }
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> int deleteInTx(T... objects) {
         return deleteInTx(Arrays.asList(objects));
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> int deleteInTx(Collection<T> objects) {
         SQLiteDatabase sqLiteDatabase = getSugarDataBase();
         int deletedRows = 0;
         try {
             sqLiteDatabase.beginTransaction();
-            sqLiteDatabase.setLockingEnabled(false);
             for (T object : objects) {
                 if (delete(object)) {
                     ++deletedRows;
@@ -126,11 +171,48 @@ public class SugarRecord {
             }
         } finally {
             sqLiteDatabase.endTransaction();
-            sqLiteDatabase.setLockingEnabled(true);
+            invalidateQueries(objects);
         }
         return deletedRows;
     }
 
+    /**
+     * Drops the cached entities of the classes of the objects after their transaction was rolled
+     * back, since the objects saved or updated before the failure were cached with rows that
+     * were never committed.
+     */
+    private static <T> void evictEntities(Collection<T> objects) {
+        EntityCache cache = getEntityCache();
+        if (!cache.isEnabled()) {
+            return;
+        }
+
+        Set<Class<?>> types = new HashSet<>();
+        for (T object : objects) {
+            if (object != null && types.add(object.getClass())) {
+                cache.removeAll(object.getClass());
+            }
+        }
+    }
+
+    /**
+     * Invalidates the tables of the objects again once their transaction has ended, since queries
+     * on other threads may have cached rows read before it was committed.
+     */
+    private static <T> void invalidateQueries(Collection<T> objects) {
+        QueryCache cache = getQueryCache();
+        if (!cache.isEnabled()) {
+            return;
+        }
+
+        Set<Class<?>> types = new HashSet<>();
+        for (T object : objects) {
+            if (object != null && types.add(object.getClass())) {
+                cache.invalidate(TableInfo.get(object.getClass()).getName());
+            }
+        }
+    }
+
     public static <T> List<T> listAll(Class<T> type) {
         return find(type, null, null, null, null, null);
     }
@@ -140,6 +222,13 @@ public class SugarRecord {
     }
 
     public static <T> T findById(Class<T> type, Long id) {
+        if (id != null) {
+            T cached = getEntityCache().get(type, id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         List<T> list = find(type, "id=?", new String[]{String.valueOf(id)}, null, null, "1");
         if (list.isEmpty()) return null;
         return list.get(0);
@@ -155,40 +244,58 @@ public class SugarRecord {
     }
 
     public static <T> T first(Class<T>type) {
-        List<T> list = findWithQuery(type,
-                "SELECT * FROM " + NamingHelper.toTableName(type) + " ORDER BY ID ASC LIMIT 1");
-        if (list.isEmpty()) {
-            return null;
-        }
-        return list.get(0);
+        return firstOrLast(type, "ASC");
     }
 
     public static <T> T last(Class<T>type) {
-        List<T> list = findWithQuery(type,
-                "SELECT * FROM " + NamingHelper.toTableName(type) + " ORDER BY ID DESC LIMIT 1");
+        return firstOrLast(type, "DESC");
+    }
+
+    private static <T> T firstOrLast(Class<T> type, String order) {
+        String table = TableInfo.get(type).getName();
+
+        // With the entity cache, only the id is read and the entity may already be loaded
+        if (getEntityCache().isEnabled()) {
+            Cursor cursor = getSugarDataBase().rawQuery("SELECT ID FROM " + table + " ORDER BY ID " + order + " LIMIT 1", null);
+            try {
+                return (cursor.moveToFirst() && !cursor.isNull(0)) ? findById(type, cursor.getLong(0)) : null;
+            } finally {
+                cursor.close();
+            }
+        }
+
+        List<T> list = findWithQuery(type, "SELECT * FROM " + table + " ORDER BY ID " + order + " LIMIT 1");
         if (list.isEmpty()) {
             return null;
         }
         return list.get(0);
     }
 
-    public static <T> Iterator<T> findAll(Class<T> type) {
+    public static <T> SugarResultStream<T> findAll(Class<T> type) {
         return findAsIterator(type, null, null, null, null, null);
     }
 
-    public static <T> Iterator<T> findAsIterator(Class<T> type, String whereClause, String... whereArgs) {
+    public static <T> SugarResultStream<T> findAsIterator(Class<T> type, String whereClause, String... whereArgs) {
         return findAsIterator(type, whereClause, whereArgs, null, null, null);
     }
 
-    public static <T> Iterator<T> findWithQueryAsIterator(Class<T> type, String query, String... arguments) {
+    public static <T> SugarResultStream<T> findWithQueryAsIterator(Class<T> type, String query, String... arguments) {
         Cursor cursor = getSugarDataBase().rawQuery(query, arguments);
-        return new CursorIterator<>(type, cursor);
+        return new SugarResultStream<>(type, cursor);
     }
 
-    public static <T> Iterator<T> findAsIterator(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-        Cursor cursor = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, whereArgs,
-                groupBy, null, orderBy, limit);
-        return new CursorIterator<>(type, cursor);
+    public static <T> SugarResultStream<T> findAsIterator(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        return findAsIterator(type, whereClause, (Object[]) whereArgs, groupBy, orderBy, limit);
+    }
+
+    /**
+     * Like {@link #findAsIterator(Class, String, String[], String, String, String)}, binding every
+     * argument with the type stored for it, see {@link QueryArguments}.
+     */
+    public static <T> SugarResultStream<T> findAsIterator(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit) {
+        Cursor cursor = query(getSugarDataBase(), type, whereClause, QueryArguments.toSqlValues(whereArgs),
+                groupBy, orderBy, limit);
+        return new SugarResultStream<>(type, cursor);
     }
 
     public static <T> List<T> find(Class<T> type, String whereClause, String... whereArgs) {
@@ -203,28 +310,71 @@ public class SugarRecord {
 
     public static void executeQuery(String query, String... arguments) {
         getSugarDataBase().execSQL(query, arguments);
+        // The statement may have changed any table
+        getEntityCache().clear();
+        getQueryCache().invalidateAll();
     }
 
     public static <T> List<T> find(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        return find(type, whereClause, (whereArgs == null) ? null : (Object[]) replaceArgs(whereArgs),
+                groupBy, orderBy, limit);
+    }
+
+    /**
+     * Like {@link #find(Class, String, String[], String, String, String)}, binding every argument
+     * with the type stored for it, see {@link QueryArguments}.
+     */
+    public static <T> List<T> find(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit) {
+        String table = TableInfo.get(type).getName();
+        return findCached(type, QueryBuilder.select(table, whereClause, groupBy, orderBy, limit), whereClause,
+                new String[]{table, whereClause, groupBy, orderBy, limit}, QueryArguments.toSqlValues(whereArgs));
+    }
+
+    /**
+     * Loads the entities selected by a query, from the query cache when it may be used.
+     *
+     * @param sql a query of every column of the table of the type
+     * @param whereClause the where clause of the query, see {@link QueryCache#isCacheable(String)}
+     * @param keyParts the clauses of the query, identifying it in the cache
+     * @param args the arguments, converted by {@link QueryArguments#toSqlValues(Object[])}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> findCached(Class<T> type, String sql, String whereClause, String[] keyParts, Object[] args) {
+        SQLiteDatabase db = getSugarDataBase();
+        QueryCache cache = getQueryCache(db, whereClause);
+        String key = null;
+        QueryCache.Snapshot snapshot = null;
+        if (cache != null) {
+            key = QueryCache.key("find " + type.getName(), keyParts, args);
+            List<T> cached = (List<T>) cache.get(key);
+            if (cached != null) {
+                return new ArrayList<>(cached);
+            }
+            snapshot = cache.snapshot(QueryCache.tablesOf(type));
+        }
 
-        String args[];
-        args = (whereArgs == null) ? null : replaceArgs(whereArgs);
-
-        Cursor cursor = getSugarDataBase().query(NamingHelper.toTableName(type), null, whereClause, args,
-                groupBy, null, orderBy, limit);
-
-        return getEntitiesFromCursor(cursor, type);
+        SugarCursorFactory factory = new SugarCursorFactory(ManifestHelper.isDebugEnabled(), args);
+        List<T> result = getEntitiesFromCursor(db.rawQueryWithFactory(factory, sql, null, null), type);
+        if (cache != null) {
+            cache.put(key, snapshot, new ArrayList<>(result));
+        }
+        return result;
     }
 
     public static <T> List<T> getEntitiesFromCursor(Cursor cursor, Class<T> type){
         T entity;
         List<T> result = new ArrayList<>();
+        EntityMapper<T> mapper = MapperHelper.getMapper(type);
+        CursorProjection projection = project(cursor, type, mapper);
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        RelationLoader relations = RelationLoader.deferred();
         try {
             while (cursor.moveToNext()) {
-                entity = type.getDeclaredConstructor().newInstance();
-                inflate(cursor, entity, getSugarContext().getEntitiesMap());
+                entity = newInstance(type, mapper);
+                inflate(cursor, projection, entity, mapper, entitiesMap, relations, true);
                 result.add(entity);
             }
+            relations.load();
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
@@ -243,28 +393,73 @@ public class SugarRecord {
     }
 
     public static <T> long count(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-        long result = -1;
+        return count(type, whereClause, (Object[]) whereArgs, groupBy, orderBy, limit);
+    }
+
+    /**
+     * Like {@link #count(Class, String, String[], String, String, String)}, binding every argument
+     * with the type stored for it, see {@link QueryArguments}.
+     */
+    public static <T> long count(Class<T> type, String whereClause, Object[] whereArgs, String groupBy, String orderBy, String limit) {
         String filter = (!TextUtils.isEmpty(whereClause)) ? " where "  + whereClause : "";
-        SQLiteStatement sqliteStatement;
-        try {
-            sqliteStatement = getSugarDataBase().compileStatement("SELECT count(*) FROM " + NamingHelper.toTableName(type) + filter);
-        } catch (SQLiteException e) {
-            e.printStackTrace();
-            return result;
+        String sql = "SELECT count(*) FROM " + TableInfo.get(type).getName() + filter;
+        return countCached(type, sql, whereClause, QueryArguments.toSqlValues(whereArgs), null);
+    }
+
+    /**
+     * Counts the rows of a table with a count(*) query, from the query cache when it may be used.
+     *
+     * @param sql the query, on the table of the type alone
+     * @param whereClause the where clause of the query, see {@link QueryCache#isCacheable(String)}
+     * @param args the arguments, converted by {@link QueryArguments#toSqlValues(Object[])}
+     * @param statement the query compiled on the database of the context and reused by the
+     *                  caller, or null to compile it for this call only
+     * @return the count, -1 if the query can't be compiled
+     */
+    public static long countCached(Class<?> type, String sql, String whereClause, Object[] args, SQLiteStatement statement) {
+        SQLiteDatabase db = getSugarDataBase();
+        String table = TableInfo.get(type).getName();
+        QueryCache cache = getQueryCache(db, whereClause);
+        String key = null;
+        QueryCache.Snapshot snapshot = null;
+        if (cache != null) {
+            key = QueryCache.key("count", new String[]{table, whereClause}, args);
+            Long cached = (Long) cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            snapshot = cache.snapshot(new String[]{table});
         }
 
-        if (whereArgs != null) {
-            for (int i = whereArgs.length; i != 0; i--) {
-                sqliteStatement.bindString(i, whereArgs[i - 1]);
+        SQLiteStatement sqliteStatement = statement;
+        if (sqliteStatement == null) {
+            try {
+                sqliteStatement = db.compileStatement(sql);
+            } catch (SQLiteException e) {
+                e.printStackTrace();
+                return -1;
             }
         }
 
+        long result;
         try {
-            result = sqliteStatement.simpleQueryForLong();
+            synchronized (sqliteStatement) {
+                try {
+                    QueryArguments.bind(sqliteStatement, args);
+                    result = sqliteStatement.simpleQueryForLong();
+                } finally {
+                    sqliteStatement.clearBindings();
+                }
+            }
         } finally {
-            sqliteStatement.close();
+            if (statement == null) {
+                sqliteStatement.close();
+            }
         }
 
+        if (cache != null) {
+            cache.put(key, snapshot, result);
+        }
         return result;
     }
 
@@ -273,23 +468,26 @@ public class SugarRecord {
     }
 
     public static <T> long sum(Class<T> type, String field, String whereClause, String... whereArgs) {
+        return sum(type, field, whereClause, (Object[]) whereArgs);
+    }
+
+    /**
+     * Like {@link #sum(Class, String, String, String...)}, binding every argument with the type
+     * stored for it, see {@link QueryArguments}.
+     */
+    public static <T> long sum(Class<T> type, String field, String whereClause, Object[] whereArgs) {
         long result = -1;
         String filter = (!TextUtils.isEmpty(whereClause)) ? " where " + whereClause : "";
         SQLiteStatement sqLiteStatement;
         try {
-            sqLiteStatement = getSugarDataBase().compileStatement("SELECT sum(" + field + ") FROM " + NamingHelper.toTableName(type) + filter);
+            sqLiteStatement = getSugarDataBase().compileStatement("SELECT sum(" + field + ") FROM " + TableInfo.get(type).getName() + filter);
         } catch (SQLiteException e) {
             e.printStackTrace();
             return result;
         }
 
-        if (whereArgs != null) {
-            for (int i = whereArgs.length; i != 0; i--) {
-                sqLiteStatement.bindString(i, whereArgs[i - 1]);
-            }
-        }
-
         try {
+            QueryArguments.bind(sqLiteStatement, QueryArguments.toSqlValues(whereArgs));
             result = sqLiteStatement.simpleQueryForLong();
         } finally {
             sqLiteStatement.close();
@@ -304,44 +502,222 @@ public class SugarRecord {
 
     static long save(SQLiteDatabase db, Object object) {
         Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
-        ContentValues values = new ContentValues(columns.size());
-        Field idField = null;
-        for (Field column : columns) {
-            ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
-            if (column.getName().equals("id")) {
-                idField = column;
+        TableInfo table = TableInfo.get(object.getClass());
+        EntityMapper<Object> mapper = getMapper(object);
+        StatementCache.TableStatements statements = getInsertStatements(db, object.getClass(), table);
+        long id = (statements != null)
+                ? insert(statements, object, table, mapper, entitiesMap)
+                : insert(db, object, table, mapper, entitiesMap);
+
+        setId(object, id, table, mapper, entitiesMap);
+        if (id > 0) {
+            getEntityCache().put(object.getClass(), id, object);
+        }
+        getQueryCache().invalidate(table.getName());
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, object.getClass().getSimpleName() + " saved : " + id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Inserts the objects with multi-row INSERT statements, as many rows per statement as SQLite's
+     * variable limit allows, in a single transaction. Objects that already have an id replace
+     * their row, like {@link #save(Object)} does.
+     *
+     * @param type the class of the objects
+     * @param objects the objects to insert
+     * @return the id of each object in the order of the collection, or an empty list if the
+     *         transaction failed
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<Long> bulkInsert(Class<T> type, Collection<T> objects) {
+        SQLiteDatabase db = getSugarDataBase();
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        TableInfo table = TableInfo.get(type);
+        EntityMapper<Object> mapper = (EntityMapper<Object>) MapperHelper.getMapper(type);
+        StatementCache.TableStatements statements = getInsertStatements(db, type, table);
+        List<Object> entities = new ArrayList<Object>(objects);
+        Long[] ids = new Long[entities.size()];
+
+        // Rows with an id first, so the ids SQLite assigns to the others follow each other
+        List<Integer> saved = new ArrayList<>();
+        List<Integer> created = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < entities.size(); i++) {
+                Object entity = entities.get(i);
+                Long fieldId = (mapper != null && mapper.hasIdField()) ? mapper.getId(entity) : null;
+                ids[i] = getRowId(entity, table, entitiesMap, fieldId);
+                if (ids[i] != null) {
+                    saved.add(i);
+                } else {
+                    created.add(i);
+                }
+            }
+
+            db.beginTransaction();
+            try {
+                if (statements == null || table.hasUniqueConstraints()) {
+                    insertEach(db, statements, entities, ids, table, mapper, entitiesMap);
+                } else {
+                    insertRows(statements, entities, saved, ids, mapper, entitiesMap);
+                    insertRows(statements, entities, created, ids, mapper, entitiesMap);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                getQueryCache().invalidate(table.getName());
             }
+        } catch (Exception e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SUGAR, "Error in bulk insert " + e.getMessage());
+
+            }
+            return new ArrayList<>();
         }
 
-        boolean isSugarEntity = isSugarEntity(object.getClass());
-        if (isSugarEntity && entitiesMap.containsKey(object)) {
-                values.put("id", entitiesMap.get(object));
+        EntityCache cache = getEntityCache();
+        for (int i = 0; i < entities.size(); i++) {
+            setId(entities.get(i), ids[i], table, mapper, entitiesMap);
+            cache.put(type, ids[i], entities.get(i));
         }
 
-        long id = db.insertWithOnConflict(NamingHelper.toTableName(object.getClass()), null, values,
-                SQLiteDatabase.CONFLICT_REPLACE);
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, type.getSimpleName() + " bulk inserted : " + ids.length);
+        }
+
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Inserts the objects one statement each, reading every id back. Used when a replaced row may
+     * delete others through a unique constraint, so the ids SQLite assigns don't follow each other.
+     */
+    private static void insertEach(SQLiteDatabase db, StatementCache.TableStatements statements, List<Object> entities,
+                                   Long[] ids, TableInfo table, EntityMapper<Object> mapper, Map<Object, Long> entitiesMap) {
+        for (int i = 0; i < entities.size(); i++) {
+            Object entity = entities.get(i);
+            long id = (statements != null)
+                    ? insert(statements, entity, table, mapper, entitiesMap)
+                    : insert(db, entity, table, mapper, entitiesMap);
+            if (id == -1) {
+                throw new SQLiteException("Error inserting " + entity);
+            }
+            ids[i] = id;
+        }
+    }
+
+    private static void insertRows(StatementCache.TableStatements statements, List<Object> entities, List<Integer> positions,
+                                   Long[] ids, EntityMapper<Object> mapper, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        int maxRows = Math.max(1, Math.min(QueryBuilder.SQLITE_MAX_COMPOUND_SELECT,
+                QueryBuilder.SQLITE_MAX_VARIABLE_NUMBER / statements.getInsertParameterCount()));
 
-        if (object.getClass().isAnnotationPresent(Table.class)) {
-            if (idField != null) {
-                idField.setAccessible(true);
+        SQLiteStatement statement = null;
+        int compiledRows = 0;
+
+        try {
+            for (int start = 0; start < positions.size(); start += maxRows) {
+                int rows = Math.min(maxRows, positions.size() - start);
+                if (rows != compiledRows) {
+                    if (statement != null) {
+                        statement.close();
+                    }
+                    statement = statements.compileInsert(rows);
+                    compiledRows = rows;
+                }
+
+                for (int row = 0; row < rows; row++) {
+                    int position = positions.get(start + row);
+                    Object entity = entities.get(position);
+                    if (mapper != null) {
+                        ContentValues values = new ContentValues(statements.getInsertParameterCount());
+                        mapper.bindValues(entity, values);
+                        statements.bindRow(statement, row, values, ids[position]);
+                    } else {
+                        statements.bindRow(statement, row, entity, ids[position], entitiesMap);
+                    }
+                }
+
+                // New rows are given consecutive ids, the last one being returned
+                long lastId = statement.executeInsert();
+                for (int row = 0; row < rows; row++) {
+                    int position = positions.get(start + row);
+                    if (ids[position] == null) {
+                        ids[position] = lastId - (rows - 1 - row);
+                    }
+                }
+            }
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+
+    private static void setId(Object object, long id, TableInfo table, EntityMapper<Object> mapper, Map<Object, Long> entitiesMap) {
+        if (table.isAnnotated()) {
+            ColumnInfo idColumn = table.getIdColumn();
+            if (mapper != null && mapper.hasIdField()) {
+                mapper.setId(object, id);
+            } else if (idColumn != null) {
                 try {
-                    idField.set(object, id);
+                    idColumn.set(object, id);
                 } catch (IllegalAccessException e) {
                     e.printStackTrace();
                 }
             } else {
                 entitiesMap.put(object, id);
             }
-        } else if (SugarRecord.class.isAssignableFrom(object.getClass())) {
+        } else if (table.isSugarRecord()) {
             ((SugarRecord) object).setId(id);
         }
+    }
 
-        if (ManifestHelper.isDebugEnabled()) {
-            Log.i(SUGAR, object.getClass().getSimpleName() + " saved : " + id);
+    /**
+     * Inserts or replaces the row of the object with {@link SQLiteDatabase#insertWithOnConflict},
+     * when the cached statements can't be used.
+     *
+     * @return the id of the row, -1 if an error occurred
+     */
+    private static long insert(SQLiteDatabase db, Object object, TableInfo table, EntityMapper<Object> mapper,
+                               Map<Object, Long> entitiesMap) {
+        List<ColumnInfo> columns = table.getColumns();
+        ContentValues values = new ContentValues(columns.size());
+
+        if (mapper != null) {
+            mapper.bindValues(object, values);
+        } else {
+            for (ColumnInfo column : columns) {
+                ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
+            }
         }
 
-        return id;
+        boolean isSugarEntity = table.isAnnotated() || table.isSugarRecord();
+        if (isSugarEntity && entitiesMap.containsKey(object)) {
+            values.put("id", entitiesMap.get(object));
+        }
+
+        return db.insertWithOnConflict(table.getName(), null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static long insert(StatementCache.TableStatements statements, Object object, TableInfo table,
+                               EntityMapper<Object> mapper, Map<Object, Long> entitiesMap) {
+        try {
+            if (mapper != null) {
+                ContentValues values = new ContentValues(table.getColumns().size());
+                mapper.bindValues(object, values);
+                Long id = (mapper.hasIdField()) ? mapper.getId(object) : null;
+                return statements.insert(values, getRowId(object, table, entitiesMap, id));
+            }
+            return statements.insert(object, getRowId(object, table, entitiesMap, null), entitiesMap);
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+            return -1;
+        }
     }
 
     public static long update(Object object) {
@@ -350,26 +726,25 @@ public class SugarRecord {
 
     static long update(SQLiteDatabase db, Object object) {
         Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
+        TableInfo table = TableInfo.get(object.getClass());
+        List<ColumnInfo> columns = table.getColumns();
         ContentValues values = new ContentValues(columns.size());
 
         StringBuilder whereClause = new StringBuilder();
         List<String> whereArgs = new ArrayList<>();
 
-        for (Field column : columns) {
-            if(column.isAnnotationPresent(Unique.class)) {
+        for (ColumnInfo column : columns) {
+            if(column.isUniqueKey()) {
                 try {
-                    column.setAccessible(true);
-                    String columnName = NamingHelper.toColumnName(column);
                     Object columnValue = column.get(object);
 
-                    whereClause.append(columnName).append(" = ?");
+                    whereClause.append(column.getName()).append(" = ?");
                     whereArgs.add(String.valueOf(columnValue));
                 } catch (IllegalAccessException e) {
                     e.printStackTrace();
                 }
             } else {
-                if (!column.getName().equals("id")) {
+                if (!column.isId()) {
                     ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
                 }
             }
@@ -377,39 +752,144 @@ public class SugarRecord {
 
         String[] whereArgsArray = whereArgs.toArray(new String[whereArgs.size()]);
         // Get SugarRecord based on Unique values
-        long rowsEffected = db.update(NamingHelper.toTableName(object.getClass()), values, whereClause.toString(), whereArgsArray);
+        long rowsEffected = db.update(table.getName(), values, whereClause.toString(), whereArgsArray);
 
         if (rowsEffected == 0) {
             return save(db, object);
         } else {
+            cacheUpdated(object, table, entitiesMap);
+            getQueryCache().invalidate(table.getName());
             return rowsEffected;
         }
     }
 
+    /**
+     * Caches the updated entity in place of the one loaded with its id. Rows matched by unique
+     * columns alone can't be told apart, every entity of the class is dropped then.
+     */
+    private static void cacheUpdated(Object object, TableInfo table, Map<Object, Long> entitiesMap) {
+        EntityCache cache = getEntityCache();
+        if (!cache.isEnabled()) {
+            return;
+        }
+
+        Long id = null;
+        try {
+            id = getRowId(object, table, entitiesMap, null);
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+
+        if (id != null) {
+            cache.put(object.getClass(), id, object);
+        } else {
+            cache.removeAll(object.getClass());
+        }
+    }
+
+    /**
+     * @return the cached statements inserting into the table of the type if they can be used with
+     *         the given connection, null otherwise
+     */
+    private static StatementCache.TableStatements getInsertStatements(SQLiteDatabase db, Class<?> type, TableInfo table) {
+        // A table without columns has nothing to bind, SQLite rejects the insert itself
+        return table.getColumns().isEmpty() ? null : getStatements(db, type, false);
+    }
+
+    /**
+     * @param updateOrDelete true if the statements are used to update or delete, which needs API 11
+     * @return the cached statements of the table if they can be used with the given connection,
+     *         null otherwise
+     */
+    private static StatementCache.TableStatements getStatements(SQLiteDatabase db, Class<?> type, boolean updateOrDelete) {
+        if (updateOrDelete && Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            return null;
+        }
+        StatementCache cache = getSugarContext().getSugarDb().getStatementCache();
+        return cache.isFor(db) ? cache.get(type) : null;
+    }
+
+    /**
+     * @param fieldId the id read by a mapper, or null to read the id field
+     * @return the id of the row of the entity, null if it hasn't been saved
+     */
+    private static Long getRowId(Object object, TableInfo table, Map<Object, Long> entitiesMap, Long fieldId) throws IllegalAccessException {
+        boolean isSugarEntity = table.isAnnotated() || table.isSugarRecord();
+        if (isSugarEntity && entitiesMap.containsKey(object)) {
+            return entitiesMap.get(object);
+        }
+        if (fieldId != null || table.getIdColumn() == null) {
+            return fieldId;
+        }
+        Object id = table.getIdColumn().get(object);
+        return (id instanceof Number) ? ((Number) id).longValue() : null;
+    }
+
+    private static boolean deleteById(Class<?> type, Long id) {
+        getEntityCache().remove(type, id);
+        SQLiteDatabase db = getSugarDataBase();
+        StatementCache.TableStatements statements = getStatements(db, type, true);
+        boolean deleted = (statements != null) ? statements.delete(id) == 1
+                : db.delete(TableInfo.get(type).getName(), "Id=?", new String[]{id.toString()}) == 1;
+        getQueryCache().invalidate(TableInfo.get(type).getName());
+        return deleted;
+    }
+
     public static boolean isSugarEntity(Class<?> objectClass) {
         return objectClass.isAnnotationPresent(Table.class) || SugarRecord.class.isAssignableFrom(objectClass);
     }
 
-    private static void inflate(Cursor cursor, Object object, Map<Object, Long> entitiesMap) {
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
-        if (!entitiesMap.containsKey(object)) {
-            entitiesMap.put(object, cursor.getLong(cursor.getColumnIndex(("ID"))));
+    @SuppressWarnings("unchecked")
+    private static EntityMapper<Object> getMapper(Object object) {
+        return (EntityMapper<Object>) MapperHelper.getMapper(object.getClass());
+    }
+
+    private static <T> T newInstance(Class<T> type, EntityMapper<T> mapper) throws Exception {
+        return (mapper != null) ? mapper.newInstance() : type.getDeclaredConstructor().newInstance();
+    }
+
+    static CursorProjection project(Cursor cursor, Class<?> type, EntityMapper<?> mapper) {
+        TableInfo table = TableInfo.get(type);
+        String[] columnNames = (mapper != null) ? mapper.getColumnNames() : table.getColumnNames();
+        return new CursorProjection(cursor, columnNames, table.getRelationNames());
+    }
+
+    /**
+     * @param cached whether the entity is kept in the entity cache, false for an entity reused for
+     *               every row, whose id is then updated. Entities read from a cursor missing some of
+     *               their columns are never cached
+     */
+    static <T> void inflate(Cursor cursor, CursorProjection projection, T object, EntityMapper<T> mapper,
+                            Map<Object, Long> entitiesMap, RelationLoader relations, boolean cached) throws IllegalAccessException {
+        TableInfo table = TableInfo.get(object.getClass());
+        long id = cursor.getLong(projection.getIdIndex());
+        if (!cached) {
+            entitiesMap.put(object, id);
+        } else {
+            if (!entitiesMap.containsKey(object)) {
+                entitiesMap.put(object, id);
+            }
+            if (projection.isComplete()) {
+                getEntityCache().put(object.getClass(), id, object);
+            }
         }
 
-        for (Field field : columns) {
-        	field.setAccessible(true);
-            Class<?> fieldType = field.getType();
-            if (isSugarEntity(fieldType)) {
-                try {
-                    long id = cursor.getLong(cursor.getColumnIndex(NamingHelper.toColumnName(field)));
-                    field.set(object, (id > 0) ? findById(fieldType, id) : null);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+        if (mapper != null) {
+            mapper.readCursor(cursor, projection.getIndexes(), object);
+        } else {
+            List<ColumnInfo> columns = table.getColumns();
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnInfo column = columns.get(i);
+                if (!column.isRelation()) {
+                    ReflectionUtil.setFieldValueFromCursor(cursor, projection.getIndex(i), column, object);
                 }
-            } else {
-                ReflectionUtil.setFieldValueFromCursor(cursor, field, object);
             }
         }
+
+        List<ColumnInfo> relationColumns = table.getRelations();
+        for (int i = 0; i < relationColumns.size(); i++) {
+            relations.add(object, relationColumns.get(i), cursor.getLong(projection.getRelationIndex(i)));
+        }
     }
 
     public boolean delete() {
@@ -419,7 +899,7 @@ public class SugarRecord {
             if(ManifestHelper.isDebugEnabled()) {
                 Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
             }
-            return getSugarDataBase().delete(NamingHelper.toTableName(type), "Id=?", new String[]{id.toString()}) == 1;
+            return deleteById(type, id);
         } else {
             if(ManifestHelper.isDebugEnabled()) {
                 Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - object has not been saved");
@@ -430,13 +910,20 @@ public class SugarRecord {
 
     public static boolean delete(Object object) {
         Class<?> type = object.getClass();
-        if (type.isAnnotationPresent(Table.class)) {
+        TableInfo table = TableInfo.get(type);
+        if (table.isAnnotated()) {
+            ColumnInfo idColumn = table.getIdColumn();
+            if (idColumn == null) {
+                if(ManifestHelper.isDebugEnabled()) {
+                    Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - annotated object has no id");
+                }
+                return false;
+            }
+
             try {
-                Field field = type.getDeclaredField("id");
-                field.setAccessible(true);
-                Long id = (Long) field.get(object);
+                Long id = (Long) idColumn.get(object);
                 if (id != null && id > 0L) {
-                    boolean deleted = getSugarDataBase().delete(NamingHelper.toTableName(type), "Id=?", new String[]{id.toString()}) == 1;
+                    boolean deleted = deleteById(type, id);
                     if(ManifestHelper.isDebugEnabled()) {
                         Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
                     }
@@ -447,11 +934,6 @@ public class SugarRecord {
                     }
                     return false;
                 }
-            } catch (NoSuchFieldException e) {
-                if(ManifestHelper.isDebugEnabled()) {
-                    Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - annotated object has no id");
-                }
-                return false;
             } catch (IllegalAccessException e) {
                 if(ManifestHelper.isDebugEnabled()) {
                     Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - can't access id");
@@ -478,7 +960,13 @@ public class SugarRecord {
 
     @SuppressWarnings("unchecked")
     void inflate(Cursor cursor) {
-        inflate(cursor, this, getSugarContext().getEntitiesMap());
+        EntityMapper<Object> mapper = getMapper(this);
+        try {
+            inflate(cursor, project(cursor, getClass(), mapper), this, mapper, getSugarContext().getEntitiesMap(),
+                    RelationLoader.immediate(), true);
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
     }
 
     public Long getId() {
@@ -489,52 +977,6 @@ public class SugarRecord {
         this.id = id;
     }
 
-    static class CursorIterator<E> implements Iterator<E> {
-        Class<E> type;
-        Cursor cursor;
-
-        public CursorIterator(Class<E> type, Cursor cursor) {
-            this.type = type;
-            this.cursor = cursor;
-        }
-
-        @Override
-        public boolean hasNext() {
-            return cursor != null && !cursor.isClosed() && !cursor.isAfterLast();
-        }
-
-        @Override
-        public E next() {
-            E entity = null;
-            if (cursor == null || cursor.isAfterLast()) {
-                throw new NoSuchElementException();
-            }
-
-            if (cursor.isBeforeFirst()) {
-                cursor.moveToFirst();
-            }
-
-            try {
-                entity = type.getDeclaredConstructor().newInstance();
-                inflate(cursor, entity, getSugarContext().getEntitiesMap());
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                cursor.moveToNext();
-                if (cursor.isAfterLast()) {
-                    cursor.close();
-                }
-            }
-
-            return entity;
-        }
-
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException();
-        }
-    }
-
     public static String[] replaceArgs(String[] args){
 
         String [] replace = new String[args.length];
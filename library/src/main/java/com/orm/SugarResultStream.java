@@ -0,0 +1,342 @@
+package com.orm;
+
+import android.database.Cursor;
+
+import com.orm.helper.MapperHelper;
+import com.orm.mapper.EntityMapper;
+import com.orm.util.CloseableIterator;
+import com.orm.util.ColumnInfo;
+import com.orm.util.CursorProjection;
+import com.orm.util.TableInfo;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * The entities of a query, read from its cursor one row at a time. The cursor is closed as soon
+ * as the last row has been read, and by {@link #close()}: a stream left before its end, by a
+ * {@code break} for instance, must be closed.
+ *
+ * {@link #limit(long)}, {@link #filter(Predicate)} and {@link #map(Function)} return a stream
+ * reading from this one, without holding more than a row, and closing the same cursor. A stream
+ * can only be iterated once.
+ *
+ * @param <T> the type of the elements
+ */
+public final class SugarResultStream<T> implements CloseableIterator<T>, Iterable<T> {
+    private final Rows<?> rows;
+    private final Iterator<T> iterator;
+
+    /**
+     * Converts an element of a stream, see {@link #map(Function)}.
+     */
+    public interface Function<T, R> {
+        R apply(T value);
+    }
+
+    /**
+     * Selects the elements of a stream, see {@link #filter(Predicate)}.
+     */
+    public interface Predicate<T> {
+        boolean test(T value);
+    }
+
+    SugarResultStream(Class<T> type, Cursor cursor) {
+        Rows<T> entities = new Rows<>(type, cursor);
+        this.rows = entities;
+        this.iterator = entities;
+    }
+
+    private SugarResultStream(Rows<?> rows, Iterator<T> iterator) {
+        this.rows = rows;
+        this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (iterator.hasNext()) {
+            return true;
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return iterator.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+    }
+
+    /**
+     * @return this stream, which can only be iterated once
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    /**
+     * Reads every row into the same entity instead of a new one per row, for a scan that doesn't
+     * keep the entities it is given. The entity is then neither kept in the entity cache nor
+     * returned by any other query. Must be called before the first row is read.
+     */
+    public SugarResultStream<T> reuseEntity() {
+        rows.reuseEntity();
+        return this;
+    }
+
+    /**
+     * @return a stream of the first elements of this one, closing the cursor once they are read
+     */
+    public SugarResultStream<T> limit(final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+
+        return new SugarResultStream<>(rows, new Iterator<T>() {
+            private long count;
+
+            @Override
+            public boolean hasNext() {
+                return count < maxSize && iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                count++;
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    /**
+     * @return a stream of the elements of this one matching the predicate
+     */
+    public SugarResultStream<T> filter(final Predicate<? super T> predicate) {
+        return new SugarResultStream<>(rows, new Iterator<T>() {
+            private T next;
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                while (!ready && iterator.hasNext()) {
+                    T value = iterator.next();
+                    if (predicate.test(value)) {
+                        next = value;
+                        ready = true;
+                    }
+                }
+                return ready;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T value = next;
+                next = null;
+                ready = false;
+                return value;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    /**
+     * @return a stream of the elements of this one converted by the function
+     */
+    public <R> SugarResultStream<R> map(final Function<? super T, ? extends R> function) {
+        return new SugarResultStream<>(rows, new Iterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return function.apply(iterator.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    /**
+     * Reads the remaining elements and closes the stream.
+     */
+    public List<T> toList() {
+        List<T> result = new ArrayList<>();
+        try {
+            while (hasNext()) {
+                result.add(next());
+            }
+        } finally {
+            close();
+        }
+        return result;
+    }
+
+    /**
+     * The entities of the rows of a cursor, loading their relations as they are read.
+     */
+    private static final class Rows<E> implements Iterator<E> {
+        private final Class<E> type;
+        private final Cursor cursor;
+        private final EntityMapper<E> mapper;
+        private final CursorProjection projection;
+        private final RelationLoader relations = RelationLoader.immediate();
+        private final Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        private Constructor<E> constructor;
+        private boolean advanced;
+        private boolean hasRow;
+        private boolean started;
+
+        // Set when the entity is reused
+        private E entity;
+        private List<ColumnInfo> columns;
+        private CursorProjection tableProjection;
+
+        Rows(Class<E> type, Cursor cursor) {
+            this.type = type;
+            this.cursor = cursor;
+            this.mapper = MapperHelper.getMapper(type);
+            this.projection = (cursor != null) ? SugarRecord.project(cursor, type, mapper) : null;
+        }
+
+        void reuseEntity() {
+            if (started) {
+                throw new IllegalStateException("Rows have already been read");
+            }
+            if (columns == null && cursor != null) {
+                TableInfo table = TableInfo.get(type);
+                columns = table.getColumns();
+                tableProjection = new CursorProjection(cursor, table.getColumnNames());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (cursor == null || cursor.isClosed()) {
+                return false;
+            }
+            if (!advanced) {
+                hasRow = cursor.moveToNext();
+                advanced = true;
+            }
+            return hasRow;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            started = true;
+
+            E current = entity;
+            try {
+                if (current == null) {
+                    current = newInstance();
+                }
+                if (columns != null) {
+                    clearNullColumns(current);
+                    entity = current;
+                }
+                SugarRecord.inflate(cursor, projection, current, mapper, entitiesMap, relations, columns == null);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return current;
+        }
+
+        private E newInstance() throws Exception {
+            if (mapper != null) {
+                return mapper.newInstance();
+            }
+            if (constructor == null) {
+                constructor = type.getDeclaredConstructor();
+            }
+            return constructor.newInstance();
+        }
+
+        /**
+         * Resets the fields of the columns that are null in the current row, which inflating skips.
+         */
+        private void clearNullColumns(E current) throws IllegalAccessException {
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnInfo column = columns.get(i);
+                int index = tableProjection.getIndex(i);
+                if (!column.isRelation() && index >= 0 && cursor.isNull(index)) {
+                    column.set(current, defaultValue(column.getType()));
+                }
+            }
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return null;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == char.class) {
+                return '\u0000';
+            } else if (type == byte.class) {
+                return (byte) 0;
+            } else if (type == short.class) {
+                return (short) 0;
+            } else if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == float.class) {
+                return 0f;
+            }
+            return 0d;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        void close() {
+            if (cursor != null && !cursor.isClosed()) {
+                cursor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indexes several columns together, given like {@link MultiUnique} as the field names separated by
+ * commas. The index is named IDX_&lt;TABLE&gt;_&lt;name&gt;, the names of the columns joined by
+ * underscores by default, and dropped by upgrades once removed. See {@link Indices} to declare
+ * more than one.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CompositeIndex {
+    String value();
+
+    String name() default "";
+
+    /**
+     * @return the condition of the rows indexed, making it a partial index. SQLite before 3.8.0,
+     *         Android before 5.0, indexes every row instead.
+     */
+    String where() default "";
+}
@@ -0,0 +1,22 @@
+package com.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indexes the column of the field. The index is named IDX_&lt;TABLE&gt;_&lt;name&gt;, the name of
+ * the column by default, and dropped by upgrades once removed.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Index {
+    String name() default "";
+
+    /**
+     * @return the condition of the rows indexed, making it a partial index. SQLite before 3.8.0,
+     *         Android before 5.0, indexes every row instead.
+     */
+    String where() default "";
+}
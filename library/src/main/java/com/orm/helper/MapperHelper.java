@@ -0,0 +1,172 @@
+package com.orm.helper;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.util.Log;
+
+import com.orm.SugarLazy;
+import com.orm.mapper.EntityMapper;
+import com.orm.util.ReflectionUtil;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Looks up the {@link EntityMapper} generated for an entity class and provides the value
+ * conversions shared by every generated mapper, so they behave exactly like the reflection path.
+ */
+public final class MapperHelper {
+    private static final String LOG_TAG = "Sugar";
+    private static final Object NO_MAPPER = new Object();
+    private static final Map<Class<?>, Object> MAPPERS = new ConcurrentHashMap<>();
+
+    //Prevent instantiation
+    private MapperHelper() { }
+
+    /**
+     * Returns the generated mapper for the given entity class. The lookup result, including the
+     * absence of a mapper, is cached so the class loader is only hit once per class.
+     *
+     * @param type the entity class
+     * @param <T> the entity type
+     * @return the generated mapper or null if none was generated for that class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMapper<T> getMapper(Class<T> type) {
+        Object mapper = MAPPERS.get(type);
+
+        if (mapper == null) {
+            mapper = loadMapper(type);
+            MAPPERS.put(type, mapper);
+        }
+
+        return (mapper == NO_MAPPER) ? null : (EntityMapper<T>) mapper;
+    }
+
+    /**
+     * Builds the name of the mapper class generated for an entity: the mapper lives in the same
+     * package and is named after the entity, with nested class names joined by an underscore.
+     *
+     * @param type the entity class
+     * @return the fully qualified name of the generated mapper
+     */
+    public static String toMapperClassName(Class<?> type) {
+        String className = type.getName();
+        int packageEnd = className.lastIndexOf('.');
+        String packageName = (packageEnd < 0) ? "" : className.substring(0, packageEnd + 1);
+        String simpleName = className.substring(packageEnd + 1).replace('$', '_');
+
+        return packageName + simpleName + EntityMapper.SUFFIX;
+    }
+
+    public static void clearCache() {
+        MAPPERS.clear();
+    }
+
+    private static Object loadMapper(Class<?> type) {
+        try {
+            Class<?> mapperClass = Class.forName(toMapperClassName(type), true, type.getClassLoader());
+            return mapperClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            return NO_MAPPER;
+        } catch (Exception e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e(LOG_TAG, "Couldn't instantiate mapper for " + type.getName(), e);
+            }
+            return NO_MAPPER;
+        }
+    }
+
+    public static void putString(ContentValues values, String column, Object value) {
+        if (value == null) {
+            values.putNull(column);
+        } else {
+            values.put(column, String.valueOf(value));
+        }
+    }
+
+    public static void putEnum(ContentValues values, String column, Enum<?> value) {
+        if (value == null) {
+            values.putNull(column);
+        } else {
+            values.put(column, value.name());
+        }
+    }
+
+    public static void putBigDecimal(ContentValues values, String column, BigDecimal value) {
+        if (value == null) {
+            values.putNull(column);
+        } else {
+            values.put(column, value.toString());
+        }
+    }
+
+    public static void putDate(ContentValues values, String column, Date value) {
+        values.put(column, (value == null) ? null : value.getTime());
+    }
+
+    public static void putCalendar(ContentValues values, String column, Calendar value) {
+        values.put(column, (value == null) ? null : value.getTimeInMillis());
+    }
+
+    public static void putBytes(ContentValues values, String column, byte[] value) {
+        values.put(column, (value == null) ? "".getBytes() : value);
+    }
+
+    public static void putRelation(ContentValues values, String column, Class<?> type, Object value) {
+        try {
+            ReflectionUtil.addRelationValueToColumn(values, column, type, value, getSugarContext().getEntitiesMap());
+        } catch (IllegalAccessException e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e(LOG_TAG, e.getMessage());
+            }
+        }
+    }
+
+    public static void putLazy(ContentValues values, String column, SugarLazy<?> value) {
+        try {
+            ReflectionUtil.addLazyValueToColumn(values, column, value, getSugarContext().getEntitiesMap());
+        } catch (IllegalAccessException e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e(LOG_TAG, e.getMessage());
+            }
+        }
+    }
+
+    public static String getString(Cursor cursor, int index) {
+        String value = cursor.getString(index);
+        return (value != null && value.equals("null")) ? null : value;
+    }
+
+    public static BigDecimal getBigDecimal(Cursor cursor, int index) {
+        String value = cursor.getString(index);
+        return (value != null && value.equals("null")) ? null : new BigDecimal(value);
+    }
+
+    public static Calendar getCalendar(Cursor cursor, int index) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(cursor.getLong(index));
+        return calendar;
+    }
+
+    public static byte[] getBytes(Cursor cursor, int index) {
+        byte[] bytes = cursor.getBlob(index);
+        return (bytes == null) ? "".getBytes() : bytes;
+    }
+
+    public static <E extends Enum<E>> E getEnum(Cursor cursor, int index, Class<E> type) {
+        try {
+            return Enum.valueOf(type, cursor.getString(index));
+        } catch (IllegalArgumentException e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e(LOG_TAG, "Enum cannot be read from Sqlite3 database. Please check the type " + type.getName());
+            }
+            return null;
+        }
+    }
+}
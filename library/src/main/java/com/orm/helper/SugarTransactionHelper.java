@@ -32,6 +32,8 @@ public final class SugarTransactionHelper {
             }
         } finally {
             database.endTransaction();
+            // Other threads may have cached rows read before the commit, from any table
+            getSugarContext().getQueryCache().invalidateAll();
         }
     }
 
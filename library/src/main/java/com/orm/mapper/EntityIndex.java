@@ -0,0 +1,22 @@
+package com.orm.mapper;
+
+/**
+ * The entity classes of an application, listed at compile time by the sugar compiler module so
+ * {@link com.orm.util.ReflectionUtil#getDomainClasses()} doesn't have to scan the dex files for them.
+ *
+ * A single index is generated per application, as {@link #CLASS_NAME}. When it is missing the
+ * domain classes are found by scanning as before.
+ */
+public interface EntityIndex {
+
+    /**
+     * Name of the generated index class.
+     */
+    String CLASS_NAME = "com.orm.generated.SugarEntityIndex";
+
+    /**
+     * @return the binary names of the {@link com.orm.annotation.Table} annotated classes and
+     *         {@link com.orm.SugarRecord} subclasses, in the order they were compiled
+     */
+    String[] getEntityClassNames();
+}
@@ -0,0 +1,68 @@
+package com.orm.mapper;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+/**
+ * Moves an entity in and out of its table row without going through reflection.
+ *
+ * Implementations are generated at compile time by the sugar compiler module, one per
+ * {@link com.orm.annotation.Table} annotated class or {@link com.orm.SugarRecord} subclass, and
+ * are looked up at runtime by {@link com.orm.helper.MapperHelper}. Entities without a generated
+ * mapper keep using the reflection based code path.
+ *
+ * @param <T> the entity type handled by this mapper
+ */
+public interface EntityMapper<T> {
+
+    /**
+     * Suffix appended to the entity's class name to build the name of its generated mapper.
+     */
+    String SUFFIX = "_SugarMapper";
+
+    /**
+     * @return a new, empty instance of the entity, created through its no-arg constructor
+     */
+    T newInstance();
+
+    /**
+     * @return true if the entity declares (or inherits) an id field, false if Sugar has to track
+     *         its id on the side
+     */
+    boolean hasIdField();
+
+    /**
+     * @param entity the entity to read the id from
+     * @return the value of the id field or null if the entity has no id field
+     */
+    Long getId(T entity);
+
+    /**
+     * @param entity the entity to write the id to
+     * @param id the id to set, ignored if the entity has no id field
+     */
+    void setId(T entity, Long id);
+
+    /**
+     * Puts every persisted field of the entity in the given values, keyed by column name.
+     *
+     * @param entity the entity to read the fields from
+     * @param values the values that will be inserted
+     */
+    void bindValues(T entity, ContentValues values);
+
+    /**
+     * @return the columns read by {@link #readCursor(Cursor, int[], Object)}, in the order their
+     *         indexes are expected. The returned array must not be modified.
+     */
+    String[] getColumnNames();
+
+    /**
+     * Reads every persisted field of the entity from the current row of the cursor.
+     *
+     * @param cursor the cursor, positioned on the row to read
+     * @param indexes the cursor index of each of {@link #getColumnNames()}, -1 for missing columns
+     * @param entity the entity to populate
+     */
+    void readCursor(Cursor cursor, int[] indexes, T entity);
+}
@@ -0,0 +1,154 @@
+package com.orm.query;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+
+import com.orm.SugarRecord;
+import com.orm.helper.ManifestHelper;
+import com.orm.util.QueryArguments;
+import com.orm.util.QueryBuilder;
+import com.orm.util.SugarCursor;
+import com.orm.util.SugarCursorFactory;
+import com.orm.util.TableInfo;
+
+import java.util.List;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * A {@link Select} whose SQL is generated once, to be run again and again with new arguments.
+ *
+ * The SQL never changes, so every connection prepares it once and then only rebinds the arguments
+ * from its statement cache, and the count statement is compiled once per database. A compiled
+ * query can be shared between threads. Only the {@code ?} arguments of the where clause can be
+ * replaced, LIKE patterns are part of the SQL.
+ *
+ * @param <T> the entity type
+ */
+public final class CompiledQuery<T> {
+    private final Class<T> type;
+    private final String where;
+    private final String sql;
+    private final String firstSql;
+    private final String countSql;
+    private final Object[] arguments;
+    private final String[] findKeyParts;
+    private final String[] firstKeyParts;
+    private SQLiteDatabase countDatabase;
+    private SQLiteStatement countStatement;
+
+    CompiledQuery(Class<T> type, String whereClause, Object[] arguments, String groupBy, String orderBy,
+                  String limit, String offset) {
+        String table = TableInfo.get(type).getName();
+        String where = isEmpty(whereClause) ? null : whereClause;
+        String limitClause = isEmpty(limit) ? null : (isEmpty(offset) ? limit : limit + " OFFSET " + offset);
+
+        this.type = type;
+        this.where = where;
+        this.arguments = (arguments != null) ? QueryArguments.toSqlValues(arguments) : new Object[0];
+        this.sql = QueryBuilder.select(table, where, groupBy, orderBy, limitClause);
+        this.firstSql = QueryBuilder.select(table, where, groupBy, orderBy, "1");
+        this.countSql = "SELECT count(*) FROM " + table + ((where != null) ? " where " + where : "");
+        this.findKeyParts = new String[]{table, where, groupBy, orderBy, limitClause};
+        this.firstKeyParts = new String[]{table, where, groupBy, orderBy, "1"};
+    }
+
+    private static boolean isEmpty(String clause) {
+        return clause == null || clause.isEmpty();
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the number of arguments every call must pass, unless it passes none to use those
+     *         the query was compiled with
+     */
+    public int getArgumentCount() {
+        return arguments.length;
+    }
+
+    /**
+     * @param arguments the new arguments, in the order of the conditions, or none to use those the
+     *                  query was compiled with
+     */
+    public List<T> list(Object... arguments) {
+        return SugarRecord.findCached(type, sql, where, findKeyParts, bind(arguments));
+    }
+
+    /**
+     * @return the first entity, null if there is none
+     */
+    public T first(Object... arguments) {
+        List<T> list = SugarRecord.findCached(type, firstSql, where, firstKeyParts, bind(arguments));
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    public long count(Object... arguments) {
+        return SugarRecord.countCached(type, countSql, where, bind(arguments), getCountStatement(getDatabase()));
+    }
+
+    public Cursor getCursor(Object... arguments) {
+        SugarCursorFactory factory = new SugarCursorFactory(ManifestHelper.isDebugEnabled(), bind(arguments));
+        return new SugarCursor(getDatabase().rawQueryWithFactory(factory, sql, null, null));
+    }
+
+    /**
+     * @return the count statement compiled on the database, again if it has been reopened, or null
+     *         if it can't be compiled, which {@link SugarRecord#countCached} then reports
+     */
+    private synchronized SQLiteStatement getCountStatement(SQLiteDatabase db) {
+        if (countStatement == null || countDatabase != db) {
+            if (countStatement != null) {
+                countStatement.close();
+                countStatement = null;
+            }
+            try {
+                countStatement = db.compileStatement(countSql);
+            } catch (SQLiteException e) {
+                return null;
+            }
+            countDatabase = db;
+        }
+        return countStatement;
+    }
+
+    /**
+     * Converts the arguments to the values stored for their type, see {@link QueryArguments}.
+     */
+    private Object[] bind(Object[] values) {
+        if (values == null || values.length == 0) {
+            return arguments;
+        }
+        if (values.length != arguments.length) {
+            throw new IllegalArgumentException("Expected " + arguments.length + " arguments but got " + values.length);
+        }
+
+        Object[] args = QueryArguments.toSqlValues(values);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null) {
+                throw new IllegalArgumentException("Argument " + (i + 1) + " is null, compile an isNull() condition instead");
+            }
+        }
+        return args;
+    }
+
+    private static SQLiteDatabase getDatabase() {
+        return getSugarContext().getSugarDb().getDB();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledQuery{" +
+                "sql='" + sql + '\'' +
+                ", arguments=" + arguments.length +
+                '}';
+    }
+}
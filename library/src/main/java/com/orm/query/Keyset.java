@@ -0,0 +1,146 @@
+package com.orm.query;
+
+import com.orm.helper.NamingHelper;
+import com.orm.util.ColumnInfo;
+import com.orm.util.QueryArguments;
+import com.orm.util.ReflectionUtil;
+import com.orm.util.TableInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * The order of a keyset paginated query, and the predicate seeking the rows after a key.
+ *
+ * The order must be on plain columns, ascending or descending, and ends with the id so it is
+ * total: the id is appended in the direction of the last column when missing. Rows after a key
+ * are selected with nested comparisons, {@code A <= ? AND (A < ? OR (ID < ?))} for
+ * {@code A DESC, ID DESC}, whose outer range lets SQLite seek an index on the first column.
+ */
+final class Keyset {
+    private static final String ID = "ID";
+
+    private final TableInfo table;
+    private final List<String> columns = new ArrayList<>();
+    private final List<Boolean> descending = new ArrayList<>();
+
+    Keyset(Class<?> type, String orderBy) {
+        this.table = TableInfo.get(type);
+
+        if (orderBy != null && !orderBy.trim().isEmpty()) {
+            for (String term : orderBy.split(",")) {
+                addTerm(orderBy, term.trim().split("\\s+"));
+            }
+        }
+        if (!columns.contains(ID)) {
+            columns.add(ID);
+            descending.add(!descending.isEmpty() && descending.get(descending.size() - 1));
+        }
+    }
+
+    private void addTerm(String orderBy, String[] words) {
+        boolean desc = words.length == 2 && words[1].equalsIgnoreCase("DESC");
+        if (words.length > 2 || (words.length == 2 && !desc && !words[1].equalsIgnoreCase("ASC"))) {
+            throw new IllegalArgumentException("Keyset pagination needs an order by columns, ASC or DESC: " + orderBy);
+        }
+
+        String column = toColumnName(words[0]);
+        if (column == null) {
+            throw new IllegalArgumentException("Keyset pagination can't order by " + words[0] + ", it isn't a column of " + table.getName());
+        }
+        if (!columns.contains(column)) {
+            columns.add(column);
+            descending.add(desc);
+        }
+    }
+
+    private String toColumnName(String name) {
+        if (name.equalsIgnoreCase(ID)) {
+            return ID;
+        }
+        String fieldColumn = NamingHelper.toSQLNameDefault(name);
+        for (String column : table.getColumnNames()) {
+            if (column.equalsIgnoreCase(name) || column.equals(fieldColumn)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    String getOrderBy() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append((i > 0) ? ", " : "").append(columns.get(i)).append(descending.get(i) ? " DESC" : " ASC");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the predicate selecting the rows after a key, bound with {@link #getSeekArguments(Page.Key)}
+     */
+    String getSeekClause() {
+        return seekClause(0);
+    }
+
+    private String seekClause(int i) {
+        String column = columns.get(i);
+        String operator = descending.get(i) ? " <" : " >";
+        if (i == columns.size() - 1) {
+            return column + operator + " ?";
+        }
+        return column + operator + "= ? AND (" + column + operator + " ? OR (" + seekClause(i + 1) + "))";
+    }
+
+    List<Object> getSeekArguments(Page.Key key) {
+        Object[] values = key.getValues();
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("The key " + key + " doesn't match the order " + getOrderBy());
+        }
+
+        List<Object> arguments = new ArrayList<>(2 * values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            Object value = QueryArguments.toSqlValue(values[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Keyset pagination can't seek past a null " + columns.get(i));
+            }
+            arguments.add(value);
+            if (i < values.length - 1) {
+                arguments.add(value);
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * @return the key of the row of a saved entity
+     */
+    Page.Key keyOf(Object entity) {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        Object[] values = new Object[columns.size()];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                String column = columns.get(i);
+                if (column.equals(ID) && table.getIdColumn() == null) {
+                    values[i] = entitiesMap.get(entity);
+                } else {
+                    values[i] = QueryArguments.toSqlValue(ReflectionUtil.getColumnValue(findColumn(column), entity, entitiesMap));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Can't read the key of " + entity, e);
+        }
+        return new Page.Key(values);
+    }
+
+    private ColumnInfo findColumn(String name) {
+        for (ColumnInfo column : table.getColumns()) {
+            if (column.getName().equals(name)) {
+                return column;
+            }
+        }
+        return table.getIdColumn();
+    }
+}
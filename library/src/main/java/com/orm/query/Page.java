@@ -0,0 +1,82 @@
+package com.orm.query;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of entities read by {@link Select#page(int)}, with the key to read the next one.
+ *
+ * @param <T> the entity type
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final Key nextKey;
+
+    Page(List<T> items, Key nextKey) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextKey = nextKey;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the key to pass to {@link Select#after(Key)} for the next page, null if this is the
+     *         last one
+     */
+    public Key getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "size=" + items.size() +
+                ", nextKey=" + nextKey +
+                '}';
+    }
+
+    /**
+     * The values of the order by columns of the last row of a page. It can be kept, in a bundle
+     * for instance, to read the next page later with the same query.
+     */
+    public static final class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] values;
+
+        /**
+         * @param values the values of the last row read, in the order of the order by columns
+         *               followed by its id
+         */
+        public Key(Object... values) {
+            this.values = values.clone();
+        }
+
+        public Object[] getValues() {
+            return values.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.deepEquals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.deepHashCode(values);
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + Arrays.deepToString(values);
+        }
+    }
+}
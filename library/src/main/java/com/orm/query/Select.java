@@ -3,13 +3,15 @@ package com.orm.query;
 import android.database.Cursor;
 
 import com.orm.SugarRecord;
-import com.orm.helper.NamingHelper;
+import com.orm.SugarResultStream;
+import com.orm.util.QueryArguments;
+import com.orm.util.TableInfo;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
-public class Select<T> implements Iterable {
+public class Select<T> implements Iterable<T> {
     private static final String SPACE = " ";
     private static final String SINGLE_QUOTE = "'";
     private static final String LEFT_PARENTHESIS = "(";
@@ -28,7 +30,9 @@ public class Select<T> implements Iterable {
     private String groupBy = "";
     private String limit = "";
     private String offset = "";
-    private List<String> args = new ArrayList<>();
+    private List<Object> args = new ArrayList<>();
+    private T afterRow;
+    private Page.Key afterKey;
 
     public Select(Class<T> record) {
         this.record = record;
@@ -95,7 +99,7 @@ public class Select<T> implements Iterable {
                     .append(condition.getProperty())
                     .append(condition.getCheckSymbol())
                     .append("? ");
-                args.add(condition.getValue().toString());
+                args.add(condition.getValue());
             }
         }
         
@@ -128,36 +132,84 @@ public class Select<T> implements Iterable {
     }
 
     public Cursor getCursor() {
-       return SugarRecord.getCursor(record, whereClause, arguments, groupBy, orderBy, limit);
+       return SugarRecord.getCursor(record, whereClause, getWhereArgs(), groupBy, orderBy, limit);
     }
     public List<T> list() {
-        if (arguments == null) {
-            arguments = convertArgs(args);
-        }
-
-        return SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, limit);
+        return SugarRecord.find(record, whereClause, getWhereArgs(), groupBy, orderBy, limit);
     }
     
     public long count() {
-        if (arguments == null) {
-            arguments = convertArgs(args);
-        }
-    	
-        return SugarRecord.count(record, whereClause, arguments, groupBy, orderBy, limit);
+        return SugarRecord.count(record, whereClause, getWhereArgs(), groupBy, orderBy, limit);
     }
 
     public T first() {
-        if (arguments == null) {
-            arguments = convertArgs(args);
-        }
-
-        List<T> list = SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, "1");
+        List<T> list = SugarRecord.find(record, whereClause, getWhereArgs(), groupBy, orderBy, "1");
         return list.size() > 0 ? list.get(0) : null;
     }
     
+    /**
+     * Starts {@link #page(int)} after the row of the entity, usually the last one of the previous
+     * page. Null starts from the first row.
+     */
+    public Select<T> after(T lastRow) {
+        this.afterRow = lastRow;
+        this.afterKey = null;
+        return this;
+    }
+
+    /**
+     * Starts {@link #page(int)} after the key of a previous page, see {@link Page#getNextKey()}.
+     * Null starts from the first row.
+     */
+    public Select<T> after(Page.Key key) {
+        this.afterKey = key;
+        this.afterRow = null;
+        return this;
+    }
+
+    /**
+     * Reads the rows following the one given to {@code after}, by seeking past the values of its
+     * order by columns rather than skipping an offset, so a page deep in a large table costs as
+     * much as the first one, given an index on the order by columns. The order must be on columns
+     * that are never null, the id is appended to it when missing. Limit and offset are ignored.
+     *
+     * @param size the maximum number of entities of the page
+     */
+    public Page<T> page(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The page size must be positive, was " + size);
+        }
+
+        Keyset keyset = new Keyset(record, orderBy);
+        Page.Key key = (afterRow != null) ? keyset.keyOf(afterRow) : afterKey;
+        String where = whereClause;
+        List<Object> values = new ArrayList<>(Arrays.asList(getWhereArgs()));
+        if (key != null) {
+            String seek = keyset.getSeekClause();
+            where = (where == null || where.isEmpty()) ? seek : LEFT_PARENTHESIS + where + RIGHT_PARENTHESIS + " AND (" + seek + RIGHT_PARENTHESIS;
+            values.addAll(keyset.getSeekArguments(key));
+        }
+
+        // One more row tells whether there is a next page
+        List<T> rows = SugarRecord.find(record, where, values.toArray(), groupBy, keyset.getOrderBy(), String.valueOf(size + 1));
+        if (rows.size() <= size) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, size));
+        return new Page<>(items, keyset.keyOf(items.get(size - 1)));
+    }
+
+    /**
+     * Generates the SQL of this query once, to run it again with new arguments. Conditions added
+     * afterwards don't change the compiled query.
+     */
+    public CompiledQuery<T> compile() {
+        return new CompiledQuery<>(record, whereClause, getWhereArgs(), groupBy, orderBy, limit, offset);
+    }
+
     String toSql() {
         StringBuilder sql = new StringBuilder();
-        sql.append(SELECT_FROM).append(NamingHelper.toTableName(this.record)).append(SPACE);
+        sql.append(SELECT_FROM).append(TableInfo.get(this.record).getName()).append(SPACE);
 
         if (!whereClause.isEmpty()) {
             sql.append(WHERE).append(whereClause).append(SPACE);
@@ -187,20 +239,23 @@ public class Select<T> implements Iterable {
     }
 
     String[] getArgs() {
-        return convertArgs(args);
+        return QueryArguments.toStrings(args.toArray());
     }
 
-    private String[] convertArgs(List<String> argsList) {
-        return argsList.toArray(new String[argsList.size()]);
+    /**
+     * @return the values of the conditions, bound with their own type, or the string arguments
+     *         of a raw where clause
+     */
+    private Object[] getWhereArgs() {
+        return (arguments != null) ? SugarRecord.replaceArgs(arguments) : args.toArray();
     }
 
+    /**
+     * @return the entities read one row at a time, see {@link SugarResultStream}
+     */
     @Override
-    public Iterator<T> iterator() {
-        if (arguments == null) {
-            arguments = convertArgs(args);
-        }
-
-        return SugarRecord.findAsIterator(record, whereClause, arguments, groupBy, orderBy, limit);
+    public SugarResultStream<T> iterator() {
+        return SugarRecord.findAsIterator(record, whereClause, getWhereArgs(), groupBy, orderBy, limit);
     }
 
 }
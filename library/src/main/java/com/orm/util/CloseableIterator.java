@@ -0,0 +1,18 @@
+package com.orm.util;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An iterator holding a resource, such as a cursor, until it is exhausted or closed. It is
+ * {@link Closeable} rather than {@code AutoCloseable}, which needs API 19, and Closeable extends
+ * AutoCloseable from API 19 on, so it can be used in a try-with-resources statement there.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * Releases the resource, unless it already is. {@link #hasNext()} returns false afterwards.
+     */
+    @Override
+    void close();
+}
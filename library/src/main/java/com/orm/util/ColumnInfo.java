@@ -0,0 +1,209 @@
+package com.orm.util;
+
+import com.orm.SugarLazy;
+import com.orm.SugarRecord;
+import com.orm.annotation.Column;
+import com.orm.annotation.NotNull;
+import com.orm.annotation.Unique;
+import com.orm.helper.NamingHelper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Everything Sugar needs to know about a persisted field, resolved once when the owning
+ * {@link TableInfo} is built so that reading and writing rows never touches annotations again.
+ */
+public final class ColumnInfo {
+
+    /**
+     * How a field value is converted to and from its column.
+     */
+    public enum Converter {
+        SHORT,
+        INTEGER,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        BOOLEAN,
+        STRING,
+        BIG_DECIMAL,
+        TIMESTAMP,
+        DATE,
+        CALENDAR,
+        BLOB,
+        ENUM,
+        RELATION,
+        LAZY,
+        OTHER
+    }
+
+    private final Field field;
+    private final String name;
+    private final String sqlType;
+    private final Converter converter;
+    private final Class<?> relatedType;
+    private final boolean id;
+    private final boolean notNull;
+    private final boolean unique;
+    private final boolean uniqueKey;
+
+    public ColumnInfo(Field field) {
+        field.setAccessible(true);
+        this.field = field;
+        this.name = NamingHelper.toColumnName(field);
+        this.sqlType = QueryBuilder.getColumnType(field.getType());
+        this.converter = toConverter(field.getType());
+        this.relatedType = toRelatedType(field, converter);
+        this.id = field.getName().equals("id");
+        this.uniqueKey = field.isAnnotationPresent(Unique.class);
+
+        if (field.isAnnotationPresent(Column.class)) {
+            Column annotation = field.getAnnotation(Column.class);
+            this.notNull = annotation.notNull();
+            this.unique = annotation.unique();
+        } else {
+            this.notNull = field.isAnnotationPresent(NotNull.class);
+            this.unique = uniqueKey;
+        }
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    public String getFieldName() {
+        return field.getName();
+    }
+
+    /**
+     * @return the name of the column, see {@link NamingHelper#toColumnName(Field)}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the SQL type of the column, see {@link QueryBuilder#getColumnType(Class)}
+     */
+    public String getSqlType() {
+        return sqlType;
+    }
+
+    public Converter getConverter() {
+        return converter;
+    }
+
+    /**
+     * @return true if the column holds the id of another Sugar entity, directly or through a
+     *         {@link SugarLazy}
+     */
+    public boolean isRelation() {
+        return converter == Converter.RELATION || converter == Converter.LAZY;
+    }
+
+    /**
+     * @return the type of the related entity for relation columns, null otherwise or if the type
+     *         argument of a {@link SugarLazy} field can't be resolved
+     */
+    public Class<?> getRelatedType() {
+        return relatedType;
+    }
+
+    /**
+     * @return true if this is the field named "id"
+     */
+    public boolean isId() {
+        return id;
+    }
+
+    /**
+     * @return true if the column is created with a NOT NULL constraint
+     */
+    public boolean isNotNull() {
+        return notNull;
+    }
+
+    /**
+     * @return true if the column is created with a UNIQUE constraint
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * @return true if the field is annotated with {@link Unique}, in which case it is part of the
+     *         key used to find the row to update
+     */
+    public boolean isUniqueKey() {
+        return uniqueKey;
+    }
+
+    public Object get(Object object) throws IllegalAccessException {
+        return field.get(object);
+    }
+
+    public void set(Object object, Object value) throws IllegalAccessException {
+        field.set(object, value);
+    }
+
+    static Converter toConverter(Class<?> type) {
+        if (SugarRecord.isSugarEntity(type)) {
+            return Converter.RELATION;
+        } else if (type.equals(SugarLazy.class)) {
+            return Converter.LAZY;
+        } else if (type.equals(Short.class) || type.equals(short.class)) {
+            return Converter.SHORT;
+        } else if (type.equals(Integer.class) || type.equals(int.class)) {
+            return Converter.INTEGER;
+        } else if (type.equals(Long.class) || type.equals(long.class)) {
+            return Converter.LONG;
+        } else if (type.equals(Float.class) || type.equals(float.class)) {
+            return Converter.FLOAT;
+        } else if (type.equals(Double.class) || type.equals(double.class)) {
+            return Converter.DOUBLE;
+        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+            return Converter.BOOLEAN;
+        } else if (type.equals(String.class)) {
+            return Converter.STRING;
+        } else if (type.equals(BigDecimal.class)) {
+            return Converter.BIG_DECIMAL;
+        } else if (type.equals(Timestamp.class)) {
+            return Converter.TIMESTAMP;
+        } else if (type.equals(Date.class)) {
+            return Converter.DATE;
+        } else if (type.equals(Calendar.class)) {
+            return Converter.CALENDAR;
+        } else if (type.equals(byte[].class)) {
+            return Converter.BLOB;
+        } else if (type.isEnum()) {
+            return Converter.ENUM;
+        }
+
+        return Converter.OTHER;
+    }
+
+    private static Class<?> toRelatedType(Field field, Converter converter) {
+        if (converter == Converter.RELATION) {
+            return field.getType();
+        }
+
+        if (converter == Converter.LAZY && field.getGenericType() instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.orm.util;
+
+import android.database.Cursor;
+
+/**
+ * The cursor index of each column an entity is read from. Column names are resolved once per
+ * cursor, every row is then read by index.
+ */
+public final class CursorProjection {
+    private final int idIndex;
+    private final int[] indexes;
+    private final int[] relationIndexes;
+
+    /**
+     * @param cursor the cursor the rows are read from
+     * @param columnNames the columns to resolve
+     */
+    public CursorProjection(Cursor cursor, String[] columnNames) {
+        this(cursor, columnNames, new String[0]);
+    }
+
+    /**
+     * @param cursor the cursor the rows are read from
+     * @param columnNames the columns to resolve
+     * @param relationNames the relationship columns to resolve, see {@link TableInfo#getRelationNames()}
+     */
+    public CursorProjection(Cursor cursor, String[] columnNames, String[] relationNames) {
+        this.idIndex = cursor.getColumnIndex("ID");
+        this.indexes = resolve(cursor, columnNames);
+        this.relationIndexes = resolve(cursor, relationNames);
+    }
+
+    private static int[] resolve(Cursor cursor, String[] columnNames) {
+        int[] resolved = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            resolved[i] = cursor.getColumnIndex(columnNames[i]);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the index of the ID column or -1 if the cursor doesn't have one
+     */
+    public int getIdIndex() {
+        return idIndex;
+    }
+
+    /**
+     * @return whether the cursor has the ID and every column and relation resolved, so that the
+     * entities read from it are complete
+     */
+    public boolean isComplete() {
+        return idIndex != -1 && !contains(indexes, -1) && !contains(relationIndexes, -1);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of each column, in the order they were given, -1 for missing columns
+     */
+    public int[] getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * @param position the position of the column in the names given to the constructor
+     * @return the index of the column or -1 if the cursor doesn't have it
+     */
+    public int getIndex(int position) {
+        return indexes[position];
+    }
+
+    /**
+     * @param position the position of the column in the relation names given to the constructor
+     * @return the index of the column or -1 if the cursor doesn't have it
+     */
+    public int getRelationIndex(int position) {
+        return relationIndexes[position];
+    }
+}
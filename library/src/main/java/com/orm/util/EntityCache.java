@@ -0,0 +1,245 @@
+package com.orm.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entities recently loaded or saved, by class and id, so finding one of them again doesn't query
+ * the database and rows referencing it share the same instance.
+ *
+ * The cache holds at most a fixed number of entities, evicting the least recently used one, and
+ * only softly or weakly references them, so it never keeps an entity from being collected. A
+ * cache of size 0 is disabled: it holds nothing and counts nothing.
+ */
+public final class EntityCache {
+    private final int maxSize;
+    private final boolean weakValues;
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final LinkedHashMap<Key, Reference<Object>> entries;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maxSize the maximum number of entities held, 0 to disable the cache
+     * @param weakValues true to hold entities weakly, so they are dropped as soon as nothing else
+     *                   references them, false to hold them softly until memory is needed
+     */
+    public EntityCache(final int maxSize, boolean weakValues) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+
+        this.maxSize = maxSize;
+        this.weakValues = weakValues;
+        this.entries = new LinkedHashMap<Key, Reference<Object>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Reference<Object>> eldest) {
+                if (size() > maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @return the cached entity, null if it isn't cached or has been collected
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> type, long id) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        Key key = new Key(type, id);
+        synchronized (this) {
+            purge();
+            Reference<Object> reference = entries.get(key);
+            Object entity = (reference != null) ? reference.get() : null;
+            if (entity == null) {
+                missCount++;
+                return null;
+            }
+
+            hitCount++;
+            return (T) entity;
+        }
+    }
+
+    /**
+     * Caches the entity, replacing the one cached with the same class and id.
+     */
+    public void put(Class<?> type, long id, Object entity) {
+        if (!isEnabled() || entity == null) {
+            return;
+        }
+
+        Key key = new Key(type, id);
+        Reference<Object> reference = weakValues ? new WeakEntry(key, entity, queue) : new SoftEntry(key, entity, queue);
+        synchronized (this) {
+            purge();
+            entries.put(key, reference);
+        }
+    }
+
+    public void remove(Class<?> type, long id) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Key key = new Key(type, id);
+        synchronized (this) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes every entity of the class.
+     */
+    public void removeAll(Class<?> type) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (this) {
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().type == type) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        purge();
+    }
+
+    /**
+     * @return the number of entries, some of which may have been collected already
+     */
+    public synchronized int size() {
+        purge();
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of entities evicted to keep the cache within its size
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    /**
+     * Removes the entries whose entity has been collected.
+     */
+    private void purge() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            Key key = ((Entry) reference).getKey();
+            if (entries.get(key) == reference) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EntityCache{" +
+                "size=" + entries.size() +
+                ", maxSize=" + maxSize +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+
+    private interface Entry {
+        Key getKey();
+    }
+
+    private static final class WeakEntry extends WeakReference<Object> implements Entry {
+        private final Key key;
+
+        WeakEntry(Key key, Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Key getKey() {
+            return key;
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<Object> implements Entry {
+        private final Key key;
+
+        SoftEntry(Key key, Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Key getKey() {
+            return key;
+        }
+    }
+
+    private static final class Key {
+        final Class<?> type;
+        final long id;
+
+        Key(Class<?> type, long id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return id == key.id && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + (int) (id ^ (id >>> 32));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.orm.util;
+
+import java.util.Arrays;
+
+/**
+ * An index declared with {@link com.orm.annotation.Index} or
+ * {@link com.orm.annotation.CompositeIndex}. Sugar names its indexes IDX_&lt;TABLE&gt;_..., any
+ * other index of the table is left alone.
+ */
+public final class IndexInfo {
+    public static final String PREFIX = "IDX_";
+
+    private final String name;
+    private final String table;
+    private final String[] columns;
+    private final String where;
+
+    /**
+     * @param name the name of the index within the table, the columns joined by underscores if empty
+     * @param where the condition of a partial index, empty if it indexes every row
+     */
+    IndexInfo(String table, String name, String[] columns, String where) {
+        StringBuilder fullName = new StringBuilder(prefix(table));
+        if (name.isEmpty()) {
+            for (int i = 0; i < columns.length; i++) {
+                fullName.append((i > 0) ? "_" : "").append(columns[i]);
+            }
+        } else {
+            fullName.append(name);
+        }
+
+        this.name = fullName.toString();
+        this.table = table;
+        this.columns = columns;
+        this.where = where.trim().isEmpty() ? null : where.trim();
+    }
+
+    /**
+     * @return the start of the name of the indexes Sugar manages on the table
+     */
+    public static String prefix(String table) {
+        return PREFIX + table + "_";
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the indexed columns, in order. The returned array must not be modified.
+     */
+    public String[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the condition of the rows indexed, null unless it is a partial index
+     */
+    public String getWhere() {
+        return where;
+    }
+
+    public boolean isPartial() {
+        return where != null;
+    }
+
+    /**
+     * @param partial false to index every row whatever the condition, where SQLite doesn't
+     *                support partial indexes
+     */
+    public String createSQL(boolean partial) {
+        StringBuilder sb = new StringBuilder("CREATE INDEX IF NOT EXISTS ");
+        sb.append(name).append(" ON ").append(table).append(" ( ");
+        for (int i = 0; i < columns.length; i++) {
+            sb.append((i > 0) ? ", " : "").append(columns[i]);
+        }
+        sb.append(" )");
+        if (partial && where != null) {
+            sb.append(" WHERE ").append(where);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return true if the SQL SQLite keeps for an index in sqlite_master creates this one
+     */
+    public boolean isCreatedBy(String sql, boolean partial) {
+        return sql != null && normalize(sql).equals(normalize(createSQL(partial)));
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("(?i)\\s+IF\\s+NOT\\s+EXISTS\\s+", " ")
+                .replaceAll("\\s+", " ")
+                .replaceAll(" ?([(),]) ?", "$1")
+                .trim();
+    }
+
+    @Override
+    public String toString() {
+        return "IndexInfo{" +
+                "name='" + name + '\'' +
+                ", columns=" + Arrays.toString(columns) +
+                ", where='" + where + '\'' +
+                '}';
+    }
+}
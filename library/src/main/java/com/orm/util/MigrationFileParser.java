@@ -1,8 +1,17 @@
 package com.orm.util;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by Nursultan Turdaliev on 12/4/15.
+ *
+ * @deprecated read scripts with {@link SqlScriptReader}, which streams them and handles quoted
+ *             semicolons and trigger bodies
  */
+@Deprecated
 public class MigrationFileParser {
 
     private String content;
@@ -11,11 +20,22 @@ public class MigrationFileParser {
      * @param content
      */
     public MigrationFileParser(String content){
-        this.content = content.replaceAll("(\\/\\*([\\s\\S]*?)\\*\\/)|(--(.)*)|(\n)","");
+        this.content = content;
     }
 
     public String[] getStatements(){
-        return this.content.split(";");
+        List<String> statements = new ArrayList<>();
+        SqlScriptReader reader = new SqlScriptReader(new StringReader(content));
+        try {
+            String statement;
+            while ((statement = reader.nextStatement()) != null) {
+                statements.add(statement);
+            }
+        } catch (IOException e) {
+            // A StringReader doesn't fail
+            throw new IllegalStateException(e);
+        }
+        return statements.toArray(new String[statements.size()]);
     }
 
 }
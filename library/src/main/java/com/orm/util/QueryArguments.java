@@ -0,0 +1,92 @@
+package com.orm.util;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteProgram;
+
+import com.orm.SugarRecord;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Converts the arguments of a query to the values Sugar stores for their Java type, so they are
+ * bound with their SQLite type: integers, booleans, dates and entities as INTEGER, floating point
+ * numbers as REAL, byte arrays as BLOB, null as NULL and everything else, BigDecimal and enums
+ * included, as TEXT.
+ */
+public final class QueryArguments {
+
+    //Prevent instantiation
+    private QueryArguments() { }
+
+    /**
+     * @return the value stored for the argument: a Long, a Double, a byte array, a String or null
+     */
+    public static Object toSqlValue(Object value) {
+        if (value == null || value instanceof String || value instanceof byte[]) {
+            return value;
+        }
+        if (value instanceof SugarRecord) {
+            return ((SugarRecord) value).getId();
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1L : 0L;
+        }
+        if (value instanceof Float || value instanceof Double) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Number && !(value instanceof BigDecimal)) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        }
+        if (value instanceof Enum) {
+            return ((Enum) value).name();
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return the values stored for the arguments, null if there are none
+     */
+    public static Object[] toSqlValues(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+
+        Object[] sqlValues = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            sqlValues[i] = toSqlValue(values[i]);
+        }
+        return sqlValues;
+    }
+
+    /**
+     * Binds values already converted by {@link #toSqlValues(Object[])}, from the first parameter.
+     */
+    public static void bind(SQLiteProgram program, Object[] values) {
+        if (values == null) {
+            return;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            DatabaseUtils.bindObjectToProgram(program, i + 1, values[i]);
+        }
+    }
+
+    /**
+     * @return the arguments as text, the way they were bound before they had a type
+     */
+    public static String[] toStrings(Object[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            strings[i] = String.valueOf(values[i]);
+        }
+        return strings;
+    }
+}
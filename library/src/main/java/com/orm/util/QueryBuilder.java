@@ -1,5 +1,6 @@
 package com.orm.util;
 
+import com.orm.SugarLazy;
 import com.orm.SugarRecord;
 
 import java.lang.RuntimeException;
@@ -8,13 +9,24 @@ import java.math.BigDecimal;
 
 public class QueryBuilder {
 
+    /**
+     * The maximum number of host parameters SQLite accepts in a single statement.
+     */
+    public static final int SQLITE_MAX_VARIABLE_NUMBER = 999;
+
+    /**
+     * The maximum number of SELECT terms SQLite accepts in a compound select.
+     */
+    public static final int SQLITE_MAX_COMPOUND_SELECT = 500;
+
     public static String getColumnType(Class<?> type) {
         if ((type.equals(Boolean.class)) ||
                 (type.equals(Boolean.TYPE)) ||
                 (type.equals(Integer.class)) ||
                 (type.equals(Integer.TYPE)) ||
                 (type.equals(Long.class)) ||
-                (type.equals(Long.TYPE)) || (
+                (type.equals(Long.TYPE)) ||
+                (type.equals(SugarLazy.class)) || (
                 (!type.isPrimitive()) &&
                         (SugarRecord.class.isAssignableFrom(type))))  {
             return "INTEGER";
@@ -43,6 +55,32 @@ public class QueryBuilder {
         return "";
     }
 
+    /**
+     * Builds a query of every column of a table. Null or empty clauses are left out.
+     *
+     * @param limit the LIMIT clause, with its OFFSET if any
+     */
+    public static String select(String table, String where, String groupBy, String orderBy, String limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table);
+        if (!isEmpty(where)) {
+            sql.append(" WHERE ").append(where);
+        }
+        if (!isEmpty(groupBy)) {
+            sql.append(" GROUP BY ").append(groupBy);
+        }
+        if (!isEmpty(orderBy)) {
+            sql.append(" ORDER BY ").append(orderBy);
+        }
+        if (!isEmpty(limit)) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+
+    private static boolean isEmpty(String clause) {
+        return clause == null || clause.isEmpty();
+    }
+
     public static String generatePlaceholders(int numberOfArgs) {
         if (numberOfArgs < 1) {
             throw new RuntimeException("The number of arguments must be greater than or equal to 1.");
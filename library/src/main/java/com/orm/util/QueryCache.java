@@ -0,0 +1,324 @@
+package com.orm.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Results of queries by their SQL and arguments, so running an identical query again doesn't
+ * hit the database until one of the tables it reads has been written.
+ *
+ * Every table has a version, increased by {@link #invalidate(String)} whenever it is written. A
+ * result remembers the versions read before its query ran and is dropped once any of them has
+ * changed, so a write racing with the query only costs the next lookup a miss. Results also
+ * expire after a time to live, and the least recently used ones are evicted past a fixed count.
+ * A cache of size 0 is disabled.
+ *
+ * Cached entities are shared: every hit returns a new list of the same instances, as the
+ * {@link EntityCache} does, so changing an entity without saving it changes what the next hits
+ * return. Saving it invalidates its table. Where clauses with a subquery are never cached, since
+ * the tables it reads aren't known, see {@link #isCacheable(String)}.
+ */
+public final class QueryCache {
+    private static final ConcurrentMap<Class<?>, String[]> TABLES = new ConcurrentHashMap<>();
+    private static final Pattern SUBQUERY = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<String, Long> versions = new HashMap<>();
+    private final LinkedHashMap<String, CachedResult> entries;
+    private long epoch;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maxSize the maximum number of results held, 0 to disable the cache
+     * @param ttlMillis how long a result may be used, 0 for as long as its tables aren't written
+     */
+    public QueryCache(final int maxSize, long ttlMillis) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("maxSize and ttlMillis must not be negative");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1000000L;
+        this.entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Builds the key of a query, ignoring differences in whitespace.
+     *
+     * @param kind what is computed from the rows, such as the entities or their count
+     * @param parts the SQL clauses of the query, null if absent
+     * @param args the arguments of the query, may be null. Strings and other values are told
+     *             apart, as they are bound with a different type
+     */
+    public static String key(String kind, String[] parts, Object[] args) {
+        StringBuilder key = new StringBuilder(kind);
+        for (String part : parts) {
+            key.append('\u0000');
+            if (part != null) {
+                appendNormalized(key, part);
+            }
+        }
+        if (args != null) {
+            for (Object arg : args) {
+                key.append('\u0001');
+                if (arg instanceof String) {
+                    key.append((String) arg);
+                } else if (arg instanceof byte[]) {
+                    key.append('\u0002').append(Arrays.toString((byte[]) arg));
+                } else {
+                    key.append('\u0003').append(arg);
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private static void appendNormalized(StringBuilder key, String sql) {
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && key.length() > 0 && key.charAt(key.length() - 1) != '\u0000') {
+                    key.append(' ');
+                }
+                space = false;
+                key.append(c);
+            }
+        }
+    }
+
+    /**
+     * @param whereClause the where clause of a query, may be null
+     * @return false if the clause has a subquery, which may read tables other than those
+     *         {@link #tablesOf(Class)} knows of, so writes to them wouldn't invalidate the result
+     */
+    public static boolean isCacheable(String whereClause) {
+        return whereClause == null || !SUBQUERY.matcher(whereClause).find();
+    }
+
+    /**
+     * @return the tables read when loading entities of the class: its own and those of its
+     *         relationships, which are loaded along with it
+     */
+    public static String[] tablesOf(Class<?> type) {
+        String[] tables = TABLES.get(type);
+        if (tables == null) {
+            Set<String> names = new LinkedHashSet<>();
+            addTables(type, names);
+            tables = names.toArray(new String[names.size()]);
+            TABLES.putIfAbsent(type, tables);
+        }
+        return tables;
+    }
+
+    private static void addTables(Class<?> type, Set<String> names) {
+        TableInfo table = TableInfo.get(type);
+        if (!names.add(table.getName())) {
+            return;
+        }
+
+        for (ColumnInfo relation : table.getRelations()) {
+            if (relation.getConverter() == ColumnInfo.Converter.RELATION && relation.getRelatedType() != null) {
+                addTables(relation.getRelatedType(), names);
+            }
+        }
+    }
+
+    /**
+     * @return the cached result, null if there is none or it is no longer valid
+     */
+    public Object get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        synchronized (this) {
+            CachedResult entry = entries.get(key);
+            if (entry == null || !isValid(entry)) {
+                if (entry != null) {
+                    entries.remove(key);
+                }
+                missCount++;
+                return null;
+            }
+
+            hitCount++;
+            return entry.value;
+        }
+    }
+
+    /**
+     * Reads the versions of the tables of a query. Must be called before running it, the result
+     * is then cached with {@link #put(String, Snapshot, Object)}.
+     */
+    public synchronized Snapshot snapshot(String[] tables) {
+        long[] tableVersions = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            tableVersions[i] = versionOf(tables[i]);
+        }
+        return new Snapshot(tables, tableVersions, epoch);
+    }
+
+    public void put(String key, Snapshot snapshot, Object value) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+
+        CachedResult entry = new CachedResult(value, snapshot, System.nanoTime());
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Drops the results read from the table. Called after every write to it.
+     */
+    public void invalidate(String table) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (this) {
+            versions.put(table, versionOf(table) + 1);
+        }
+    }
+
+    /**
+     * Drops every result, for writes whose tables aren't known.
+     */
+    public void invalidateAll() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (this) {
+            epoch++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of results held, some of which may no longer be valid
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the share of lookups that found a valid result, 0 if there hasn't been any
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return (lookups > 0) ? (double) hitCount / lookups : 0;
+    }
+
+    /**
+     * @return the number of results evicted to keep the cache within its size
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    private boolean isValid(CachedResult entry) {
+        if (entry.snapshot.epoch != epoch) {
+            return false;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - entry.createdAt > ttlNanos) {
+            return false;
+        }
+
+        String[] tables = entry.snapshot.tables;
+        for (int i = 0; i < tables.length; i++) {
+            if (entry.snapshot.versions[i] != versionOf(tables[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long versionOf(String table) {
+        Long version = versions.get(table);
+        return (version != null) ? version : 0L;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryCache{" +
+                "size=" + entries.size() +
+                ", maxSize=" + maxSize +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+
+    /**
+     * The versions of the tables of a query, read before it ran.
+     */
+    public static final class Snapshot {
+        private final String[] tables;
+        private final long[] versions;
+        private final long epoch;
+
+        Snapshot(String[] tables, long[] versions, long epoch) {
+            this.tables = tables;
+            this.versions = versions;
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class CachedResult {
+        final Object value;
+        final Snapshot snapshot;
+        final long createdAt;
+
+        CachedResult(Object value, Snapshot snapshot, long createdAt) {
+            this.value = value;
+            this.snapshot = snapshot;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -3,19 +3,23 @@ package com.orm.util;
 import android.content.ContentValues;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteProgram;
 import android.util.Log;
 
+import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
+import com.orm.SugarLazy;
 import com.orm.SugarRecord;
 import com.orm.annotation.Ignore;
 import com.orm.annotation.Table;
 import com.orm.helper.ManifestHelper;
 import com.orm.helper.MultiDexHelper;
-import com.orm.helper.NamingHelper;
+import com.orm.mapper.EntityIndex;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.net.URL;
@@ -67,82 +71,75 @@ public final class ReflectionUtil {
 
     public static void addFieldValueToColumn(ContentValues values, Field column, Object object,
                                              Map<Object, Long> entitiesMap) {
-        column.setAccessible(true);
-        Class<?> columnType = column.getType();
+        addFieldValueToColumn(values, new ColumnInfo(column), object, entitiesMap);
+    }
+
+    public static void addFieldValueToColumn(ContentValues values, ColumnInfo column, Object object,
+                                             Map<Object, Long> entitiesMap) {
+        String columnName = column.getName();
         try {
-            String columnName = NamingHelper.toColumnName(column);
             Object columnValue = column.get(object);
 
-            if (columnType.isAnnotationPresent(Table.class)) {
-                Field field;
-                try {
-                    field = columnType.getDeclaredField("id");
-                    field.setAccessible(true);
-                    values.put(columnName,
-                            (field != null)
-                                    ? String.valueOf(field.get(columnValue)) : "0");
-                } catch (NoSuchFieldException e) {
-                    if (entitiesMap.containsKey(columnValue)) {
-                        values.put(columnName, entitiesMap.get(columnValue));
-                    }
-                }
-            } else if (SugarRecord.class.isAssignableFrom(columnType)) {
-                values.put(columnName,
-                        (columnValue != null)
-                                ? String.valueOf(((SugarRecord) columnValue).getId())
-                                : "0");
-            } else {
-                if (columnType.equals(Short.class) || columnType.equals(short.class)) {
+            switch (column.getConverter()) {
+                case RELATION:
+                    addRelationValueToColumn(values, columnName, column.getType(), columnValue, entitiesMap);
+                    break;
+                case LAZY:
+                    addLazyValueToColumn(values, columnName, (SugarLazy<?>) columnValue, entitiesMap);
+                    break;
+                case SHORT:
                     values.put(columnName, (Short) columnValue);
-                } else if (columnType.equals(Integer.class) || columnType.equals(int.class)) {
+                    break;
+                case INTEGER:
                     values.put(columnName, (Integer) columnValue);
-                } else if (columnType.equals(Long.class) || columnType.equals(long.class)) {
+                    break;
+                case LONG:
                     values.put(columnName, (Long) columnValue);
-                } else if (columnType.equals(Float.class) || columnType.equals(float.class)) {
+                    break;
+                case FLOAT:
                     values.put(columnName, (Float) columnValue);
-                } else if (columnType.equals(Double.class) || columnType.equals(double.class)) {
+                    break;
+                case DOUBLE:
                     values.put(columnName, (Double) columnValue);
-                } else if (columnType.equals(Boolean.class) || columnType.equals(boolean.class)) {
+                    break;
+                case BOOLEAN:
                     values.put(columnName, (Boolean) columnValue);
-                } else if (columnType.equals(BigDecimal.class)) {
-                    try {
-                        values.put(columnName, column.get(object).toString());
-                    } catch (NullPointerException e) {
+                    break;
+                case BIG_DECIMAL:
+                    if (columnValue == null) {
                         values.putNull(columnName);
+                    } else {
+                        values.put(columnName, columnValue.toString());
                     }
-                } else if (Timestamp.class.equals(columnType)) {
-                    try {
-                        values.put(columnName, ((Timestamp) column.get(object)).getTime());
-                    } catch (NullPointerException e) {
-                        values.put(columnName, (Long) null);
-                    }
-                } else if (Date.class.equals(columnType)) {
-                    try {
-                        values.put(columnName, ((Date) column.get(object)).getTime());
-                    } catch (NullPointerException e) {
-                        values.put(columnName, (Long) null);
-                    }
-                } else if (Calendar.class.equals(columnType)) {
-                    try {
-                        values.put(columnName, ((Calendar) column.get(object)).getTimeInMillis());
-                    } catch (NullPointerException e) {
-                        values.put(columnName, (Long) null);
-                    }
-                } else if (columnType.equals(byte[].class)) {
+                    break;
+                case TIMESTAMP:
+                case DATE:
+                    values.put(columnName, (columnValue == null) ? null : ((Date) columnValue).getTime());
+                    break;
+                case CALENDAR:
+                    values.put(columnName, (columnValue == null) ? null : ((Calendar) columnValue).getTimeInMillis());
+                    break;
+                case BLOB:
                     if (columnValue == null) {
                         values.put(columnName, "".getBytes());
                     } else {
                         values.put(columnName, (byte[]) columnValue);
                     }
-                } else {
+                    break;
+                case ENUM:
                     if (columnValue == null) {
                         values.putNull(columnName);
-                    } else if (columnType.isEnum()) {
+                    } else {
                         values.put(columnName, ((Enum) columnValue).name());
+                    }
+                    break;
+                default:
+                    if (columnValue == null) {
+                        values.putNull(columnName);
                     } else {
                         values.put(columnName, String.valueOf(columnValue));
                     }
-                }
+                    break;
             }
 
         } catch (IllegalAccessException e) {
@@ -152,13 +149,121 @@ public final class ReflectionUtil {
         }
     }
 
+    public static void addRelationValueToColumn(ContentValues values, String columnName, Class<?> columnType,
+                                                Object columnValue, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        Object relationValue = toRelationValue(columnType, columnValue, entitiesMap);
+        if (relationValue instanceof Long) {
+            values.put(columnName, (Long) relationValue);
+        } else if (relationValue != null) {
+            values.put(columnName, (String) relationValue);
+        }
+    }
+
+    public static void addLazyValueToColumn(ContentValues values, String columnName, SugarLazy<?> columnValue,
+                                            Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        if (columnValue == null) {
+            values.putNull(columnName);
+        } else if (columnValue.isLoaded()) {
+            Object entity = columnValue.get();
+            if (entity == null) {
+                values.putNull(columnName);
+            } else {
+                addRelationValueToColumn(values, columnName, entity.getClass(), entity, entitiesMap);
+            }
+        } else {
+            values.put(columnName, columnValue.getId());
+        }
+    }
+
+    /**
+     * Binds the value of the column to a compiled statement, converted the same way as
+     * {@link #addFieldValueToColumn(ContentValues, ColumnInfo, Object, Map)} does.
+     *
+     * @param statement the statement to bind to
+     * @param index the 1-based index of the parameter
+     */
+    public static void bindFieldValue(SQLiteProgram statement, int index, ColumnInfo column, Object object,
+                                      Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        DatabaseUtils.bindObjectToProgram(statement, index, toColumnValue(column, object, entitiesMap));
+    }
+
+    /**
+     * @return the value stored in the column for the field of the entity, as
+     *         {@link #bindFieldValue(SQLiteProgram, int, ColumnInfo, Object, Map)} binds it
+     */
+    public static Object getColumnValue(ColumnInfo column, Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        return toColumnValue(column, object, entitiesMap);
+    }
+
+    private static Object toColumnValue(ColumnInfo column, Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        Object columnValue = column.get(object);
+
+        switch (column.getConverter()) {
+            case RELATION:
+                return toRelationValue(column.getType(), columnValue, entitiesMap);
+            case LAZY:
+                return toLazyValue((SugarLazy<?>) columnValue, entitiesMap);
+            case SHORT:
+            case INTEGER:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case BOOLEAN:
+                return columnValue;
+            case TIMESTAMP:
+            case DATE:
+                return (columnValue == null) ? null : ((Date) columnValue).getTime();
+            case CALENDAR:
+                return (columnValue == null) ? null : ((Calendar) columnValue).getTimeInMillis();
+            case BLOB:
+                return (columnValue == null) ? "".getBytes() : columnValue;
+            case ENUM:
+                return (columnValue == null) ? null : ((Enum) columnValue).name();
+            default:
+                return (columnValue == null) ? null : String.valueOf(columnValue);
+        }
+    }
+
+    private static Object toRelationValue(Class<?> columnType, Object columnValue,
+                                          Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        if (columnType.isAnnotationPresent(Table.class)) {
+            ColumnInfo idColumn = TableInfo.get(columnType).getIdColumn();
+            if (idColumn != null) {
+                return String.valueOf(idColumn.get(columnValue));
+            } else if (entitiesMap.containsKey(columnValue)) {
+                return entitiesMap.get(columnValue);
+            }
+        } else if (SugarRecord.class.isAssignableFrom(columnType)) {
+            return (columnValue != null) ? String.valueOf(((SugarRecord) columnValue).getId()) : "0";
+        }
+        return null;
+    }
+
+    private static Object toLazyValue(SugarLazy<?> columnValue, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+        if (columnValue == null) {
+            return null;
+        } else if (columnValue.isLoaded()) {
+            Object entity = columnValue.get();
+            return (entity == null) ? null : toRelationValue(entity.getClass(), entity, entitiesMap);
+        }
+        return columnValue.getId();
+    }
+
     public static void setFieldValueFromCursor(Cursor cursor, Field field, Object object) {
-        field.setAccessible(true);
-        try {
-            Class fieldType = field.getType();
-            String colName = NamingHelper.toColumnName(field);
+        setFieldValueFromCursor(cursor, new ColumnInfo(field), object);
+    }
 
-            int columnIndex = cursor.getColumnIndex(colName);
+    public static void setFieldValueFromCursor(Cursor cursor, ColumnInfo column, Object object) {
+        setFieldValueFromCursor(cursor, cursor.getColumnIndex(column.getName()), column, object);
+    }
+
+    /**
+     * Same as {@link #setFieldValueFromCursor(Cursor, ColumnInfo, Object)} with the column index
+     * already resolved, see {@link CursorProjection}.
+     */
+    public static void setFieldValueFromCursor(Cursor cursor, int columnIndex, ColumnInfo column, Object object) {
+        try {
+            String colName = column.getName();
 
             //TODO auto upgrade to add new columns
             if (columnIndex < 0) {
@@ -174,64 +279,66 @@ public final class ReflectionUtil {
 
             if (colName.equalsIgnoreCase("id")) {
                 long cid = cursor.getLong(columnIndex);
-                field.set(object, cid);
-            } else if (fieldType.equals(long.class) || fieldType.equals(Long.class)) {
-                field.set(object,
-                        cursor.getLong(columnIndex));
-            } else if (fieldType.equals(String.class)) {
-                String val = cursor.getString(columnIndex);
-                field.set(object, val != null && val.equals("null") ? null : val);
-            } else if (fieldType.equals(double.class) || fieldType.equals(Double.class)) {
-                field.set(object,
-                        cursor.getDouble(columnIndex));
-            } else if (fieldType.equals(boolean.class) || fieldType.equals(Boolean.class)) {
-                field.set(object,
-                        cursor.getString(columnIndex).equals("1"));
-            } else if (fieldType.equals(int.class) || fieldType.equals(Integer.class)) {
-                field.set(object,
-                        cursor.getInt(columnIndex));
-            } else if (fieldType.equals(float.class) || fieldType.equals(Float.class)) {
-                field.set(object,
-                        cursor.getFloat(columnIndex));
-            } else if (fieldType.equals(short.class) || fieldType.equals(Short.class)) {
-                field.set(object,
-                        cursor.getShort(columnIndex));
-            } else if (fieldType.equals(BigDecimal.class)) {
-                String val = cursor.getString(columnIndex);
-                field.set(object, val != null && val.equals("null") ? null : new BigDecimal(val));
-            } else if (fieldType.equals(Timestamp.class)) {
-                long l = cursor.getLong(columnIndex);
-                field.set(object, new Timestamp(l));
-            } else if (fieldType.equals(Date.class)) {
-                long l = cursor.getLong(columnIndex);
-                field.set(object, new Date(l));
-            } else if (fieldType.equals(Calendar.class)) {
-                long l = cursor.getLong(columnIndex);
-                Calendar c = Calendar.getInstance();
-                c.setTimeInMillis(l);
-                field.set(object, c);
-            } else if (fieldType.equals(byte[].class)) {
-                byte[] bytes = cursor.getBlob(columnIndex);
-                if (bytes == null) {
-                    field.set(object, "".getBytes());
-                } else {
-                    field.set(object, cursor.getBlob(columnIndex));
-                }
-            } else if (Enum.class.isAssignableFrom(fieldType)) {
-                try {
-                    Method valueOf = field.getType().getMethod("valueOf", String.class);
-                    String strVal = cursor.getString(columnIndex);
-                    Object enumVal = valueOf.invoke(field.getType(), strVal);
-                    field.set(object, enumVal);
-                } catch (Exception e) {
+                column.set(object, cid);
+                return;
+            }
+
+            switch (column.getConverter()) {
+                case LONG:
+                    column.set(object, cursor.getLong(columnIndex));
+                    break;
+                case STRING:
+                    String val = cursor.getString(columnIndex);
+                    column.set(object, val != null && val.equals("null") ? null : val);
+                    break;
+                case DOUBLE:
+                    column.set(object, cursor.getDouble(columnIndex));
+                    break;
+                case BOOLEAN:
+                    column.set(object, cursor.getString(columnIndex).equals("1"));
+                    break;
+                case INTEGER:
+                    column.set(object, cursor.getInt(columnIndex));
+                    break;
+                case FLOAT:
+                    column.set(object, cursor.getFloat(columnIndex));
+                    break;
+                case SHORT:
+                    column.set(object, cursor.getShort(columnIndex));
+                    break;
+                case BIG_DECIMAL:
+                    String decimal = cursor.getString(columnIndex);
+                    column.set(object, decimal != null && decimal.equals("null") ? null : new BigDecimal(decimal));
+                    break;
+                case TIMESTAMP:
+                    column.set(object, new Timestamp(cursor.getLong(columnIndex)));
+                    break;
+                case DATE:
+                    column.set(object, new Date(cursor.getLong(columnIndex)));
+                    break;
+                case CALENDAR:
+                    Calendar c = Calendar.getInstance();
+                    c.setTimeInMillis(cursor.getLong(columnIndex));
+                    column.set(object, c);
+                    break;
+                case BLOB:
+                    byte[] bytes = cursor.getBlob(columnIndex);
+                    column.set(object, (bytes == null) ? "".getBytes() : bytes);
+                    break;
+                case ENUM:
+                    try {
+                        column.set(object, toEnum(column.getType(), cursor.getString(columnIndex)));
+                    } catch (Exception e) {
+                        if (ManifestHelper.isDebugEnabled()) {
+                            Log.e("Sugar", "Enum cannot be read from Sqlite3 database. Please check the type of field " + column.getFieldName());
+                        }
+                    }
+                    break;
+                default:
                     if (ManifestHelper.isDebugEnabled()) {
-                        Log.e("Sugar", "Enum cannot be read from Sqlite3 database. Please check the type of field " + field.getName());
+                        Log.e("Sugar", "Class cannot be read from Sqlite3 database. Please check the type of field " + column.getFieldName() + "(" + column.getType().getName() + ")");
                     }
-                }
-            } else {
-                if (ManifestHelper.isDebugEnabled()) {
-                    Log.e("Sugar", "Class cannot be read from Sqlite3 database. Please check the type of field " + field.getName() + "(" + field.getType().getName() + ")");
-                }
+                    break;
             }
         } catch (IllegalArgumentException | IllegalAccessException e) {
             if (ManifestHelper.isDebugEnabled()) {
@@ -240,6 +347,11 @@ public final class ReflectionUtil {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static Object toEnum(Class<?> type, String name) {
+        return Enum.valueOf((Class<Enum>) type, name);
+    }
+
     private static Field getDeepField(String fieldName, Class<?> type) throws NoSuchFieldException {
         try {
             return type.getDeclaredField(fieldName);
@@ -263,8 +375,23 @@ public final class ReflectionUtil {
         }
     }
 
+    /**
+     * @return the entity classes registered with {@link SugarDbConfiguration#setEntityClasses} or,
+     *         when there are none, those of the domain package listed by the generated
+     *         {@link EntityIndex} or found by scanning the application's classes
+     */
     public static List<Class> getDomainClasses() {
-        List<Class> domainClasses = new ArrayList<>();
+        SugarDbConfiguration configuration = SugarContext.getDbConfiguration();
+        if (configuration != null && configuration.getEntityClasses() != null) {
+            return new ArrayList<Class>(configuration.getEntityClasses());
+        }
+
+        List<Class> domainClasses = getIndexedClasses(EntityIndex.CLASS_NAME);
+        if (domainClasses != null) {
+            return domainClasses;
+        }
+
+        domainClasses = new ArrayList<>();
         try {
             for (String className : getAllClasses()) {
                 Class domainClass = getDomainClass(className);
@@ -279,6 +406,43 @@ public final class ReflectionUtil {
         return domainClasses;
     }
 
+    /**
+     * Loads the classes of the domain package listed by an index, without initializing them.
+     *
+     * @param indexClassName the name of the {@link EntityIndex} implementation
+     * @return the indexed classes or null if there is no such index
+     */
+    static List<Class> getIndexedClasses(String indexClassName) {
+        ClassLoader classLoader = ReflectionUtil.class.getClassLoader();
+        EntityIndex index;
+        try {
+            index = (EntityIndex) Class.forName(indexClassName, true, classLoader).newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.e("Sugar", "Couldn't instantiate entity index " + indexClassName, e);
+            }
+            return null;
+        }
+
+        String packageName = ManifestHelper.getDomainPackageName();
+        List<Class> domainClasses = new ArrayList<>();
+        for (String className : index.getEntityClassNames()) {
+            if (!className.startsWith(packageName)) {
+                continue;
+            }
+
+            try {
+                domainClasses.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                if (ManifestHelper.isDebugEnabled()) {
+                    Log.e("Sugar", "indexed domain class " + className + " not found");
+                }
+            }
+        }
+        return domainClasses;
+    }
 
     private static Class getDomainClass(String className) {
         Class<?> discoveredClass = null;
@@ -291,11 +455,7 @@ public final class ReflectionUtil {
             }
         }
 
-        if ((discoveredClass != null) &&
-                ((SugarRecord.class.isAssignableFrom(discoveredClass) &&
-                        !SugarRecord.class.equals(discoveredClass)) ||
-                        discoveredClass.isAnnotationPresent(Table.class)) &&
-                !Modifier.isAbstract(discoveredClass.getModifiers())) {
+        if (discoveredClass != null && isDomainClass(discoveredClass)) {
 
             if (ManifestHelper.isDebugEnabled()) {
                 Log.i("Sugar", "domain class : " + discoveredClass.getSimpleName());
@@ -308,6 +468,15 @@ public final class ReflectionUtil {
     }
 
 
+    /**
+     * @return true if the class is a concrete {@link Table} annotated class or {@link SugarRecord} subclass
+     */
+    public static boolean isDomainClass(Class<?> type) {
+        return ((SugarRecord.class.isAssignableFrom(type) && !SugarRecord.class.equals(type))
+                || type.isAnnotationPresent(Table.class))
+                && !Modifier.isAbstract(type.getModifiers());
+    }
+
     private static List<String> getAllClasses() throws PackageManager.NameNotFoundException, IOException {
         String packageName = ManifestHelper.getDomainPackageName();
         List<String> classNames = new ArrayList<>();
@@ -0,0 +1,197 @@
+package com.orm.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the statements of a SQL script one at a time, so a script of any size can be executed
+ * while only holding its current statement in memory.
+ *
+ * Comments are dropped, semicolons and comment markers inside quoted strings and identifiers are
+ * kept, and the semicolons separating the statements of a trigger body, between its BEGIN and END,
+ * don't end the CREATE TRIGGER statement. Statements are returned trimmed, without their closing
+ * semicolon, and empty ones are skipped.
+ */
+public final class SqlScriptReader implements Closeable {
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder statement = new StringBuilder();
+    private final StringBuilder word = new StringBuilder();
+    private int position;
+    private int limit;
+
+    // State of the statement being read
+    private int wordCount;
+    private boolean create;
+    private boolean temporary;
+    private boolean trigger;
+    private int depth;
+
+    public SqlScriptReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next statement, null once the script is over
+     */
+    public String nextStatement() throws IOException {
+        reset();
+
+        int c;
+        while ((c = read()) != EOF) {
+            char ch = (char) c;
+            if (ch == '-' && peek() == '-') {
+                skipLineComment();
+            } else if (ch == '/' && peek() == '*') {
+                skipBlockComment();
+            } else if (ch == '\'' || ch == '"' || ch == '`') {
+                readQuoted(ch, ch);
+            } else if (ch == '[') {
+                readQuoted(ch, ']');
+            } else if (isWordPart(ch)) {
+                readWord(ch);
+            } else if (ch == ';' && depth == 0) {
+                String result = statement.toString().trim();
+                if (!result.isEmpty()) {
+                    return result;
+                }
+                reset();
+            } else {
+                statement.append(ch);
+            }
+        }
+
+        String result = statement.toString().trim();
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void reset() {
+        statement.setLength(0);
+        wordCount = 0;
+        create = false;
+        temporary = false;
+        trigger = false;
+        depth = 0;
+    }
+
+    private void skipLineComment() throws IOException {
+        int c;
+        while ((c = peek()) != EOF && c != '\n') {
+            read();
+        }
+        separate();
+    }
+
+    private void skipBlockComment() throws IOException {
+        read();
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == '*' && peek() == '/') {
+                read();
+                break;
+            }
+        }
+        separate();
+    }
+
+    /**
+     * Keeps the tokens around a comment apart.
+     */
+    private void separate() {
+        int length = statement.length();
+        if (length > 0 && !Character.isWhitespace(statement.charAt(length - 1))) {
+            statement.append(' ');
+        }
+    }
+
+    /**
+     * Reads a string or quoted identifier, in which a doubled closing quote stands for itself.
+     */
+    private void readQuoted(char open, char close) throws IOException {
+        statement.append(open);
+        int c;
+        while ((c = read()) != EOF) {
+            statement.append((char) c);
+            if (c == close) {
+                if (open != close || peek() != close) {
+                    return;
+                }
+                statement.append((char) read());
+            }
+        }
+    }
+
+    private void readWord(char first) throws IOException {
+        word.setLength(0);
+        word.append(first);
+        int c;
+        while ((c = peek()) != EOF && isWordPart((char) c)) {
+            word.append((char) read());
+        }
+        statement.append(word);
+        onWord(word.toString());
+    }
+
+    /**
+     * Recognizes CREATE [TEMP | TEMPORARY] TRIGGER and tracks the BEGIN and CASE blocks of its body,
+     * all closed by END.
+     */
+    private void onWord(String word) {
+        wordCount++;
+        if (trigger) {
+            if (word.equalsIgnoreCase("BEGIN") || word.equalsIgnoreCase("CASE")) {
+                depth++;
+            } else if (word.equalsIgnoreCase("END") && depth > 0) {
+                depth--;
+            }
+        } else if (wordCount == 1) {
+            create = word.equalsIgnoreCase("CREATE");
+        } else if (create && (wordCount == 2 || (wordCount == 3 && temporary))) {
+            if (wordCount == 2 && (word.equalsIgnoreCase("TEMP") || word.equalsIgnoreCase("TEMPORARY"))) {
+                temporary = true;
+            } else {
+                trigger = word.equalsIgnoreCase("TRIGGER");
+            }
+        }
+    }
+
+    private static boolean isWordPart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$';
+    }
+
+    private int read() throws IOException {
+        if (!fill()) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (!fill()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+}
@@ -0,0 +1,252 @@
+package com.orm.util;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The compiled INSERT OR REPLACE and DELETE by id statements of each table, for a single
+ * connection. A statement is compiled the first time it is needed and then only rebound,
+ * so saving or deleting entities one by one doesn't build and parse the same SQL again.
+ *
+ * Statements are tied to the schema and to the connection they were compiled on, the cache must
+ * be cleared when either changes, see {@link #clear()}.
+ */
+public final class StatementCache {
+    private final SQLiteDatabase database;
+    private final ConcurrentMap<Class<?>, TableStatements> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param database the connection statements are compiled on
+     */
+    public StatementCache(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * @param db a connection
+     * @return true if statements of this cache can be executed on the given connection
+     */
+    public boolean isFor(SQLiteDatabase db) {
+        return database == db;
+    }
+
+    /**
+     * @param type the class stored in the table
+     * @return the statements of the table, compiled on first use
+     */
+    public TableStatements get(Class<?> type) {
+        TableStatements statements = tables.get(type);
+        if (statements == null) {
+            TableStatements created = new TableStatements(database, TableInfo.get(type));
+            statements = tables.putIfAbsent(type, created);
+            if (statements == null) {
+                statements = created;
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @return the number of tables statements have been requested for
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * Closes every compiled statement. Statements are compiled again on their next use.
+     */
+    public void clear() {
+        for (TableStatements statements : tables.values()) {
+            statements.close();
+        }
+        tables.clear();
+    }
+
+    /**
+     * The statements of one table. Columns are bound by index in the order of
+     * {@link TableInfo#getColumns()}, the id column coming first.
+     * A statement is used by one thread at a time.
+     */
+    public static final class TableStatements {
+        private final SQLiteDatabase database;
+        private final String tableName;
+        private final List<ColumnInfo> columns;
+        private SQLiteStatement insert;
+        private SQLiteStatement delete;
+        private boolean closed;
+
+        TableStatements(SQLiteDatabase database, TableInfo table) {
+            this.database = database;
+            this.tableName = table.getName();
+            this.columns = new ArrayList<>();
+            for (ColumnInfo column : table.getColumns()) {
+                if (!column.getName().equalsIgnoreCase("id")) {
+                    columns.add(column);
+                }
+            }
+        }
+
+        /**
+         * Inserts or replaces the row of the entity, reading its fields.
+         *
+         * @param id the id of the row, null to let SQLite assign one
+         * @return the id of the row
+         */
+        public synchronized long insert(Object object, Long id, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            SQLiteStatement statement = getInsert();
+            try {
+                bindRow(statement, 0, object, id, entitiesMap);
+                return statement.executeInsert();
+            } finally {
+                statement.clearBindings();
+            }
+        }
+
+        /**
+         * Inserts or replaces a row from values already converted, as bound by an
+         * {@link com.orm.mapper.EntityMapper}. Missing columns are set to null.
+         *
+         * @param id the id of the row, null to let SQLite assign one
+         * @return the id of the row
+         */
+        public synchronized long insert(ContentValues values, Long id) {
+            SQLiteStatement statement = getInsert();
+            try {
+                bindRow(statement, 0, values, id);
+                return statement.executeInsert();
+            } finally {
+                statement.clearBindings();
+            }
+        }
+
+        /**
+         * @return the columns bound for each inserted row after the id, in order
+         */
+        public List<ColumnInfo> getInsertColumns() {
+            return Collections.unmodifiableList(columns);
+        }
+
+        /**
+         * @return the number of parameters bound for each inserted row, the id included
+         */
+        public int getInsertParameterCount() {
+            return columns.size() + 1;
+        }
+
+        /**
+         * Compiles an INSERT OR REPLACE of several rows in a single statement, each row bound with
+         * {@link #bindRow(SQLiteStatement, int, Object, Long, Map)}. The statement isn't cached, the
+         * caller closes it.
+         *
+         * @param rows the number of rows inserted by the statement, at most
+         *             {@link QueryBuilder#SQLITE_MAX_COMPOUND_SELECT}
+         */
+        public SQLiteStatement compileInsert(int rows) {
+            return compile(insertSql(rows));
+        }
+
+        /**
+         * Binds a row of an insert statement, reading the fields of the entity.
+         *
+         * @param row the position of the row in the statement, from 0
+         * @param id the id of the row, null to let SQLite assign one
+         */
+        public void bindRow(SQLiteStatement statement, int row, Object object, Long id,
+                            Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            int offset = row * getInsertParameterCount();
+            DatabaseUtils.bindObjectToProgram(statement, offset + 1, id);
+            for (int i = 0; i < columns.size(); i++) {
+                ReflectionUtil.bindFieldValue(statement, offset + i + 2, columns.get(i), object, entitiesMap);
+            }
+        }
+
+        /**
+         * Binds a row of an insert statement from values already converted.
+         *
+         * @param row the position of the row in the statement, from 0
+         * @param id the id of the row, null to let SQLite assign one
+         */
+        public void bindRow(SQLiteStatement statement, int row, ContentValues values, Long id) {
+            int offset = row * getInsertParameterCount();
+            DatabaseUtils.bindObjectToProgram(statement, offset + 1, id);
+            for (int i = 0; i < columns.size(); i++) {
+                DatabaseUtils.bindObjectToProgram(statement, offset + i + 2, values.get(columns.get(i).getName()));
+            }
+        }
+
+        /**
+         * Deletes the row with the given id. Requires API 11.
+         *
+         * @return the number of rows deleted
+         */
+        public synchronized int delete(long id) {
+            SQLiteStatement statement = getDelete();
+            try {
+                statement.bindLong(1, id);
+                return statement.executeUpdateDelete();
+            } finally {
+                statement.clearBindings();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            for (SQLiteStatement statement : new SQLiteStatement[]{insert, delete}) {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+            insert = null;
+            delete = null;
+        }
+
+        private SQLiteStatement getInsert() {
+            if (insert == null) {
+                insert = compile(insertSql(1));
+            }
+            return insert;
+        }
+
+        private String insertSql(int rows) {
+            StringBuilder sql = new StringBuilder("INSERT OR REPLACE INTO ").append(tableName).append(" (ID");
+            for (ColumnInfo column : columns) {
+                sql.append(", ").append(column.getName());
+            }
+            String placeholders = QueryBuilder.generatePlaceholders(getInsertParameterCount());
+            if (rows == 1) {
+                return sql.append(") VALUES (").append(placeholders).append(")").toString();
+            }
+
+            // SELECT ... UNION ALL rather than multi-row VALUES, which needs SQLite 3.7.11
+            sql.append(")");
+            for (int i = 0; i < rows; i++) {
+                sql.append((i == 0) ? " SELECT " : " UNION ALL SELECT ").append(placeholders);
+            }
+            return sql.toString();
+        }
+
+        private SQLiteStatement getDelete() {
+            if (delete == null) {
+                delete = compile("DELETE FROM " + tableName + " WHERE ID = ?");
+            }
+            return delete;
+        }
+
+        private SQLiteStatement compile(String sql) {
+            if (closed) {
+                throw new IllegalStateException("Statements of " + tableName + " have been cleared");
+            }
+            return database.compileStatement(sql);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import android.util.Log;
 public class SugarCursorFactory implements SQLiteDatabase.CursorFactory {
 
     private boolean debugEnabled;
+    private Object[] arguments;
 
     public SugarCursorFactory() {
         this.debugEnabled = false;
@@ -19,12 +20,25 @@ public class SugarCursorFactory implements SQLiteDatabase.CursorFactory {
         this.debugEnabled = debugEnabled;
     }
 
+    /**
+     * A factory binding the arguments of its query with their own type, rather than as the
+     * strings {@link SQLiteDatabase#rawQuery(String, String[])} takes.
+     *
+     * @param arguments the values converted by {@link QueryArguments#toSqlValues(Object[])}
+     */
+    public SugarCursorFactory(boolean debugEnabled, Object[] arguments) {
+        this.debugEnabled = debugEnabled;
+        this.arguments = arguments;
+    }
+
     @SuppressWarnings("deprecation")
     public Cursor newCursor(SQLiteDatabase sqLiteDatabase,
             SQLiteCursorDriver sqLiteCursorDriver,
             String editTable,
             SQLiteQuery sqLiteQuery) {
 
+        QueryArguments.bind(sqLiteQuery, arguments);
+
         if (debugEnabled) {
             Log.d("SQL Log", sqLiteQuery.toString());
         }
@@ -0,0 +1,217 @@
+package com.orm.util;
+
+import com.orm.SugarRecord;
+import com.orm.annotation.CompositeIndex;
+import com.orm.annotation.Index;
+import com.orm.annotation.Indices;
+import com.orm.annotation.MultiUnique;
+import com.orm.annotation.Table;
+import com.orm.helper.NamingHelper;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The table a class is stored in and its columns. It is built the first time a class is used and
+ * shared by the schema generator, the record operations and the query builder afterwards.
+ */
+public final class TableInfo {
+    private static final Map<Class<?>, TableInfo> TABLES = new ConcurrentHashMap<>();
+
+    private final Class<?> type;
+    private final String name;
+    private final boolean annotated;
+    private final boolean sugarRecord;
+    private final List<ColumnInfo> columns;
+    private final String[] columnNames;
+    private final List<ColumnInfo> uniqueKeys;
+    private final List<ColumnInfo> relations;
+    private final String[] relationNames;
+    private final ColumnInfo idColumn;
+    private final List<IndexInfo> indexes;
+    private final boolean uniqueConstraints;
+
+    private TableInfo(Class<?> type) {
+        List<Field> fields = ReflectionUtil.getTableFields(type);
+        List<ColumnInfo> columns = new ArrayList<>(fields.size());
+        String[] columnNames = new String[fields.size()];
+        List<ColumnInfo> uniqueKeys = new ArrayList<>();
+        List<ColumnInfo> relations = new ArrayList<>();
+        ColumnInfo idColumn = null;
+        String name = NamingHelper.toTableName(type);
+        List<IndexInfo> indexes = new ArrayList<>();
+        boolean uniqueConstraints = type.isAnnotationPresent(MultiUnique.class);
+
+        for (Field field : fields) {
+            ColumnInfo column = new ColumnInfo(field);
+            columnNames[columns.size()] = column.getName();
+            columns.add(column);
+
+            if (column.isUniqueKey()) {
+                uniqueKeys.add(column);
+            }
+            if (column.isUnique() || column.isUniqueKey()) {
+                uniqueConstraints = true;
+            }
+            if (column.isRelation()) {
+                relations.add(column);
+            }
+            if (column.isId() && idColumn == null) {
+                idColumn = column;
+            }
+            if (field.isAnnotationPresent(Index.class)) {
+                Index index = field.getAnnotation(Index.class);
+                indexes.add(new IndexInfo(name, index.name(), new String[]{column.getName()}, index.where()));
+            }
+        }
+
+        List<CompositeIndex> compositeIndexes = new ArrayList<>();
+        if (type.isAnnotationPresent(CompositeIndex.class)) {
+            compositeIndexes.add(type.getAnnotation(CompositeIndex.class));
+        }
+        if (type.isAnnotationPresent(Indices.class)) {
+            compositeIndexes.addAll(Arrays.asList(type.getAnnotation(Indices.class).value()));
+        }
+        for (CompositeIndex index : compositeIndexes) {
+            String[] indexColumns = index.value().split(",");
+            for (int i = 0; i < indexColumns.length; i++) {
+                indexColumns[i] = toColumnName(columns, indexColumns[i].trim());
+            }
+            indexes.add(new IndexInfo(name, index.name(), indexColumns, index.where()));
+        }
+
+        this.type = type;
+        this.name = name;
+        this.annotated = type.isAnnotationPresent(Table.class);
+        this.sugarRecord = SugarRecord.class.isAssignableFrom(type);
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnNames = columnNames;
+        this.uniqueKeys = Collections.unmodifiableList(uniqueKeys);
+        this.relations = Collections.unmodifiableList(relations);
+        this.relationNames = new String[relations.size()];
+        for (int i = 0; i < relationNames.length; i++) {
+            relationNames[i] = relations.get(i).getName();
+        }
+        this.idColumn = idColumn;
+        this.indexes = Collections.unmodifiableList(indexes);
+        this.uniqueConstraints = uniqueConstraints;
+    }
+
+    /**
+     * @return the name of the column of the field, as {@link MultiUnique} names
+     *         it if the class has no such field
+     */
+    private static String toColumnName(List<ColumnInfo> columns, String fieldName) {
+        for (ColumnInfo column : columns) {
+            if (column.getField().getName().equals(fieldName)) {
+                return column.getName();
+            }
+        }
+        return NamingHelper.toSQLNameDefault(fieldName);
+    }
+
+    /**
+     * @param type the class stored in the table
+     * @return the cached metadata of the class, built on first use
+     */
+    public static TableInfo get(Class<?> type) {
+        TableInfo info = TABLES.get(type);
+
+        if (info == null) {
+            info = new TableInfo(type);
+            TABLES.put(type, info);
+        }
+
+        return info;
+    }
+
+    public static void clearCache() {
+        TABLES.clear();
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the name of the table, see {@link NamingHelper#toTableName(Class)}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if the class is annotated with {@link Table}
+     */
+    public boolean isAnnotated() {
+        return annotated;
+    }
+
+    /**
+     * @return true if the class extends {@link SugarRecord}
+     */
+    public boolean isSugarRecord() {
+        return sugarRecord;
+    }
+
+    public List<ColumnInfo> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the name of each of {@link #getColumns()}, in the same order. The returned array
+     *         must not be modified.
+     */
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return the columns annotated with {@link com.orm.annotation.Unique}, used to find the row to update
+     */
+    public List<ColumnInfo> getUniqueKeys() {
+        return uniqueKeys;
+    }
+
+    /**
+     * @return true if the table has a UNIQUE column or a {@link MultiUnique} constraint, so an
+     *         INSERT OR REPLACE may delete other rows
+     */
+    public boolean hasUniqueConstraints() {
+        return uniqueConstraints;
+    }
+
+    /**
+     * @return the columns holding another Sugar entity, directly or through a {@link com.orm.SugarLazy}
+     */
+    public List<ColumnInfo> getRelations() {
+        return relations;
+    }
+
+    /**
+     * @return the name of each of {@link #getRelations()}, in the same order. The returned array
+     *         must not be modified.
+     */
+    public String[] getRelationNames() {
+        return relationNames;
+    }
+
+    /**
+     * @return the column of the field named "id" or null if the class has none
+     */
+    public ColumnInfo getIdColumn() {
+        return idColumn;
+    }
+
+    /**
+     * @return the indexes declared with {@link Index}, {@link CompositeIndex} and {@link Indices}
+     */
+    public List<IndexInfo> getIndexes() {
+        return indexes;
+    }
+}
@@ -1,34 +1,166 @@
 package com.orm.util;
 
+import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
+
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Util class to deal with threads.
  *
+ * Background database work runs on two shared executors: a single writer thread, so writes are
+ * applied one at a time in submission order, and a pool of reader threads sized by
+ * {@link SugarDbConfiguration#getReaderPoolSize()}. Both are created on first use, their idle
+ * threads time out, and they are shut down by {@link SugarContext#terminate()}.
+ *
  * @author jonatan.salas
  */
 public final class ThreadUtil {
+    public static final int DEFAULT_READER_POOL_SIZE = 2;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private static ThreadPoolExecutor writer;
+    private static ThreadPoolExecutor readers;
 
     //Prevent instantiation..
     private ThreadUtil() { }
 
     /**
-     * Submits a Callable object and returns a Future ready to use.
+     * Submits a Callable object to the writer thread and returns a Future ready to use.
+     *
+     * @param callable the callable you want to submit
+     * @return a Future object
+     */
+    public static <T> Future<T> doInBackground(Callable<T> callable) {
+        return writeInBackground(callable);
+    }
+
+    /**
+     * Submits a Callable that writes to the database. Writes run one at a time, in the order they
+     * were submitted.
+     *
+     * @param callable the callable you want to submit
+     * @return a Future object
+     */
+    public static <T> Future<T> writeInBackground(Callable<T> callable) {
+        return getWriter().submit(callable);
+    }
+
+    /**
+     * Submits a Callable that only reads from the database. Reads run concurrently on the reader
+     * pool.
      *
      * @param callable the callable you want to submit
      * @return a Future object
      */
-    public static Future doInBackground(Callable callable) {
-        final ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future future = executor.submit(callable);
+    public static <T> Future<T> readInBackground(Callable<T> callable) {
+        return getReaders().submit(callable);
+    }
+
+    /**
+     * @return the number of writes waiting for the writer thread
+     */
+    public static synchronized int getWriterQueueDepth() {
+        return (writer != null) ? writer.getQueue().size() : 0;
+    }
 
-        if(executor.isTerminated()) {
-            executor.shutdown();
+    /**
+     * @return the number of reads waiting for a reader thread
+     */
+    public static synchronized int getReaderQueueDepth() {
+        return (readers != null) ? readers.getQueue().size() : 0;
+    }
+
+    /**
+     * @return the number of tasks currently running on the writer thread and the reader pool
+     */
+    public static synchronized int getActiveCount() {
+        return ((writer != null) ? writer.getActiveCount() : 0) + ((readers != null) ? readers.getActiveCount() : 0);
+    }
+
+    /**
+     * @return the number of tasks completed since the executors were created
+     */
+    public static synchronized long getCompletedTaskCount() {
+        return ((writer != null) ? writer.getCompletedTaskCount() : 0) + ((readers != null) ? readers.getCompletedTaskCount() : 0);
+    }
+
+    /**
+     * Stops accepting tasks and waits a few seconds for the submitted ones to complete. Executors
+     * are created again on their next use.
+     */
+    public static void shutdown() {
+        ThreadPoolExecutor oldWriter;
+        ThreadPoolExecutor oldReaders;
+        synchronized (ThreadUtil.class) {
+            oldWriter = writer;
+            oldReaders = readers;
+            writer = null;
+            readers = null;
         }
 
-        return future;
+        shutdown(oldReaders);
+        shutdown(oldWriter);
+    }
+
+    private static void shutdown(ThreadPoolExecutor executor) {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getWriter() {
+        if (writer == null) {
+            writer = newExecutor("Sugar-writer", 1);
+        }
+        return writer;
+    }
+
+    private static synchronized ThreadPoolExecutor getReaders() {
+        if (readers == null) {
+            readers = newExecutor("Sugar-reader", getReaderPoolSize());
+        }
+        return readers;
+    }
+
+    private static int getReaderPoolSize() {
+        SugarDbConfiguration configuration = SugarContext.getDbConfiguration();
+        if (configuration != null && configuration.getReaderPoolSize() != null && configuration.getReaderPoolSize() > 0) {
+            return configuration.getReaderPoolSize();
+        }
+        return DEFAULT_READER_POOL_SIZE;
+    }
+
+    private static ThreadPoolExecutor newExecutor(final String name, int threads) {
+        ThreadFactory factory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 }
@@ -0,0 +1,146 @@
+package com.orm.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread safe map comparing keys by identity and holding them weakly, like a
+ * {@link java.util.WeakHashMap} that ignores {@code equals} and {@code hashCode}.
+ *
+ * Lookups don't lock, they go straight to a {@link ConcurrentHashMap}. Entries whose key has been
+ * collected are removed on the next write or size. {@link #entrySet()} is a snapshot of the
+ * entries whose key is still reachable.
+ */
+public final class WeakIdentityMap<K, V> extends AbstractMap<K, V> {
+    private final ConcurrentHashMap<IdentityKey, V> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    @Override
+    public V get(Object key) {
+        return (key != null) ? map.get(new LookupKey(key)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && map.containsKey(new LookupKey(key));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("WeakIdentityMap doesn't accept null keys or values");
+        }
+
+        expunge();
+        return map.put(new WeakKey(key, queue), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        expunge();
+        return (key != null) ? map.remove(new LookupKey(key)) : null;
+    }
+
+    @Override
+    public int size() {
+        expunge();
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        while (queue.poll() != null) {
+            // Their entries are gone already
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> entries = new HashSet<>();
+        for (Map.Entry<IdentityKey, V> entry : map.entrySet()) {
+            Object key = entry.getKey().get();
+            if (key != null) {
+                entries.add(new SimpleImmutableEntry<>((K) key, entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableSet(entries);
+    }
+
+    private void expunge() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            map.remove(reference);
+        }
+    }
+
+    /**
+     * Equal to another key referencing the same object.
+     */
+    private interface IdentityKey {
+        Object get();
+    }
+
+    private static final class WeakKey extends WeakReference<Object> implements IdentityKey {
+        private final int hash;
+
+        WeakKey(Object key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            // A collected key only equals itself, so it can still be removed
+            Object key = get();
+            return key != null && o instanceof IdentityKey && ((IdentityKey) o).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Strongly references the object looked up, for the duration of the lookup only.
+     */
+    private static final class LookupKey implements IdentityKey {
+        private final Object key;
+
+        LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object get() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).get() == key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+}
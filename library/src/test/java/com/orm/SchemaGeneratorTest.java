@@ -1,12 +1,15 @@
 package com.orm;
 
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.orm.app.ClientApp;
 import com.orm.dsl.BuildConfig;
 import com.orm.model.AllAnotatedModel;
 import com.orm.model.EmptyModel;
+import com.orm.model.IndexedModel;
+import com.orm.model.IntegerFieldAnnotatedModel;
 import com.orm.model.IntUniqueModel;
 import com.orm.model.MultiColumnUniqueModel;
 import com.orm.model.StringFieldAnnotatedModel;
@@ -22,9 +25,14 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
+import static com.orm.util.ReflectionUtil.getDomainClasses;
+
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 @RunWith(RobolectricGradleTestRunner.class)
 @Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
@@ -137,7 +145,7 @@ public final class SchemaGeneratorTest {
         Cursor c = sqLiteDatabase.rawQuery(sql, null);
 
         if (c.moveToFirst()) {
-            Assert.assertEquals(43, c.getInt(0));
+            Assert.assertEquals(47, c.getInt(0));
         }
 
         if (!c.isClosed()) {
@@ -176,4 +184,199 @@ public final class SchemaGeneratorTest {
         List<String> columnNames = schemaGenerator.getColumnNames(sqLiteDatabase, NamingHelper.toTableName(TestRecord.class));
         Assert.assertEquals(2, columnNames.size());
     }
+
+    @Test
+    public void testGetColumnNamesOfMissingTable() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        List<String> columnNames = SchemaGenerator.getInstance().getColumnNames(sqLiteDatabase, "MISSING_TABLE");
+        Assert.assertTrue(columnNames.isEmpty());
+    }
+
+    @Test
+    public void testFingerprints() {
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+        assertEquals(schemaGenerator.fingerprint(TestRecord.class), schemaGenerator.fingerprint(TestRecord.class));
+        Assert.assertFalse(schemaGenerator.fingerprint(TestRecord.class).equals(schemaGenerator.fingerprint(EmptyModel.class)));
+
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        schemaGenerator.createDatabase(sqLiteDatabase);
+        assertEquals(getDomainClasses().size(), count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE));
+        assertEquals(1, count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE
+                + " WHERE TABLE_NAME = '" + NamingHelper.toTableName(TestRecord.class)
+                + "' AND FINGERPRINT = '" + schemaGenerator.fingerprint(TestRecord.class) + "'"));
+    }
+
+    @Test
+    public void testUpgradeSkipsUnchangedTables() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+        String changed = NamingHelper.toTableName(TestRecord.class);
+        String unchanged = NamingHelper.toTableName(IntegerFieldAnnotatedModel.class);
+
+        // Both tables lose their columns, only the first one's fingerprint tells it changed
+        for (String table : new String[]{changed, unchanged}) {
+            sqLiteDatabase.execSQL("DROP TABLE " + table);
+            sqLiteDatabase.execSQL("CREATE TABLE " + table + " ( ID INTEGER PRIMARY KEY AUTOINCREMENT )");
+        }
+        sqLiteDatabase.execSQL("UPDATE " + SchemaGenerator.SCHEMA_TABLE + " SET FINGERPRINT = 'stale' WHERE TABLE_NAME = '" + changed + "'");
+
+        schemaGenerator.doUpgrade(sqLiteDatabase, 1, 2);
+
+        assertEquals(2, schemaGenerator.getColumnNames(sqLiteDatabase, changed).size());
+        assertEquals(1, schemaGenerator.getColumnNames(sqLiteDatabase, unchanged).size());
+        assertEquals(1, count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE
+                + " WHERE TABLE_NAME = '" + changed + "' AND FINGERPRINT = '" + schemaGenerator.fingerprint(TestRecord.class) + "'"));
+    }
+
+    @Test
+    public void testUpgradeWithoutFingerprints() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+        String table = NamingHelper.toTableName(TestRecord.class);
+
+        sqLiteDatabase.execSQL("DROP TABLE " + SchemaGenerator.SCHEMA_TABLE);
+        sqLiteDatabase.execSQL("DROP TABLE " + table);
+
+        schemaGenerator.doUpgrade(sqLiteDatabase, 1, 2);
+
+        assertEquals(2, schemaGenerator.getColumnNames(sqLiteDatabase, table).size());
+        assertEquals(getDomainClasses().size(), count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE));
+    }
+
+    @Test
+    public void testCreateDatabaseTimings() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+
+        schemaGenerator.createDatabase(sqLiteDatabase);
+
+        Assert.assertFalse(sqLiteDatabase.inTransaction());
+        assertEquals(Arrays.asList("domain classes", "generate", "create tables", "after create scripts", "fingerprints", "commit"),
+                new ArrayList<>(schemaGenerator.getTimings().keySet()));
+    }
+
+    @Test
+    public void testUpgradeTimings() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+
+        schemaGenerator.doUpgrade(sqLiteDatabase, 1, 2);
+
+        Assert.assertFalse(sqLiteDatabase.inTransaction());
+        assertEquals(Arrays.asList("domain classes", "introspection", "alter tables", "upgrade scripts", "commit"),
+                new ArrayList<>(schemaGenerator.getTimings().keySet()));
+    }
+
+    @Test
+    public void testUpgradeIsAtomic() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+        String created = NamingHelper.toTableName(TestRecord.class);
+        String failing = NamingHelper.toTableName(AllAnotatedModel.class);
+
+        // The first table is created again before adding the @NotNull id back to the second one
+        // fails, as it has no default value
+        sqLiteDatabase.execSQL("DROP TABLE " + created);
+        sqLiteDatabase.execSQL("DROP TABLE " + failing);
+        sqLiteDatabase.execSQL("CREATE TABLE " + failing + " ( name TEXT )");
+        sqLiteDatabase.execSQL("UPDATE " + SchemaGenerator.SCHEMA_TABLE + " SET FINGERPRINT = 'stale'");
+
+        try {
+            schemaGenerator.doUpgrade(sqLiteDatabase, 1, 2);
+            Assert.fail("the upgrade should have failed");
+        } catch (SQLException e) {
+            // Expected
+        }
+
+        Assert.assertFalse(sqLiteDatabase.inTransaction());
+        Assert.assertTrue(schemaGenerator.getColumnNames(sqLiteDatabase, created).isEmpty());
+        assertEquals(0, count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE
+                + " WHERE FINGERPRINT != 'stale'"));
+    }
+
+    @Test
+    public void testFailingIndexRollsBackUpgrade() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+        String table = NamingHelper.toTableName(IndexedModel.class);
+
+        // A table named like one of the indexes makes creating that index fail
+        sqLiteDatabase.execSQL("DROP TABLE " + table);
+        sqLiteDatabase.execSQL("CREATE TABLE IDX_INDEXED_MODEL_STATUS ( ID INTEGER )");
+        sqLiteDatabase.execSQL("UPDATE " + SchemaGenerator.SCHEMA_TABLE + " SET FINGERPRINT = 'stale' WHERE TABLE_NAME = '" + table + "'");
+
+        try {
+            schemaGenerator.doUpgrade(sqLiteDatabase, 1, 2);
+            Assert.fail("the upgrade should have failed");
+        } catch (SQLException e) {
+            // Expected
+        }
+
+        Assert.assertFalse(sqLiteDatabase.inTransaction());
+        Assert.assertTrue(schemaGenerator.getColumnNames(sqLiteDatabase, table).isEmpty());
+        assertEquals(1, count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE
+                + " WHERE TABLE_NAME = '" + table + "' AND FINGERPRINT = 'stale'"));
+    }
+
+    @Test
+    public void testIndexCreation() {
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+
+        assertEquals(Arrays.asList(
+                "CREATE INDEX IF NOT EXISTS IDX_INDEXED_MODEL_STATUS ON INDEXED_MODEL ( STATUS )",
+                "CREATE INDEX IF NOT EXISTS IDX_INDEXED_MODEL_RECENT ON INDEXED_MODEL ( CREATED ) WHERE CREATED > 0",
+                "CREATE INDEX IF NOT EXISTS IDX_INDEXED_MODEL_STATUS_PRIORITY ON INDEXED_MODEL ( STATUS, PRIORITY )",
+                "CREATE INDEX IF NOT EXISTS IDX_INDEXED_MODEL_OPEN_PRIORITY ON INDEXED_MODEL ( PRIORITY ) WHERE STATUS = 'open'"),
+                schemaGenerator.createIndexesSQL(IndexedModel.class));
+        assertTrue(schemaGenerator.createIndexesSQL(TestRecord.class).isEmpty());
+    }
+
+    @Test
+    public void testIndexesCreated() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+
+        // Partial indexes index every row where SQLite doesn't support them
+        assertEquals(4, count(sqLiteDatabase, "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND tbl_name = 'INDEXED_MODEL'"));
+
+        Cursor c = sqLiteDatabase.rawQuery("EXPLAIN QUERY PLAN SELECT * FROM INDEXED_MODEL WHERE STATUS = ?", new String[]{"open"});
+        try {
+            Assert.assertTrue(c.moveToFirst());
+            String detail = c.getString(c.getColumnIndex("detail"));
+            Assert.assertTrue(detail, detail.contains("USING INDEX IDX_INDEXED_MODEL_STATUS"));
+        } finally {
+            c.close();
+        }
+    }
+
+    @Test
+    public void testUpgradeUpdatesIndexes() {
+        SQLiteDatabase sqLiteDatabase = SugarContext.getSugarContext().getSugarDb().getDB();
+        SchemaGenerator schemaGenerator = SchemaGenerator.getInstance();
+
+        // A removed index, a changed one and one Sugar doesn't manage
+        sqLiteDatabase.execSQL("CREATE INDEX IDX_INDEXED_MODEL_OLD ON INDEXED_MODEL ( PRIORITY )");
+        sqLiteDatabase.execSQL("DROP INDEX IDX_INDEXED_MODEL_STATUS");
+        sqLiteDatabase.execSQL("CREATE INDEX IDX_INDEXED_MODEL_STATUS ON INDEXED_MODEL ( PRIORITY )");
+        sqLiteDatabase.execSQL("CREATE INDEX USER_PRIORITY ON INDEXED_MODEL ( PRIORITY )");
+        sqLiteDatabase.execSQL("UPDATE " + SchemaGenerator.SCHEMA_TABLE + " SET FINGERPRINT = 'stale' WHERE TABLE_NAME = 'INDEXED_MODEL'");
+
+        schemaGenerator.doUpgrade(sqLiteDatabase, 1, 2);
+
+        assertEquals(0, count(sqLiteDatabase, "SELECT count(*) FROM sqlite_master WHERE name = 'IDX_INDEXED_MODEL_OLD'"));
+        assertEquals(1, count(sqLiteDatabase, "SELECT count(*) FROM sqlite_master WHERE name = 'USER_PRIORITY'"));
+        assertEquals(1, count(sqLiteDatabase, "SELECT count(*) FROM sqlite_master WHERE name = 'IDX_INDEXED_MODEL_STATUS' AND sql LIKE '%( STATUS )'"));
+        assertEquals(5, count(sqLiteDatabase, "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND tbl_name = 'INDEXED_MODEL'"));
+        assertEquals(1, count(sqLiteDatabase, "SELECT count(*) FROM " + SchemaGenerator.SCHEMA_TABLE
+                + " WHERE TABLE_NAME = 'INDEXED_MODEL' AND FINGERPRINT = '" + schemaGenerator.fingerprint(IndexedModel.class) + "'"));
+    }
+
+    private static int count(SQLiteDatabase sqLiteDatabase, String sql) {
+        Cursor c = sqLiteDatabase.rawQuery(sql, null);
+        try {
+            c.moveToFirst();
+            return c.getInt(0);
+        } finally {
+            c.close();
+        }
+    }
 }
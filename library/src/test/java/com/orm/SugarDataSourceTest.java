@@ -1,10 +1,13 @@
 package com.orm;
 
+import android.database.AbstractWindowedCursor;
 import android.database.Cursor;
+import android.database.CursorWrapper;
 
 import com.orm.app.ClientApp;
 import com.orm.dsl.BuildConfig;
 import com.orm.model.TestRecord;
+import com.orm.util.ThreadUtil;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +17,13 @@ import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static junit.framework.Assert.*;
 
@@ -23,11 +33,194 @@ import static junit.framework.Assert.*;
 @RunWith(RobolectricGradleTestRunner.class)
 @Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
 public final class SugarDataSourceTest {
+    private final LinkedBlockingQueue<Runnable> callbacks = new LinkedBlockingQueue<>();
     private SugarDataSource<TestRecord> recordSugarDataSource;
 
     @Before
     public void setUp() {
-        recordSugarDataSource = SugarDataSource.getInstance(TestRecord.class);
+        recordSugarDataSource = SugarDataSource.getInstance(TestRecord.class, new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                callbacks.add(runnable);
+            }
+        });
+    }
+
+    /**
+     * Runs the callbacks posted by the data source on the test thread until the operation is done.
+     */
+    private void await(SugarDataSource.Handle handle) {
+        try {
+            while (!handle.isDone()) {
+                Runnable callback = callbacks.poll(5, TimeUnit.SECONDS);
+                assertNotNull("No callback delivered", callback);
+                callback.run();
+            }
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static final SugarDataSource.ErrorCallback FAIL = new SugarDataSource.ErrorCallback() {
+        @Override
+        public void onError(Exception e) {
+            fail(e.getMessage());
+        }
+    };
+
+    private static Future<Void> blockWriter(final CountDownLatch release) {
+        return ThreadUtil.writeInBackground(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testInsertDoesNotBlock() throws Exception {
+        final TestRecord record = new TestRecord();
+        record.setName("lalala");
+
+        CountDownLatch release = new CountDownLatch(1);
+        blockWriter(release);
+
+        SugarDataSource.Handle handle = recordSugarDataSource.insert(
+                record,
+                new SugarDataSource.SuccessCallback<Long>() {
+                    @Override
+                    public void onSuccess(Long id) {
+                        record.setId(id);
+                    }
+                },
+                FAIL
+        );
+
+        assertFalse(handle.isDone());
+        assertNull(record.getId());
+        assertTrue(callbacks.isEmpty());
+
+        release.countDown();
+        await(handle);
+        assertNotNull(record.getId());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final TestRecord record = new TestRecord();
+        record.setName("lalala");
+        final AtomicBoolean called = new AtomicBoolean();
+
+        CountDownLatch release = new CountDownLatch(1);
+        blockWriter(release);
+
+        SugarDataSource.Handle handle = recordSugarDataSource.insert(
+                record,
+                new SugarDataSource.SuccessCallback<Long>() {
+                    @Override
+                    public void onSuccess(Long id) {
+                        called.set(true);
+                    }
+                },
+                new SugarDataSource.ErrorCallback() {
+                    @Override
+                    public void onError(Exception e) {
+                        called.set(true);
+                    }
+                }
+        );
+
+        assertTrue(handle.cancel());
+        assertTrue(handle.isCancelled());
+        release.countDown();
+
+        // Writes run in order, so the insert would have been run by now
+        ThreadUtil.writeInBackground(new Callable<Void>() {
+            @Override
+            public Void call() {
+                return null;
+            }
+        }).get();
+
+        assertTrue(callbacks.isEmpty());
+        assertFalse(called.get());
+        assertFalse(handle.isDone());
+        assertEquals(0L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test
+    public void testCancelAfterDone() {
+        TestRecord record = new TestRecord();
+        record.setName("lalala");
+
+        SugarDataSource.Handle handle = recordSugarDataSource.insert(
+                record,
+                new SugarDataSource.SuccessCallback<Long>() {
+                    @Override
+                    public void onSuccess(Long id) {
+                    }
+                },
+                FAIL
+        );
+        await(handle);
+
+        assertTrue(handle.isDone());
+        assertFalse(handle.cancel());
+        assertFalse(handle.isCancelled());
+    }
+
+    @Test
+    public void testThrowingCallbackIsDone() throws InterruptedException {
+        TestRecord record = new TestRecord();
+        record.setName("lalala");
+
+        SugarDataSource.Handle handle = recordSugarDataSource.insert(
+                record,
+                new SugarDataSource.SuccessCallback<Long>() {
+                    @Override
+                    public void onSuccess(Long id) {
+                        throw new IllegalStateException("callback failed");
+                    }
+                },
+                FAIL
+        );
+
+        Runnable callback = callbacks.poll(5, TimeUnit.SECONDS);
+        assertNotNull("No callback delivered", callback);
+        try {
+            callback.run();
+            fail("The callback exception should be thrown to the executor");
+        } catch (IllegalStateException e) {
+            assertTrue(handle.isDone());
+        }
+    }
+
+    @Test
+    public void testQueryRunsInBackground() {
+        TestRecord record = new TestRecord();
+        record.setName("lalala");
+        SugarRecord.save(record);
+        final AtomicBoolean filled = new AtomicBoolean();
+
+        await(recordSugarDataSource.query(
+                null,
+                null,
+                null,
+                null,
+                null,
+                new SugarDataSource.SuccessCallback<Cursor>() {
+                    @Override
+                    public void onSuccess(Cursor cursor) {
+                        Cursor wrapped = ((CursorWrapper) cursor).getWrappedCursor();
+                        filled.set(((AbstractWindowedCursor) wrapped).hasWindow());
+                        cursor.close();
+                    }
+                },
+                FAIL
+        ));
+
+        assertTrue(filled.get());
     }
 
     @Test
@@ -35,7 +228,7 @@ public final class SugarDataSourceTest {
         final TestRecord record = new TestRecord();
         record.setName("lalala");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -49,11 +242,11 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
         assertNotNull(record.getId());
 
-        recordSugarDataSource.delete(
+        await(recordSugarDataSource.delete(
                 record,
                 new SugarDataSource.SuccessCallback<Boolean>() {
                     @Override
@@ -68,7 +261,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -76,7 +269,7 @@ public final class SugarDataSourceTest {
         final TestRecord record = new TestRecord();
         record.setName("lalala");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -90,9 +283,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.findById(
+        await(recordSugarDataSource.findById(
                 record.getId(),
                 new SugarDataSource.SuccessCallback<TestRecord>() {
                     @Override
@@ -107,7 +300,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -115,7 +308,7 @@ public final class SugarDataSourceTest {
         final TestRecord record = new TestRecord();
         record.setName("lalala");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -129,10 +322,10 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
         record.setName("fulano");
-        recordSugarDataSource.update(
+        await(recordSugarDataSource.update(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -146,9 +339,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.findById(
+        await(recordSugarDataSource.findById(
                 record.getId(),
                 new SugarDataSource.SuccessCallback<TestRecord>() {
                     @Override
@@ -163,7 +356,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -171,7 +364,7 @@ public final class SugarDataSourceTest {
         final TestRecord record = new TestRecord();
         record.setName("lalala");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -185,12 +378,12 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
         final TestRecord record1 = new TestRecord();
         record1.setName("fulano");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record1,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -204,12 +397,12 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
         final TestRecord record2 = new TestRecord();
         record2.setName("mengano");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record2,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -223,9 +416,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.listAll(
+        await(recordSugarDataSource.listAll(
                 null,
                 new SugarDataSource.SuccessCallback<List<TestRecord>>() {
                     @Override
@@ -239,9 +432,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.deleteAll(
+        await(recordSugarDataSource.deleteAll(
                 new SugarDataSource.SuccessCallback<Integer>() {
                     @Override
                     public void onSuccess(Integer count) {
@@ -254,7 +447,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -262,7 +455,7 @@ public final class SugarDataSourceTest {
         final TestRecord record = new TestRecord();
         record.setName("lalala");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -276,12 +469,12 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
         final TestRecord record1 = new TestRecord();
         record1.setName("fulano");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record1,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -295,13 +488,13 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
 
         final TestRecord record2 = new TestRecord();
         record2.setName("mengano");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record2,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -315,9 +508,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.count(
+        await(recordSugarDataSource.count(
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
                     public void onSuccess(Long count) {
@@ -330,7 +523,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -338,7 +531,7 @@ public final class SugarDataSourceTest {
         final TestRecord record = new TestRecord();
         record.setName("lalala");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -352,12 +545,12 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
         final TestRecord record1 = new TestRecord();
         record1.setName("fulano");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record1,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -371,13 +564,13 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
 
         final TestRecord record2 = new TestRecord();
         record2.setName("mengano");
 
-        recordSugarDataSource.insert(
+        await(recordSugarDataSource.insert(
                 record2,
                 new SugarDataSource.SuccessCallback<Long>() {
                     @Override
@@ -391,9 +584,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.listAll(
+        await(recordSugarDataSource.listAll(
                 null,
                 new SugarDataSource.SuccessCallback<List<TestRecord>>() {
                     @Override
@@ -407,9 +600,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.query(
+        await(recordSugarDataSource.query(
                 null,
                 null,
                 null,
@@ -427,7 +620,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -446,7 +639,7 @@ public final class SugarDataSourceTest {
         list.add(record1);
         list.add(record2);
 
-        recordSugarDataSource.bulkInsert(
+        await(recordSugarDataSource.bulkInsert(
                 list,
                 new SugarDataSource.SuccessCallback<List<Long>>() {
                     @Override
@@ -462,9 +655,9 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
 
-        recordSugarDataSource.listAll(
+        await(recordSugarDataSource.listAll(
                 null,
                 new SugarDataSource.SuccessCallback<List<TestRecord>>() {
                     @Override
@@ -484,7 +677,7 @@ public final class SugarDataSourceTest {
                         e.printStackTrace();
                     }
                 }
-        );
+        ));
     }
 
     @Test
@@ -492,7 +685,7 @@ public final class SugarDataSourceTest {
         TestRecord record = new TestRecord();
         record.setId(0L);
 
-        recordSugarDataSource.findById(
+        await(recordSugarDataSource.findById(
                 record.getId(),
                 new SugarDataSource.SuccessCallback<TestRecord>() {
                     @Override
@@ -506,12 +699,12 @@ public final class SugarDataSourceTest {
                         assertNotNull(e.getMessage());
                     }
                 }
-        );
+        ));
     }
 
     @Test
     public void testNullListAll() {
-        recordSugarDataSource.listAll(
+        await(recordSugarDataSource.listAll(
                 null,
                 new SugarDataSource.SuccessCallback<List<TestRecord>>() {
                     @Override
@@ -525,7 +718,7 @@ public final class SugarDataSourceTest {
                         assertNotNull(e.getMessage());
                     }
                 }
-        );
+        ));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -534,6 +727,12 @@ public final class SugarDataSourceTest {
         SugarDataSource<TestRecord> dataSource = SugarDataSource.getInstance(null);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("all")
+    public void testNullCallbackExecutor() {
+        SugarDataSource<TestRecord> dataSource = SugarDataSource.getInstance(TestRecord.class, null);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     @SuppressWarnings("all")
     public void testCheckNotNull() {
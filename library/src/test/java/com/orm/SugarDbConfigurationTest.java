@@ -1,6 +1,8 @@
 package com.orm;
 
 import com.orm.dsl.BuildConfig;
+import com.orm.model.SimpleModel;
+import com.orm.model.StringFieldAnnotatedNoIdModel;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -8,6 +10,7 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.Arrays;
 import java.util.Locale;
 
 import static org.junit.Assert.assertEquals;
@@ -25,7 +28,11 @@ public final class SugarDbConfigurationTest {
         SugarDbConfiguration configuration = new SugarDbConfiguration()
                 .setDatabaseLocale(Locale.getDefault())
                 .setMaxSize(1024L)
-                .setPageSize(400L);
+                .setPageSize(400L)
+                .setReaderPoolSize(3)
+                .setWriteAheadLoggingEnabled(true)
+                .setMmapSize(1L << 26)
+                .setSynchronous(SugarDbConfiguration.Synchronous.NORMAL);
 
         SugarContext.init(RuntimeEnvironment.application, configuration);
 
@@ -34,6 +41,30 @@ public final class SugarDbConfigurationTest {
         assertEquals(configuration.getDatabaseLocale(), config.getDatabaseLocale());
         assertEquals(configuration.getMaxSize(), config.getMaxSize());
         assertEquals(configuration.getPageSize(), config.getPageSize());
+        assertEquals(configuration.getReaderPoolSize(), config.getReaderPoolSize());
+        assertEquals(configuration.isWriteAheadLoggingEnabled(), config.isWriteAheadLoggingEnabled());
+        assertEquals(configuration.getMmapSize(), config.getMmapSize());
+        assertEquals(configuration.getSynchronous(), config.getSynchronous());
+    }
+
+    @Test
+    public void testEntityClasses() {
+        SugarDbConfiguration configuration = new SugarDbConfiguration()
+                .setEntityClasses(SimpleModel.class, StringFieldAnnotatedNoIdModel.class);
+        assertEquals(Arrays.<Class<?>>asList(SimpleModel.class, StringFieldAnnotatedNoIdModel.class), configuration.getEntityClasses());
+
+        configuration.setEntityClasses((Class<?>[]) null);
+        assertNull(configuration.getEntityClasses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEntityClassesRejectsNonEntity() {
+        new SugarDbConfiguration().setEntityClasses(SimpleModel.class, String.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEntityClassesRejectsSugarRecord() {
+        new SugarDbConfiguration().setEntityClasses(SugarRecord.class);
     }
 
     @Test
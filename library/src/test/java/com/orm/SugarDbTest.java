@@ -1,16 +1,31 @@
 package com.orm;
 
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.orm.app.ClientApp;
 import com.orm.dsl.BuildConfig;
+import com.orm.helper.ManifestHelper;
+import com.orm.model.SimpleModel;
+import com.orm.model.TestRecord;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author jonatan.salas
@@ -38,4 +53,121 @@ public final class SugarDbTest {
         final SQLiteDatabase db = sugarDb.getDB();
         assertEquals(false, db.isReadOnly());
     }
+
+    @Test
+    public void testWriteAheadLoggingDisabledByDefault() {
+        final SQLiteDatabase db = SugarContext.getSugarContext().getSugarDb().getDB();
+        assertFalse(db.isWriteAheadLoggingEnabled());
+    }
+
+    @Test
+    public void testWriteAheadLogging() {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration().setWriteAheadLoggingEnabled(true));
+
+        final SQLiteDatabase db = SugarContext.getSugarContext().getSugarDb().getDB();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        assertEquals("wal", DatabaseUtils.stringForQuery(db, "PRAGMA journal_mode", null));
+    }
+
+    @Test
+    public void testRegisteredEntitiesCreated() {
+        String databaseName = ManifestHelper.getDatabaseName();
+        SugarContext.terminate();
+        RuntimeEnvironment.application.deleteDatabase(databaseName);
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration()
+                .setEntityClasses(SimpleModel.class, TestRecord.class));
+
+        // Only the registered entities get a table
+        final SQLiteDatabase db = SugarContext.getSugarContext().getSugarDb().getDB();
+        assertEquals(2, DatabaseUtils.longForQuery(db, "SELECT count(*) FROM sqlite_master WHERE type = 'table'"
+                + " AND name NOT IN ('android_metadata', 'sqlite_sequence', '" + SchemaGenerator.SCHEMA_TABLE + "')", null));
+        assertEquals(1, DatabaseUtils.longForQuery(db, "SELECT count(*) FROM sqlite_master WHERE name = 'TEST_RECORD'", null));
+    }
+
+    @Test
+    public void testReadDuringWriteTransaction() throws Exception {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration().setWriteAheadLoggingEnabled(true));
+        SugarRecord.save(new SimpleModel());
+
+        final CountDownLatch written = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    SQLiteDatabase db = SugarContext.getSugarContext().getSugarDb().getDB();
+                    db.beginTransaction();
+                    try {
+                        SugarRecord.save(new SimpleModel());
+                        written.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                    return null;
+                }
+            });
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+
+            Future<Long> reader = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return SugarRecord.count(SimpleModel.class);
+                }
+            });
+
+            // The uncommitted row isn't visible, and the read doesn't wait for the commit
+            assertEquals(Long.valueOf(1), reader.get(2, TimeUnit.SECONDS));
+            release.countDown();
+            writer.get();
+            assertEquals(2L, SugarRecord.count(SimpleModel.class));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPragmas() {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration()
+                .setWriteAheadLoggingEnabled(true)
+                .setCacheSize(-4000)
+                .setMmapSize(1L << 26)
+                .setSynchronous(SugarDbConfiguration.Synchronous.OFF)
+                .setTempStore(SugarDbConfiguration.TempStore.MEMORY)
+                .setJournalSizeLimit(1L << 20)
+                .setBusyTimeout(1000)
+                .setForeignKeysEnabled(true)
+                .setWalAutoCheckpoint(500));
+
+        SugarDbConfiguration effective = SugarContext.getSugarContext().getSugarDb().getEffectiveConfiguration();
+
+        assertEquals(true, effective.isWriteAheadLoggingEnabled());
+        assertEquals(Integer.valueOf(-4000), effective.getCacheSize());
+        assertEquals(SugarDbConfiguration.Synchronous.OFF, effective.getSynchronous());
+        assertEquals(SugarDbConfiguration.TempStore.MEMORY, effective.getTempStore());
+        assertEquals(Long.valueOf(1L << 20), effective.getJournalSizeLimit());
+        assertEquals(true, effective.isForeignKeysEnabled());
+        assertEquals(Integer.valueOf(500), effective.getWalAutoCheckpoint());
+        assertNull(effective.getDatabaseLocale());
+
+        // Not known to the SQLite of older devices, and of the test runtime
+        if (effective.getMmapSize() != null) {
+            assertEquals(Long.valueOf(1L << 26), effective.getMmapSize());
+        }
+        if (effective.getBusyTimeout() != null) {
+            assertEquals(Integer.valueOf(1000), effective.getBusyTimeout());
+        }
+    }
+
+    @Test
+    public void testDefaultPragmas() {
+        SugarDbConfiguration effective = SugarContext.getSugarContext().getSugarDb().getEffectiveConfiguration();
+
+        assertEquals(false, effective.isWriteAheadLoggingEnabled());
+        assertEquals(false, effective.isForeignKeysEnabled());
+        assertEquals(Long.valueOf(SugarContext.getSugarContext().getSugarDb().getDB().getPageSize()), effective.getPageSize());
+    }
 }
@@ -0,0 +1,223 @@
+package com.orm;
+
+import android.os.Build;
+
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.helper.NamingHelper;
+import com.orm.model.ByteArrayAnnotatedModel;
+import com.orm.model.SimpleModel;
+import com.orm.util.QueryCache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static com.orm.SugarRecord.count;
+import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.listAll;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class SugarImporterTest {
+
+    private static InputStream stream(String content) throws IOException {
+        return new ByteArrayInputStream(content.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        String csv = "str,INTEGER,Bool,unknown\r\n"
+                + "plain,1,true,x\r\n"
+                + "\"with, comma\",2,0,x\n"
+                + "\"with \"\"quotes\"\"\nand a line break\",3,1,x\n"
+                + "\n"
+                + ",,,\n";
+
+        assertEquals(4, SugarImporter.importCsv(SimpleModel.class, stream(csv)));
+
+        List<SimpleModel> models = listAll(SimpleModel.class, "id");
+        assertEquals(4, models.size());
+        assertEquals("plain", models.get(0).getStr());
+        assertEquals(1, models.get(0).getInteger());
+        assertTrue(models.get(0).isBool());
+        assertEquals("with, comma", models.get(1).getStr());
+        assertFalse(models.get(1).isBool());
+        assertEquals("with \"quotes\"\nand a line break", models.get(2).getStr());
+        assertEquals(3, models.get(2).getInteger());
+        assertEquals("", models.get(3).getStr());
+        assertEquals(0, models.get(3).getInteger());
+    }
+
+    @Test
+    public void testCsvReplacesById() throws IOException {
+        SimpleModel model = new SimpleModel();
+        model.setStr("before");
+        SugarRecord.save(model);
+
+        SugarImporter.importCsv(SimpleModel.class, stream("ID,STR\n" + model.getId() + ",after\n,new\n"));
+
+        assertEquals(2L, count(SimpleModel.class));
+        assertEquals("after", findById(SimpleModel.class, model.getId()).getStr());
+    }
+
+    @Test
+    public void testEmptyCsv() throws IOException {
+        assertEquals(0, SugarImporter.importCsv(SimpleModel.class, stream("")));
+        assertEquals(0, SugarImporter.importCsv(SimpleModel.class, stream("STR,INTEGER\n")));
+        assertEquals(0L, count(SimpleModel.class));
+    }
+
+    @Test
+    public void testJsonArray() throws IOException {
+        String json = "[{\"str\": \"first\", \"integer\": 7, \"bool\": true, \"nested\": {\"a\": [1, 2]}},"
+                + "{\"id\": 42, \"str\": null, \"integer\": \"8\", \"bool\": false, \"unknown\": 1}]";
+
+        assertEquals(2, SugarImporter.importJsonArray(SimpleModel.class, stream(json)));
+
+        List<SimpleModel> models = listAll(SimpleModel.class, "id");
+        assertEquals(2, models.size());
+        assertEquals("first", models.get(0).getStr());
+        assertEquals(7, models.get(0).getInteger());
+        assertTrue(models.get(0).isBool());
+        assertEquals(Long.valueOf(42), models.get(1).getId());
+        assertNull(models.get(1).getStr());
+        assertEquals(8, models.get(1).getInteger());
+        assertFalse(models.get(1).isBool());
+    }
+
+    @Test
+    public void testBase64Blob() throws IOException {
+        SugarImporter.importJsonArray(ByteArrayAnnotatedModel.class, stream("[{\"byteArray\": \"AQID\"}]"));
+
+        List<ByteArrayAnnotatedModel> models = listAll(ByteArrayAnnotatedModel.class);
+        assertEquals(1, models.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, models.get(0).getByteArray());
+    }
+
+    @Test
+    public void testCommittedBatchesKept() throws IOException {
+        String csv = "STR,INTEGER\na,1\nb,2\nc,3\nd,not a number\ne,5\n";
+
+        try {
+            SugarImporter.importCsv(SimpleModel.class, stream(csv), 2);
+            fail("Invalid integer should fail the import");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("INTEGER"));
+        }
+
+        assertEquals(2L, count(SimpleModel.class));
+    }
+
+    @Test
+    public void testCachesInvalidatedPerBatch() throws IOException {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration()
+                .setEntityCacheSize(100)
+                .setQueryCacheSize(100));
+        final SimpleModel model = new SimpleModel();
+        model.setStr("before");
+        SugarRecord.save(model);
+
+        final QueryCache queryCache = SugarContext.getSugarContext().getQueryCache();
+        String table = NamingHelper.toTableName(SimpleModel.class);
+        queryCache.put("imported", queryCache.snapshot(new String[]{table}), "before");
+
+        // Served a byte per read. The reader looks a byte ahead, so the second byte of the third
+        // row is only read once the first batch is committed
+        final byte[] csv = ("ID,STR\n" + model.getId() + ",after\n,new\n,last\n").getBytes("UTF-8");
+        final int afterFirstBatch = csv.length - ",last\n".length() + 1;
+        SugarImporter.importCsv(SimpleModel.class, new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                if (position == afterFirstBatch) {
+                    assertNull(SugarContext.getSugarContext().getEntityCache().get(SimpleModel.class, model.getId()));
+                    assertNull(queryCache.get("imported"));
+                }
+                return (position < csv.length) ? csv[position++] : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                int read = read();
+                if (read == -1) {
+                    return -1;
+                }
+                buffer[offset] = (byte) read;
+                return 1;
+            }
+        }, 2);
+
+        assertEquals(3L, count(SimpleModel.class));
+        assertEquals("after", findById(SimpleModel.class, model.getId()).getStr());
+    }
+
+    @Test
+    public void testJsonArrayBelowApi11() throws IOException {
+        int sdk = Build.VERSION.SDK_INT;
+        ReflectionHelpers.setStaticField(Build.VERSION.class, "SDK_INT", Build.VERSION_CODES.GINGERBREAD_MR1);
+        try {
+            SugarImporter.importJsonArray(SimpleModel.class, stream("[]"));
+            fail("JsonReader is not available below API 11");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(0L, count(SimpleModel.class));
+        } finally {
+            ReflectionHelpers.setStaticField(Build.VERSION.class, "SDK_INT", sdk);
+        }
+    }
+
+    @Test
+    public void testMillionRows() throws IOException {
+        assumeTrue("Large import, run with -Psugar.largeTests", Boolean.getBoolean("sugar.largeTests"));
+
+        int rows = 1000000;
+        long imported = SugarImporter.importCsv(SimpleModel.class, new SyntheticCsv(rows), 10000);
+
+        assertEquals(rows, imported);
+        assertEquals(rows, count(SimpleModel.class));
+        assertEquals(rows - 1, findById(SimpleModel.class, rows).getInteger());
+    }
+
+    /**
+     * Generates CSV rows as they are read, so the input itself never sits in memory.
+     */
+    private static final class SyntheticCsv extends InputStream {
+        private final int rows;
+        private int row = -1;
+        private byte[] line = "STR,INTEGER,BOOL\n".getBytes();
+        private int position = 0;
+
+        SyntheticCsv(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                row++;
+                if (row >= rows) {
+                    return -1;
+                }
+                line = ("row " + row + "," + row + "," + (row % 2 == 0) + "\n").getBytes();
+                position = 0;
+            }
+            return line[position++] & 0xff;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.orm.helper;
+
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.MappedModel;
+import com.orm.model.MappedModel_SugarMapper;
+import com.orm.model.SimpleAnnotatedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.listAll;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class MapperHelperTest {
+
+    @Test
+    public void testMapperClassName() {
+        assertEquals("com.orm.model.MappedModel_SugarMapper", MapperHelper.toMapperClassName(MappedModel.class));
+        assertEquals("com.orm.helper.MapperHelperTest_Nested_SugarMapper", MapperHelper.toMapperClassName(Nested.class));
+    }
+
+    @Test
+    public void testGetMapper() {
+        assertTrue(MapperHelper.getMapper(MappedModel.class) instanceof MappedModel_SugarMapper);
+        assertNull(MapperHelper.getMapper(SimpleAnnotatedModel.class));
+    }
+
+    @Test
+    public void testSaveAndLoadThroughMapper() {
+        int bindCount = MappedModel_SugarMapper.bindCount;
+        int readCount = MappedModel_SugarMapper.readCount;
+
+        MappedModel model = new MappedModel("mapped", 3);
+        save(model);
+        save(new MappedModel("other", 4));
+
+        assertNotNull(model.getId());
+        assertEquals(bindCount + 2, MappedModel_SugarMapper.bindCount);
+
+        MappedModel found = findById(MappedModel.class, model.getId());
+        assertEquals("mapped", found.getName());
+        assertEquals(3, found.getCount());
+
+        List<MappedModel> models = listAll(MappedModel.class);
+        assertEquals(2, models.size());
+        assertEquals(readCount + 3, MappedModel_SugarMapper.readCount);
+    }
+
+    static class Nested { }
+}
@@ -0,0 +1,38 @@
+package com.orm.model;
+
+import com.orm.SugarRecord;
+import com.orm.annotation.CompositeIndex;
+import com.orm.annotation.Index;
+import com.orm.annotation.Indices;
+
+@Indices({
+        @CompositeIndex("status, priority"),
+        @CompositeIndex(value = "priority", name = "OPEN_PRIORITY", where = "STATUS = 'open'")
+})
+public class IndexedModel extends SugarRecord {
+    @Index
+    private String status;
+    private int priority;
+    @Index(name = "RECENT", where = "CREATED > 0")
+    private long created;
+
+    public IndexedModel() { }
+
+    public IndexedModel(String status, int priority, long created) {
+        this.status = status;
+        this.priority = priority;
+        this.created = created;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+}
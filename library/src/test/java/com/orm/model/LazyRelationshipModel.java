@@ -0,0 +1,18 @@
+package com.orm.model;
+
+import com.orm.SugarLazy;
+import com.orm.SugarRecord;
+
+public class LazyRelationshipModel extends SugarRecord {
+    private SugarLazy<SimpleExtendedModel> simple;
+
+    public LazyRelationshipModel() {}
+
+    public LazyRelationshipModel(SugarLazy<SimpleExtendedModel> simple) {
+        this.simple = simple;
+    }
+
+    public SugarLazy<SimpleExtendedModel> getSimple() {
+        return simple;
+    }
+}
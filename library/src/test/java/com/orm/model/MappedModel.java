@@ -0,0 +1,29 @@
+package com.orm.model;
+
+import com.orm.annotation.Table;
+
+@Table
+public class MappedModel {
+    Long id;
+    String name;
+    int count;
+
+    public MappedModel() {}
+
+    public MappedModel(String name, int count) {
+        this.name = name;
+        this.count = count;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
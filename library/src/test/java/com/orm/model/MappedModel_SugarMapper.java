@@ -0,0 +1,72 @@
+package com.orm.model;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.orm.helper.MapperHelper;
+import com.orm.mapper.EntityMapper;
+
+/**
+ * Hand written equivalent of the mapper the sugar compiler generates for {@link MappedModel},
+ * counting its calls so tests can check the runtime goes through it.
+ */
+public final class MappedModel_SugarMapper implements EntityMapper<MappedModel> {
+    public static int bindCount = 0;
+    public static int readCount = 0;
+
+    private static final String[] COLUMNS = {"ID", "NAME", "COUNT"};
+
+    @Override
+    public MappedModel newInstance() {
+        return new MappedModel();
+    }
+
+    @Override
+    public boolean hasIdField() {
+        return true;
+    }
+
+    @Override
+    public Long getId(MappedModel entity) {
+        return entity.id;
+    }
+
+    @Override
+    public void setId(MappedModel entity, Long id) {
+        entity.id = id;
+    }
+
+    @Override
+    public void bindValues(MappedModel entity, ContentValues values) {
+        bindCount++;
+        values.put("ID", entity.id);
+        MapperHelper.putString(values, "NAME", entity.name);
+        values.put("COUNT", entity.count);
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return COLUMNS;
+    }
+
+    @Override
+    public void readCursor(Cursor cursor, int[] indexes, MappedModel entity) {
+        readCount++;
+        int index;
+
+        index = indexes[0];
+        if (index >= 0 && !cursor.isNull(index)) {
+            entity.id = cursor.getLong(index);
+        }
+
+        index = indexes[1];
+        if (index >= 0 && !cursor.isNull(index)) {
+            entity.name = MapperHelper.getString(cursor, index);
+        }
+
+        index = indexes[2];
+        if (index >= 0 && !cursor.isNull(index)) {
+            entity.count = cursor.getInt(index);
+        }
+    }
+}
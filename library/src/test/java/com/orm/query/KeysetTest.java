@@ -0,0 +1,61 @@
+package com.orm.query;
+
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.SimpleModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class KeysetTest {
+
+    @Test
+    public void testOrderEndsWithId() {
+        assertEquals("ID ASC", new Keyset(SimpleModel.class, "").getOrderBy());
+        assertEquals("INTEGER DESC, ID DESC", new Keyset(SimpleModel.class, "integer desc").getOrderBy());
+        assertEquals("INTEGER DESC, STR ASC, ID ASC", new Keyset(SimpleModel.class, "INTEGER DESC,str").getOrderBy());
+        assertEquals("ID DESC, INTEGER ASC", new Keyset(SimpleModel.class, "id DESC, integer").getOrderBy());
+    }
+
+    @Test
+    public void testSeekClause() {
+        assertEquals("ID > ?", new Keyset(SimpleModel.class, null).getSeekClause());
+        assertEquals("INTEGER <= ? AND (INTEGER < ? OR (STR >= ? AND (STR > ? OR (ID > ?))))",
+                new Keyset(SimpleModel.class, "integer DESC, str").getSeekClause());
+    }
+
+    @Test
+    public void testSeekArguments() {
+        Keyset keyset = new Keyset(SimpleModel.class, "integer DESC, bool");
+
+        assertEquals(Arrays.<Object>asList(5L, 5L, 1L, 1L, 7L), keyset.getSeekArguments(new Page.Key(5, true, 7L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyOfAnotherOrder() {
+        new Keyset(SimpleModel.class, "integer DESC").getSeekArguments(new Page.Key(5L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        new Keyset(SimpleModel.class, "integer DESC").getSeekArguments(new Page.Key(null, 5L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpression() {
+        new Keyset(SimpleModel.class, "integer + 1 DESC");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+        new Keyset(SimpleModel.class, "missing");
+    }
+}
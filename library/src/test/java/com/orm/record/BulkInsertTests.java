@@ -0,0 +1,156 @@
+package com.orm.record;
+
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.IntUniqueModel;
+import com.orm.model.MappedModel;
+import com.orm.model.MappedModel_SugarMapper;
+import com.orm.model.SimpleAnnotatedModel;
+import com.orm.model.SimpleModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.orm.SugarRecord.bulkInsert;
+import static com.orm.SugarRecord.count;
+import static com.orm.SugarRecord.findById;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class BulkInsertTests {
+
+    private static List<SimpleModel> simpleModels(int size) {
+        List<SimpleModel> models = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr("row " + i);
+            model.setInteger(i);
+            model.setBool(i % 2 == 0);
+            models.add(model);
+        }
+        return models;
+    }
+
+    @Test
+    public void emptyTest() {
+        assertTrue(bulkInsert(SimpleModel.class, Collections.<SimpleModel>emptyList()).isEmpty());
+        assertEquals(0L, count(SimpleModel.class));
+    }
+
+    @Test
+    public void idsInInputOrderTest() {
+        List<SimpleModel> models = simpleModels(10);
+        List<Long> ids = bulkInsert(SimpleModel.class, models);
+
+        assertEquals(10, ids.size());
+        assertEquals(10L, count(SimpleModel.class));
+
+        for (int i = 0; i < models.size(); i++) {
+            assertEquals(ids.get(i), models.get(i).getId());
+
+            SimpleModel loaded = findById(SimpleModel.class, ids.get(i));
+            assertEquals("row " + i, loaded.getStr());
+            assertEquals(i, loaded.getInteger());
+            assertEquals(i % 2 == 0, loaded.isBool());
+        }
+    }
+
+    @Test
+    public void moreThanVariableLimitTest() {
+        List<SimpleModel> models = simpleModels(2500);
+        List<Long> ids = bulkInsert(SimpleModel.class, models);
+
+        assertEquals(2500, ids.size());
+        assertEquals(2500, new HashSet<>(ids).size());
+        assertEquals(2500L, count(SimpleModel.class));
+
+        for (int i = 0; i < models.size(); i += 97) {
+            assertEquals(i, findById(SimpleModel.class, ids.get(i)).getInteger());
+        }
+    }
+
+    @Test
+    public void savedRowsReplacedTest() {
+        List<SimpleModel> models = simpleModels(4);
+        SugarRecord.save(models.get(1));
+        SugarRecord.save(models.get(3));
+        Long firstSaved = models.get(1).getId();
+
+        models.get(1).setStr("replaced");
+        List<Long> ids = bulkInsert(SimpleModel.class, models);
+
+        assertEquals(4L, count(SimpleModel.class));
+        assertEquals(firstSaved, ids.get(1));
+        assertEquals("replaced", findById(SimpleModel.class, firstSaved).getStr());
+
+        for (int i = 0; i < models.size(); i++) {
+            assertEquals(ids.get(i), models.get(i).getId());
+            assertEquals(i, findById(SimpleModel.class, ids.get(i)).getInteger());
+        }
+    }
+
+    @Test
+    public void uniqueReplacedTest() {
+        // The second row replaces the first, each row keeps the id it was inserted with
+        List<IntUniqueModel> models = new ArrayList<>();
+        models.add(new IntUniqueModel(1));
+        models.add(new IntUniqueModel(1));
+        models.add(new IntUniqueModel(2));
+
+        List<Long> ids = bulkInsert(IntUniqueModel.class, models);
+
+        assertEquals(2L, count(IntUniqueModel.class));
+        assertEquals(3, ids.size());
+        for (int i = 1; i < models.size(); i++) {
+            assertEquals(ids.get(i), models.get(i).getId());
+            assertNotNull(findById(IntUniqueModel.class, ids.get(i)));
+        }
+        assertNotEquals(ids.get(1), ids.get(2));
+    }
+
+    @Test
+    public void annotatedTest() {
+        List<SimpleAnnotatedModel> models = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            models.add(new SimpleAnnotatedModel());
+        }
+
+        List<Long> ids = bulkInsert(SimpleAnnotatedModel.class, models);
+
+        assertEquals(5L, count(SimpleAnnotatedModel.class));
+        for (int i = 0; i < models.size(); i++) {
+            assertEquals(ids.get(i), models.get(i).getId());
+        }
+    }
+
+    @Test
+    public void mapperTest() {
+        List<MappedModel> models = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            models.add(new MappedModel("mapped " + i, i));
+        }
+        int bindCount = MappedModel_SugarMapper.bindCount;
+
+        List<Long> ids = bulkInsert(MappedModel.class, models);
+
+        assertEquals(bindCount + 5, MappedModel_SugarMapper.bindCount);
+        for (int i = 0; i < models.size(); i++) {
+            MappedModel loaded = findById(MappedModel.class, ids.get(i));
+            assertEquals(ids.get(i), models.get(i).getId());
+            assertEquals("mapped " + i, loaded.getName());
+            assertEquals(i, loaded.getCount());
+        }
+    }
+}
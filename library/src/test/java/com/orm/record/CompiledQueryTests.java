@@ -0,0 +1,207 @@
+package com.orm.record;
+
+import android.database.Cursor;
+
+import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.SimpleModel;
+import com.orm.query.CompiledQuery;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+import com.orm.util.QueryCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class CompiledQueryTests {
+
+    @Before
+    public void setUp() {
+        List<SimpleModel> models = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr("row " + i);
+            model.setInteger(i % 5);
+            model.setBool(i % 2 == 0);
+            models.add(model);
+        }
+        SugarRecord.saveInTx(models);
+    }
+
+    private static CompiledQuery<SimpleModel> byInteger() {
+        return Select.from(SimpleModel.class)
+                .where(Condition.prop("integer").eq(0))
+                .orderBy("str")
+                .compile();
+    }
+
+    @Test
+    public void testSql() {
+        CompiledQuery<SimpleModel> query = byInteger();
+
+        assertEquals("SELECT * FROM SIMPLE_MODEL WHERE (integer = ? ) ORDER BY str", query.getSql());
+        assertEquals(1, query.getArgumentCount());
+        assertSame(SimpleModel.class, query.getType());
+    }
+
+    @Test
+    public void testListRebindsArguments() {
+        CompiledQuery<SimpleModel> query = byInteger();
+
+        List<SimpleModel> defaults = query.list();
+        assertEquals(2, defaults.size());
+        assertEquals("row 0", defaults.get(0).getStr());
+        assertEquals("row 5", defaults.get(1).getStr());
+
+        for (int i = 0; i < 5; i++) {
+            List<SimpleModel> models = query.list(i);
+            assertEquals(2, models.size());
+            assertEquals(i, models.get(0).getInteger());
+            assertEquals("row " + i, models.get(0).getStr());
+        }
+        assertEquals(0, query.list(7).size());
+    }
+
+    @Test
+    public void testFirstAndCount() {
+        CompiledQuery<SimpleModel> query = byInteger();
+
+        assertEquals("row 3", query.first(3).getStr());
+        assertNull(query.first(7));
+        assertEquals(2, query.count(4));
+        assertEquals(0, query.count(7));
+        assertEquals(10, Select.from(SimpleModel.class).compile().count());
+    }
+
+    @Test
+    public void testCountAfterReopen() {
+        CompiledQuery<SimpleModel> query = byInteger();
+        assertEquals(2, query.count(1));
+
+        SugarContext.terminate();
+        SugarContext.init(RuntimeEnvironment.application);
+
+        assertEquals(2, query.count(3));
+        assertEquals(2, query.list(3).size());
+    }
+
+    @Test
+    public void testCursor() {
+        Cursor cursor = byInteger().getCursor(1);
+        try {
+            assertEquals(2, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void testBooleansAndEntities() {
+        CompiledQuery<SimpleModel> query = Select.from(SimpleModel.class)
+                .where(Condition.prop("bool").eq(true))
+                .compile();
+        assertEquals(5, query.count(true));
+        assertEquals(5, query.count(false));
+
+        SimpleModel first = SugarRecord.findById(SimpleModel.class, 1L);
+        CompiledQuery<SimpleModel> byId = Select.from(SimpleModel.class)
+                .where(Condition.prop("id").eq(1L))
+                .compile();
+        assertEquals("row 0", byId.first(first).getStr());
+    }
+
+    @Test
+    public void testConditionsAddedLaterIgnored() {
+        Select<SimpleModel> select = Select.from(SimpleModel.class).where(Condition.prop("integer").eq(1));
+        CompiledQuery<SimpleModel> query = select.compile();
+        select.and(Condition.prop("bool").eq(true));
+
+        assertEquals(2, query.count());
+    }
+
+    @Test
+    public void testCountNotCompiled() {
+        Select<SimpleModel> select = Select.from(SimpleModel.class).where("missing = ?", new String[]{"1"});
+
+        assertEquals(-1, select.count());
+        assertEquals(-1, select.compile().count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongArgumentCount() {
+        byInteger().list(1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullArgument() {
+        byInteger().list((Object) null);
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        final CompiledQuery<SimpleModel> query = byInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final int integer = i % 5;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        int found = 0;
+                        for (SimpleModel model : query.list(integer)) {
+                            if (model.getInteger() == integer) {
+                                found++;
+                            }
+                        }
+                        return found;
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(2, (int) result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueryCache() {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration().setQueryCacheSize(100));
+        QueryCache cache = SugarContext.getSugarContext().getQueryCache();
+        CompiledQuery<SimpleModel> query = byInteger();
+
+        List<SimpleModel> first = query.list(2);
+        assertSame(first.get(0), query.list(2).get(0));
+        assertEquals(2, query.count(2));
+        assertEquals(2, query.count(2));
+        assertEquals(2, cache.getHitCount());
+
+        SimpleModel model = new SimpleModel();
+        model.setInteger(2);
+        SugarRecord.save(model);
+        assertEquals(3, query.list(2).size());
+        assertEquals(3, query.count(2));
+    }
+}
@@ -0,0 +1,183 @@
+package com.orm.record;
+
+import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.SimpleExtendedModel;
+import com.orm.model.StringFieldExtendedModel;
+import com.orm.util.EntityCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.orm.SugarRecord.findById;
+import static com.orm.SugarRecord.listAll;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class EntityCacheTests {
+    private EntityCache cache;
+
+    @Before
+    public void setUp() {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration().setEntityCacheSize(100));
+        cache = SugarContext.getSugarContext().getEntityCache();
+    }
+
+    @Test
+    public void testFindSavedEntity() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("cached");
+        save(model);
+
+        assertSame(model, findById(StringFieldExtendedModel.class, model.getId()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testFindLoadedEntity() {
+        save(new StringFieldExtendedModel("cached"));
+        cache.clear();
+
+        StringFieldExtendedModel loaded = listAll(StringFieldExtendedModel.class).get(0);
+        assertSame(loaded, findById(StringFieldExtendedModel.class, loaded.getId()));
+        assertSame(loaded, SugarRecord.first(StringFieldExtendedModel.class));
+        assertSame(loaded, SugarRecord.last(StringFieldExtendedModel.class));
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    public void testMiss() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("cached");
+        save(model);
+        cache.clear();
+
+        StringFieldExtendedModel found = findById(StringFieldExtendedModel.class, model.getId());
+        assertNotSame(model, found);
+        assertEquals("cached", found.getString());
+        assertEquals(1, cache.getMissCount());
+        assertSame(found, findById(StringFieldExtendedModel.class, model.getId()));
+    }
+
+    @Test
+    public void testPartialRowsNotCached() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("cached");
+        save(model);
+        cache.clear();
+
+        List<StringFieldExtendedModel> ids = SugarRecord.findWithQuery(StringFieldExtendedModel.class,
+                "SELECT id FROM STRING_FIELD_EXTENDED_MODEL");
+        assertEquals(1, ids.size());
+        assertNull(ids.get(0).getString());
+
+        StringFieldExtendedModel found = findById(StringFieldExtendedModel.class, model.getId());
+        assertNotSame(ids.get(0), found);
+        assertEquals("cached", found.getString());
+    }
+
+    @Test
+    public void testUpdate() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("before");
+        save(model);
+        StringFieldExtendedModel copy = new StringFieldExtendedModel("after");
+        copy.setId(model.getId());
+        SugarRecord.update(copy);
+
+        assertSame(copy, findById(StringFieldExtendedModel.class, model.getId()));
+    }
+
+    @Test
+    public void testSaveInTxRolledBack() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("saved");
+
+        // Saving null fails the transaction after the model was saved
+        SugarRecord.saveInTx(Arrays.asList(model, null));
+
+        assertEquals(0L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertNull(findById(StringFieldExtendedModel.class, model.getId()));
+    }
+
+    @Test
+    public void testUpdateInTxRolledBack() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("before");
+        save(model);
+        model.setString("after");
+
+        SugarRecord.updateInTx(Arrays.asList(model, null));
+
+        StringFieldExtendedModel found = findById(StringFieldExtendedModel.class, model.getId());
+        assertNotSame(model, found);
+        assertEquals("before", found.getString());
+    }
+
+    @Test
+    public void testDelete() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("deleted");
+        save(model);
+        SugarRecord.delete(model);
+
+        assertEquals(null, findById(StringFieldExtendedModel.class, model.getId()));
+    }
+
+    @Test
+    public void testDeleteAll() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("deleted");
+        save(model);
+        SugarRecord.deleteAll(StringFieldExtendedModel.class);
+
+        assertEquals(null, findById(StringFieldExtendedModel.class, model.getId()));
+    }
+
+    @Test
+    public void testExecuteQuery() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("before");
+        save(model);
+        SugarRecord.executeQuery("UPDATE STRING_FIELD_EXTENDED_MODEL SET STRING = 'after'");
+
+        assertEquals("after", findById(StringFieldExtendedModel.class, model.getId()).getString());
+    }
+
+    @Test
+    public void testRelationsShareCachedEntity() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new RelationshipExtendedModel(simple));
+        save(new RelationshipExtendedModel(simple));
+        cache.removeAll(RelationshipExtendedModel.class);
+
+        List<RelationshipExtendedModel> models = listAll(RelationshipExtendedModel.class);
+        assertEquals(2, models.size());
+        assertSame(simple, models.get(0).getSimple());
+        assertSame(simple, models.get(1).getSimple());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        SugarContext.init(RuntimeEnvironment.application);
+        StringFieldExtendedModel model = new StringFieldExtendedModel("not cached");
+        save(model);
+
+        StringFieldExtendedModel found = findById(StringFieldExtendedModel.class, model.getId());
+        assertNotNull(found);
+        assertNotSame(model, found);
+        assertFalse(SugarContext.getSugarContext().getEntityCache().isEnabled());
+    }
+}
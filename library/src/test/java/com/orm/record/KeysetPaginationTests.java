@@ -0,0 +1,140 @@
+package com.orm.record;
+
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.SimpleModel;
+import com.orm.query.Condition;
+import com.orm.query.Page;
+import com.orm.query.Select;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class KeysetPaginationTests {
+    private static final int ROWS = 23;
+
+    @Before
+    public void setUp() {
+        List<SimpleModel> models = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr("row " + (i % 7));
+            // Ties, so the id decides
+            model.setInteger(i / 3);
+            model.setBool(i % 2 == 0);
+            models.add(model);
+        }
+        SugarRecord.saveInTx(models);
+    }
+
+    private static List<SimpleModel> readAll(String orderBy, int size) {
+        List<SimpleModel> all = new ArrayList<>();
+        Page.Key key = null;
+        do {
+            Page<SimpleModel> page = Select.from(SimpleModel.class).orderBy(orderBy).after(key).page(size);
+            assertTrue(page.getItems().size() <= size);
+            all.addAll(page.getItems());
+            key = page.getNextKey();
+        } while (key != null);
+        return all;
+    }
+
+    private static void assertSameRows(List<SimpleModel> expected, List<SimpleModel> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testPagesCoverEveryRowInOrder() {
+        for (String orderBy : new String[]{"integer DESC, id DESC", "integer", "str, integer DESC", "id"}) {
+            List<SimpleModel> expected = Select.from(SimpleModel.class).orderBy(orderBy + (orderBy.contains("id") ? "" : ", id")).list();
+            for (int size : new int[]{1, 5, ROWS, ROWS + 1}) {
+                assertSameRows(expected, readAll(orderBy, size));
+            }
+        }
+    }
+
+    @Test
+    public void testAfterRowOrKey() {
+        Page<SimpleModel> first = Select.from(SimpleModel.class).orderBy("integer DESC").page(5);
+        SimpleModel last = first.getItems().get(4);
+
+        Page<SimpleModel> byRow = Select.from(SimpleModel.class).orderBy("integer DESC").after(last).page(5);
+        Page<SimpleModel> byKey = Select.from(SimpleModel.class).orderBy("integer DESC").after(first.getNextKey()).page(5);
+
+        assertEquals(new Page.Key((long) last.getInteger(), last.getId()), first.getNextKey());
+        assertSameRows(byRow.getItems(), byKey.getItems());
+        assertEquals(byRow.getNextKey(), byKey.getNextKey());
+        assertTrue(byKey.getItems().get(0).getInteger() <= last.getInteger());
+    }
+
+    @Test
+    public void testSameRowsAsOffset() {
+        Page.Key key = null;
+        for (int offset = 0; offset < ROWS; offset += 4) {
+            Page<SimpleModel> page = Select.from(SimpleModel.class).orderBy("integer DESC, id DESC").after(key).page(4);
+            List<SimpleModel> expected = Select.from(SimpleModel.class)
+                    .orderBy("integer DESC, id DESC")
+                    .limit("4")
+                    .offset(String.valueOf(offset))
+                    .compile()
+                    .list();
+
+            assertSameRows(expected, page.getItems());
+            key = page.getNextKey();
+        }
+        assertNull(key);
+    }
+
+    @Test
+    public void testWithConditions() {
+        List<SimpleModel> expected = Select.from(SimpleModel.class)
+                .where(Condition.prop("bool").eq(true))
+                .orderBy("integer DESC, id DESC")
+                .list();
+
+        List<SimpleModel> all = new ArrayList<>();
+        Page<SimpleModel> page = null;
+        do {
+            page = Select.from(SimpleModel.class)
+                    .where(Condition.prop("bool").eq(true))
+                    .orderBy("integer DESC")
+                    .after((page != null) ? page.getNextKey() : null)
+                    .page(4);
+            all.addAll(page.getItems());
+        } while (page.hasNext());
+
+        assertSameRows(expected, all);
+    }
+
+    @Test
+    public void testLastPage() {
+        Page<SimpleModel> page = Select.from(SimpleModel.class).page(ROWS);
+
+        assertEquals(ROWS, page.getItems().size());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextKey());
+        assertEquals(0, Select.from(SimpleModel.class).after(page.getItems().get(ROWS - 1)).page(5).getItems().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPage() {
+        Select.from(SimpleModel.class).page(0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.orm.record;
+
+import com.orm.SugarLazy;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.LazyRelationshipModel;
+import com.orm.model.SimpleExtendedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarRecord.listAll;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class LazyRelationshipTests {
+
+    @Test
+    public void notLoadedUntilAccessedTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new LazyRelationshipModel(SugarLazy.of(simple)));
+
+        LazyRelationshipModel model = listAll(LazyRelationshipModel.class).get(0);
+        SugarLazy<SimpleExtendedModel> lazy = model.getSimple();
+
+        assertNotNull(lazy);
+        assertFalse(lazy.isLoaded());
+        assertEquals(simple.getId(), lazy.getId());
+        assertEquals(simple.getId(), lazy.get().getId());
+        assertTrue(lazy.isLoaded());
+    }
+
+    @Test
+    public void sharedParentTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new LazyRelationshipModel(SugarLazy.of(simple)));
+        save(new LazyRelationshipModel(SugarLazy.of(SimpleExtendedModel.class, simple.getId())));
+
+        List<LazyRelationshipModel> models = listAll(LazyRelationshipModel.class);
+        assertEquals(2, models.size());
+        assertSame(models.get(0).getSimple().get(), models.get(1).getSimple().get());
+    }
+
+    @Test
+    public void nullRelationTest() {
+        save(new LazyRelationshipModel(null));
+        save(new LazyRelationshipModel(SugarLazy.<SimpleExtendedModel>of((SimpleExtendedModel) null)));
+
+        for (LazyRelationshipModel model : listAll(LazyRelationshipModel.class)) {
+            assertNull(model.getSimple().getId());
+            assertNull(model.getSimple().get());
+        }
+    }
+
+    @Test
+    public void resaveTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new LazyRelationshipModel(SugarLazy.of(simple)));
+
+        LazyRelationshipModel model = listAll(LazyRelationshipModel.class).get(0);
+        save(model);
+
+        LazyRelationshipModel reloaded = listAll(LazyRelationshipModel.class).get(0);
+        assertEquals(simple.getId(), reloaded.getSimple().getId());
+    }
+}
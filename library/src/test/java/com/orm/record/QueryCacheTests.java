@@ -0,0 +1,166 @@
+package com.orm.record;
+
+import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.SimpleExtendedModel;
+import com.orm.model.StringFieldExtendedModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+import com.orm.util.QueryCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class QueryCacheTests {
+    private QueryCache cache;
+
+    @Before
+    public void setUp() {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration().setQueryCacheSize(100));
+        cache = SugarContext.getSugarContext().getQueryCache();
+    }
+
+    private static List<StringFieldExtendedModel> select(String string) {
+        return Select.from(StringFieldExtendedModel.class)
+                .where(Condition.prop("string").eq(string))
+                .list();
+    }
+
+    @Test
+    public void testListCached() {
+        save(new StringFieldExtendedModel("cached"));
+
+        List<StringFieldExtendedModel> first = select("cached");
+        List<StringFieldExtendedModel> second = select("cached");
+
+        assertEquals(1, second.size());
+        assertSame(first.get(0), second.get(0));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, select("other").size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testReturnedListIsCopy() {
+        save(new StringFieldExtendedModel("cached"));
+
+        select("cached").clear();
+        assertEquals(1, select("cached").size());
+    }
+
+    @Test
+    public void testEntitiesShared() {
+        save(new StringFieldExtendedModel("cached"));
+        StringFieldExtendedModel model = select("cached").get(0);
+
+        // Hits return the same instances, changed until they are saved
+        model.setString("changed");
+        assertSame(model, select("cached").get(0));
+        assertEquals("changed", select("cached").get(0).getString());
+
+        save(model);
+        assertEquals(0, select("cached").size());
+    }
+
+    @Test
+    public void testSubqueryNotCached() {
+        save(new StringFieldExtendedModel("cached"));
+        String whereClause = "id IN (SELECT id FROM SIMPLE_EXTENDED_MODEL)";
+        assertEquals(0, SugarRecord.find(StringFieldExtendedModel.class, whereClause).size());
+        assertEquals(0, SugarRecord.count(StringFieldExtendedModel.class, whereClause, null));
+
+        // Doesn't invalidate the table of the entities
+        save(new SimpleExtendedModel());
+        assertEquals(1, SugarRecord.find(StringFieldExtendedModel.class, whereClause).size());
+        assertEquals(1, SugarRecord.count(StringFieldExtendedModel.class, whereClause, null));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testWritesInvalidate() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("cached");
+        save(model);
+        assertEquals(1, select("cached").size());
+
+        save(new StringFieldExtendedModel("cached"));
+        assertEquals(2, select("cached").size());
+
+        SugarRecord.delete(model);
+        assertEquals(1, select("cached").size());
+
+        SugarRecord.saveInTx(new StringFieldExtendedModel("cached"), new StringFieldExtendedModel("cached"));
+        assertEquals(3, select("cached").size());
+
+        SugarRecord.deleteAll(StringFieldExtendedModel.class);
+        assertEquals(0, select("cached").size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testCount() {
+        save(new StringFieldExtendedModel("counted"));
+        assertEquals(1, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals(1, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals(1, cache.getHitCount());
+
+        save(new StringFieldExtendedModel("counted"));
+        assertEquals(2, SugarRecord.count(StringFieldExtendedModel.class));
+    }
+
+    @Test
+    public void testExecuteQueryInvalidates() {
+        save(new StringFieldExtendedModel("before"));
+        assertEquals(1, select("before").size());
+
+        SugarRecord.executeQuery("UPDATE STRING_FIELD_EXTENDED_MODEL SET STRING = 'after'");
+        assertEquals(0, select("before").size());
+    }
+
+    @Test
+    public void testRelatedTableInvalidates() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new RelationshipExtendedModel(simple));
+        assertEquals(simple.getId(), SugarRecord.listAll(RelationshipExtendedModel.class).get(0).getSimple().getId());
+
+        SugarRecord.delete(simple);
+        assertNull(SugarRecord.listAll(RelationshipExtendedModel.class).get(0).getSimple());
+        assertArrayEquals(new String[]{"RELATIONSHIP_EXTENDED_MODEL", "SIMPLE_EXTENDED_MODEL"},
+                QueryCache.tablesOf(RelationshipExtendedModel.class));
+    }
+
+    @Test
+    public void testNotCachedInTransaction() {
+        save(new StringFieldExtendedModel("cached"));
+        SugarContext.getSugarContext().getSugarDb().getDB().beginTransaction();
+        try {
+            save(new StringFieldExtendedModel("cached"));
+            assertEquals(2, select("cached").size());
+        } finally {
+            SugarContext.getSugarContext().getSugarDb().getDB().endTransaction();
+        }
+
+        assertEquals(1, select("cached").size());
+        assertEquals(0, cache.getHitCount());
+    }
+}
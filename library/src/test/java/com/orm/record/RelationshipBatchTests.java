@@ -0,0 +1,100 @@
+package com.orm.record;
+
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.RelationshipAnnotatedModel;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.SimpleAnnotatedModel;
+import com.orm.model.SimpleExtendedModel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.orm.SugarRecord.listAll;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class RelationshipBatchTests {
+
+    @Test
+    public void sharedParentTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+
+        for (int i = 0; i < 10; i++) {
+            save(new RelationshipExtendedModel(simple));
+        }
+
+        List<RelationshipExtendedModel> models = listAll(RelationshipExtendedModel.class);
+        assertEquals(10, models.size());
+
+        SimpleExtendedModel loaded = models.get(0).getSimple();
+        assertNotNull(loaded);
+        assertEquals(simple.getId(), loaded.getId());
+
+        for (RelationshipExtendedModel model : models) {
+            assertSame(loaded, model.getSimple());
+        }
+    }
+
+    @Test
+    public void moreThanVariableLimitTest() {
+        List<SimpleAnnotatedModel> simples = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            simples.add(new SimpleAnnotatedModel());
+        }
+        SugarRecord.saveInTx(simples);
+
+        List<RelationshipAnnotatedModel> relations = new ArrayList<>();
+        for (SimpleAnnotatedModel simple : simples) {
+            relations.add(new RelationshipAnnotatedModel(simple));
+        }
+        SugarRecord.saveInTx(relations);
+
+        List<RelationshipAnnotatedModel> models = listAll(RelationshipAnnotatedModel.class, "id");
+        assertEquals(1500, models.size());
+
+        for (int i = 0; i < models.size(); i++) {
+            assertEquals(simples.get(i).getId(), models.get(i).getSimple().getId());
+        }
+    }
+
+    @Test
+    public void missingParentTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new RelationshipExtendedModel(simple));
+        save(new RelationshipExtendedModel(null));
+        simple.delete();
+
+        for (RelationshipExtendedModel model : listAll(RelationshipExtendedModel.class)) {
+            assertNull(model.getSimple());
+        }
+    }
+
+    @Test
+    public void iteratorSharedParentTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new RelationshipExtendedModel(simple));
+        save(new RelationshipExtendedModel(simple));
+
+        Iterator<RelationshipExtendedModel> iterator = SugarRecord.findAll(RelationshipExtendedModel.class);
+        SimpleExtendedModel first = iterator.next().getSimple();
+
+        assertEquals(simple.getId(), first.getId());
+        assertSame(first, iterator.next().getSimple());
+    }
+}
@@ -0,0 +1,236 @@
+package com.orm.record;
+
+import com.orm.SugarRecord;
+import com.orm.SugarResultStream;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.SimpleModel;
+import com.orm.model.StringFieldAnnotatedNoIdModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class ResultStreamTests {
+    private static final int ROWS = 20;
+
+    @Before
+    public void setUp() {
+        List<SimpleModel> models = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            SimpleModel model = new SimpleModel();
+            // Every third row has a null string
+            model.setStr((i % 3 == 0) ? null : "row " + i);
+            model.setInteger(i);
+            model.setBool(i % 2 == 0);
+            models.add(model);
+        }
+        SugarRecord.saveInTx(models);
+    }
+
+    private static SugarResultStream<SimpleModel> all() {
+        return Select.from(SimpleModel.class).orderBy("integer").iterator();
+    }
+
+    @Test
+    public void testIteratesEveryRow() {
+        int count = 0;
+        for (SimpleModel model : all()) {
+            assertEquals(count++, model.getInteger());
+        }
+        assertEquals(ROWS, count);
+    }
+
+    @Test
+    public void testClosesAtTheEnd() {
+        SugarResultStream<SimpleModel> stream = all();
+        assertEquals(ROWS, stream.toList().size());
+        assertFalse(stream.hasNext());
+        stream.close();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAfterTheEnd() {
+        SugarResultStream<SimpleModel> stream = SugarRecord.findAsIterator(SimpleModel.class, "integer < ?", "1");
+        stream.next();
+        stream.next();
+    }
+
+    @Test
+    public void testCloseBeforeTheEnd() {
+        SugarResultStream<SimpleModel> stream = all();
+        try {
+            for (SimpleModel model : stream) {
+                if (model.getInteger() == 4) {
+                    break;
+                }
+            }
+        } finally {
+            stream.close();
+        }
+
+        // The rows left aren't read from a closed cursor
+        assertFalse(stream.hasNext());
+        stream.close();
+    }
+
+    @Test
+    public void testLimit() {
+        SugarResultStream<SimpleModel> stream = all();
+        List<SimpleModel> first = stream.limit(3).toList();
+
+        assertEquals(3, first.size());
+        assertEquals(2, first.get(2).getInteger());
+        // Reaching the limit closes the cursor
+        assertFalse(stream.hasNext());
+        assertTrue(all().limit(0).toList().isEmpty());
+        assertEquals(ROWS, all().limit(ROWS + 1).toList().size());
+    }
+
+    @Test
+    public void testFilterAndMap() {
+        List<Integer> values = all()
+                .filter(new SugarResultStream.Predicate<SimpleModel>() {
+                    @Override
+                    public boolean test(SimpleModel value) {
+                        return value.isBool();
+                    }
+                })
+                .map(new SugarResultStream.Function<SimpleModel, Integer>() {
+                    @Override
+                    public Integer apply(SimpleModel value) {
+                        return value.getInteger() * 10;
+                    }
+                })
+                .limit(4)
+                .toList();
+
+        assertEquals(4, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(Integer.valueOf(i * 20), values.get(i));
+        }
+    }
+
+    @Test
+    public void testTypedArguments() {
+        SugarResultStream<SimpleModel> stream = SugarRecord.findAsIterator(SimpleModel.class, "integer >= ? and bool = ?",
+                new Object[]{15, true}, null, "integer", null);
+        List<SimpleModel> models = stream.toList();
+
+        assertEquals(2, models.size());
+        assertEquals(16, models.get(0).getInteger());
+    }
+
+    @Test
+    public void testNewEntityPerRow() {
+        SugarResultStream<SimpleModel> stream = all();
+        SimpleModel first = stream.next();
+        SimpleModel second = stream.next();
+        stream.close();
+
+        assertNotSame(first, second);
+        assertEquals(0, first.getInteger());
+    }
+
+    @Test
+    public void testReuseEntity() {
+        SugarResultStream<SimpleModel> stream = all().reuseEntity();
+        SimpleModel first = null;
+        int count = 0;
+        for (SimpleModel model : stream) {
+            if (first == null) {
+                first = model;
+            }
+            assertSame(first, model);
+            assertEquals(count, model.getInteger());
+            assertEquals(count % 2 == 0, model.isBool());
+            if (count % 3 == 0) {
+                assertNull(model.getStr());
+            } else {
+                assertEquals("row " + count, model.getStr());
+            }
+            assertEquals(Long.valueOf(count + 1), model.getId());
+            count++;
+        }
+        assertEquals(ROWS, count);
+    }
+
+    @Test
+    public void testReuseEntityWithLimitAndFilter() {
+        List<String> strings = all().reuseEntity()
+                .filter(new SugarResultStream.Predicate<SimpleModel>() {
+                    @Override
+                    public boolean test(SimpleModel value) {
+                        return value.getStr() != null;
+                    }
+                })
+                .map(new SugarResultStream.Function<SimpleModel, String>() {
+                    @Override
+                    public String apply(SimpleModel value) {
+                        return value.getStr();
+                    }
+                })
+                .limit(3)
+                .toList();
+
+        assertEquals(3, strings.size());
+        assertEquals("row 4", strings.get(2));
+    }
+
+    @Test
+    public void testReuseEntityWithoutIdField() {
+        for (int i = 0; i < 5; i++) {
+            SugarRecord.save(new StringFieldAnnotatedNoIdModel("model " + i));
+        }
+
+        SugarResultStream<StringFieldAnnotatedNoIdModel> stream =
+                SugarRecord.findAll(StringFieldAnnotatedNoIdModel.class).reuseEntity();
+        for (StringFieldAnnotatedNoIdModel model : stream) {
+            // Saved as the row just read
+            model.setString(model.getString().toUpperCase());
+            SugarRecord.save(model);
+        }
+
+        assertEquals(5, SugarRecord.count(StringFieldAnnotatedNoIdModel.class));
+        assertEquals(1, SugarRecord.count(StringFieldAnnotatedNoIdModel.class, "string = ?", new String[]{"MODEL 3"}));
+        assertEquals(0, SugarRecord.count(StringFieldAnnotatedNoIdModel.class, "string = ?", new String[]{"model 3"}));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReuseEntityAfterTheFirstRow() {
+        SugarResultStream<SimpleModel> stream = all();
+        try {
+            stream.next();
+            stream.reuseEntity();
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testEmptyResult() {
+        SugarResultStream<SimpleModel> stream = Select.from(SimpleModel.class)
+                .where(Condition.prop("integer").lt(0))
+                .iterator();
+
+        assertFalse(stream.hasNext());
+        assertTrue(stream.toList().isEmpty());
+    }
+}
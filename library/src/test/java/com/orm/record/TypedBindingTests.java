@@ -0,0 +1,135 @@
+package com.orm.record;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.orm.SugarContext;
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.ByteArrayExtendedModel;
+import com.orm.model.EnumFieldExtendedModel;
+import com.orm.model.SimpleModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class TypedBindingTests {
+
+    @Before
+    public void setUp() {
+        List<SimpleModel> models = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr(String.valueOf(i));
+            model.setInteger(i);
+            model.setBool(i % 2 == 0);
+            models.add(model);
+        }
+        SugarRecord.saveInTx(models);
+    }
+
+    @Test
+    public void testExpressionWithoutAffinity() {
+        // An expression has no affinity, a number bound as text would never equal it
+        assertEquals(1, Select.from(SimpleModel.class).where(Condition.prop("integer + 0").eq(5)).count());
+        assertEquals(1, Select.from(SimpleModel.class).where(Condition.prop("integer + 0").eq(5)).list().size());
+        assertEquals(0, SugarRecord.count(SimpleModel.class, "integer + 0 = ?", new String[]{"5"}));
+    }
+
+    @Test
+    public void testNumericComparisons() {
+        assertEquals(4, Select.from(SimpleModel.class).where(Condition.prop("integer").gt(5)).count());
+        assertEquals(6, Select.from(SimpleModel.class).where(Condition.prop("integer").lt(5.5)).list().size());
+        assertEquals(5, Select.from(SimpleModel.class).where(Condition.prop("bool").eq(true)).count());
+        assertEquals("9", Select.from(SimpleModel.class).where(Condition.prop("integer").gt(8L)).first().getStr());
+    }
+
+    @Test
+    public void testIndexedColumn() {
+        SQLiteDatabase db = SugarContext.getSugarContext().getSugarDb().getDB();
+        db.execSQL("CREATE INDEX SIMPLE_MODEL_INTEGER ON SIMPLE_MODEL (INTEGER)");
+
+        Select<SimpleModel> typed = Select.from(SimpleModel.class).where(Condition.prop("integer").eq(7));
+        Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + typed.compile().getSql(), new String[]{"7"});
+        try {
+            assertTrue(c.moveToFirst());
+            String detail = c.getString(c.getColumnIndex("detail"));
+            assertTrue(detail, detail.contains("USING INDEX SIMPLE_MODEL_INTEGER"));
+        } finally {
+            c.close();
+        }
+
+        // Same rows as the arguments bound as strings
+        List<SimpleModel> models = typed.list();
+        assertEquals(1, models.size());
+        assertEquals(SugarRecord.find(SimpleModel.class, "integer = ?", "7").get(0).getId(), models.get(0).getId());
+        assertEquals(SugarRecord.count(SimpleModel.class, "integer < ?", new String[]{"7"}),
+                Select.from(SimpleModel.class).where(Condition.prop("integer").lt(7)).count());
+    }
+
+    @Test
+    public void testCursorAndIterator() {
+        Cursor cursor = Select.from(SimpleModel.class).where(Condition.prop("integer").lt(3)).getCursor();
+        try {
+            assertEquals(3, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+
+        int count = 0;
+        for (Object ignored : Select.from(SimpleModel.class).where(Condition.prop("integer").lt(3))) {
+            count++;
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testCountAndSum() {
+        assertEquals(3, SugarRecord.count(SimpleModel.class, "integer + 0 < ?", new Object[]{3}, null, null, null));
+        assertEquals(45, SugarRecord.sum(SimpleModel.class, "integer"));
+        assertEquals(35, SugarRecord.sum(SimpleModel.class, "integer", "integer + 0 > ?", new Object[]{4}));
+        assertEquals(35, SugarRecord.sum(SimpleModel.class, "integer", "integer > ?", "4"));
+    }
+
+    @Test
+    public void testStringArgumentsStillStrings() {
+        assertEquals(1, SugarRecord.find(SimpleModel.class, "str = ?", "5").size());
+        assertEquals(5, SugarRecord.find(SimpleModel.class, "bool = ?", "true").size());
+        assertEquals(1, Select.from(SimpleModel.class).where("integer = ?", new String[]{"5"}).count());
+    }
+
+    @Test
+    public void testEnumBoundByName() {
+        save(new EnumFieldExtendedModel(EnumFieldExtendedModel.OverrideEnum.ONE, EnumFieldExtendedModel.DefaultEnum.TWO));
+
+        assertEquals(1, Select.from(EnumFieldExtendedModel.class)
+                .where(Condition.prop("override_enum").eq(EnumFieldExtendedModel.OverrideEnum.ONE))
+                .count());
+    }
+
+    @Test
+    public void testBlob() {
+        save(new ByteArrayExtendedModel(new byte[]{1, 2, 3}));
+        save(new ByteArrayExtendedModel(new byte[]{4}));
+
+        List<ByteArrayExtendedModel> models = Select.from(ByteArrayExtendedModel.class)
+                .where(Condition.prop("byte_array").eq(new byte[]{1, 2, 3}))
+                .list();
+        assertEquals(1, models.size());
+    }
+}
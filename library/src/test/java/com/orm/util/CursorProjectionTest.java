@@ -0,0 +1,45 @@
+package com.orm.util;
+
+import android.database.MatrixCursor;
+
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class CursorProjectionTest {
+
+    @Test
+    public void testIndexes() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"STR", "ID", "INTEGER", "OWNER"});
+        CursorProjection projection = new CursorProjection(cursor, new String[]{"INTEGER", "MISSING", "STR"}, new String[]{"OWNER"});
+
+        assertEquals(1, projection.getIdIndex());
+        assertEquals(2, projection.getIndex(0));
+        assertEquals(-1, projection.getIndex(1));
+        assertEquals(0, projection.getIndex(2));
+        assertEquals(3, projection.getRelationIndex(0));
+        assertEquals(3, projection.getIndexes().length);
+        assertFalse(projection.isComplete());
+        assertTrue(new CursorProjection(cursor, new String[]{"INTEGER", "STR"}, new String[]{"OWNER"}).isComplete());
+    }
+
+    @Test
+    public void testNoId() {
+        MatrixCursor cursor = new MatrixCursor(new String[]{"STR"});
+        CursorProjection projection = new CursorProjection(cursor, new String[]{"STR"});
+
+        assertEquals(-1, projection.getIdIndex());
+        assertEquals(0, projection.getIndex(0));
+        assertFalse(projection.isComplete());
+    }
+}
@@ -0,0 +1,86 @@
+package com.orm.util;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public final class EntityCacheTest {
+
+    @Test
+    public void testHitAndMiss() {
+        EntityCache cache = new EntityCache(10, false);
+        Object entity = new Object();
+        cache.put(Object.class, 1, entity);
+
+        assertSame(entity, cache.get(Object.class, 1));
+        assertNull(cache.get(Object.class, 2));
+        assertNull(cache.get(String.class, 1));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.resetCounts();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        EntityCache cache = new EntityCache(2, false);
+        Object first = new Object();
+        Object second = new Object();
+        Object third = new Object();
+
+        cache.put(Object.class, 1, first);
+        cache.put(Object.class, 2, second);
+        cache.get(Object.class, 1);
+        cache.put(Object.class, 3, third);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.get(Object.class, 1));
+        assertNull(cache.get(Object.class, 2));
+        assertSame(third, cache.get(Object.class, 3));
+    }
+
+    @Test
+    public void testRemove() {
+        EntityCache cache = new EntityCache(10, true);
+        Object entity = new Object();
+        String string = "cached";
+        cache.put(Object.class, 1, entity);
+        cache.put(Object.class, 2, entity);
+        cache.put(String.class, 1, string);
+
+        cache.remove(Object.class, 1);
+        assertNull(cache.get(Object.class, 1));
+        assertSame(entity, cache.get(Object.class, 2));
+
+        cache.removeAll(Object.class);
+        assertNull(cache.get(Object.class, 2));
+        assertSame(string, cache.get(String.class, 1));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDisabled() {
+        EntityCache cache = new EntityCache(0, false);
+        cache.put(Object.class, 1, new Object());
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get(Object.class, 1));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+        assertTrue(new EntityCache(1, false).isEnabled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        new EntityCache(-1, false);
+    }
+}
@@ -0,0 +1,58 @@
+package com.orm.util;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public final class QueryArgumentsTest {
+    private enum Color {
+        RED;
+
+        @Override
+        public String toString() {
+            return "red";
+        }
+    }
+
+    @Test
+    public void testNumbers() {
+        assertEquals(5L, QueryArguments.toSqlValue(5));
+        assertEquals(5L, QueryArguments.toSqlValue((short) 5));
+        assertEquals(5L, QueryArguments.toSqlValue((byte) 5));
+        assertEquals(5L, QueryArguments.toSqlValue(5L));
+        assertEquals(1.5d, QueryArguments.toSqlValue(1.5f));
+        assertEquals(1.5d, QueryArguments.toSqlValue(1.5d));
+        assertEquals("1.50", QueryArguments.toSqlValue(new BigDecimal("1.50")));
+    }
+
+    @Test
+    public void testOtherTypes() {
+        byte[] bytes = {1, 2};
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(2000L);
+
+        assertNull(QueryArguments.toSqlValue(null));
+        assertEquals(1L, QueryArguments.toSqlValue(true));
+        assertEquals(0L, QueryArguments.toSqlValue(false));
+        assertEquals(1000L, QueryArguments.toSqlValue(new Date(1000L)));
+        assertEquals(2000L, QueryArguments.toSqlValue(calendar));
+        assertEquals("RED", QueryArguments.toSqlValue(Color.RED));
+        assertEquals("true", QueryArguments.toSqlValue("true"));
+        assertEquals("x", QueryArguments.toSqlValue('x'));
+        assertSame(bytes, QueryArguments.toSqlValue(bytes));
+    }
+
+    @Test
+    public void testValues() {
+        assertNull(QueryArguments.toSqlValues(null));
+        assertArrayEquals(new Object[]{1L, "a", null}, QueryArguments.toSqlValues(new Object[]{1, "a", null}));
+        assertArrayEquals(new String[]{"1", "a", "null"}, QueryArguments.toStrings(new Object[]{1L, "a", null}));
+    }
+}
@@ -0,0 +1,116 @@
+package com.orm.util;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public final class QueryCacheTest {
+    private static final String[] TABLES = {"A", "B"};
+
+    private static void put(QueryCache cache, String key, Object value) {
+        cache.put(key, cache.snapshot(TABLES), value);
+    }
+
+    @Test
+    public void testKey() {
+        assertEquals(QueryCache.key("find", new String[]{"A", "x = ?  AND  y = ? ", null}, new String[]{"1", "2"}),
+                QueryCache.key("find", new String[]{"A", " x = ? AND\ny = ?", null}, new String[]{"1", "2"}));
+        assertFalse(QueryCache.key("find", new String[]{"A", "x = ?"}, new String[]{"1"})
+                .equals(QueryCache.key("find", new String[]{"A", "x = ?"}, new String[]{"2"})));
+        assertFalse(QueryCache.key("find", new String[]{"A", null}, null)
+                .equals(QueryCache.key("count", new String[]{"A", null}, null)));
+        assertFalse(QueryCache.key("find", new String[]{"A", "B"}, null)
+                .equals(QueryCache.key("find", new String[]{"AB", null}, null)));
+        assertFalse(QueryCache.key("find", new String[]{"A", "x = ?"}, new Object[]{"1"})
+                .equals(QueryCache.key("find", new String[]{"A", "x = ?"}, new Object[]{1L})));
+        assertFalse(QueryCache.key("find", new String[]{"A", "x = ?"}, new Object[]{"null"})
+                .equals(QueryCache.key("find", new String[]{"A", "x = ?"}, new Object[]{null})));
+    }
+
+    @Test
+    public void testCacheable() {
+        assertTrue(QueryCache.isCacheable(null));
+        assertTrue(QueryCache.isCacheable("name = ? AND selected = 1"));
+        assertFalse(QueryCache.isCacheable("id IN (SELECT owner FROM B)"));
+        assertFalse(QueryCache.isCacheable("EXISTS (select 1 FROM B WHERE B.A = A.ID)"));
+    }
+
+    @Test
+    public void testHitRate() {
+        QueryCache cache = new QueryCache(10, 0);
+        put(cache, "query", 1L);
+
+        assertEquals(1L, cache.get("query"));
+        assertEquals(1L, cache.get("query"));
+        assertEquals(1L, cache.get("query"));
+        assertNull(cache.get("other"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.75, cache.getHitRate(), 0.001);
+
+        cache.resetCounts();
+        assertEquals(0.0, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testInvalidate() {
+        QueryCache cache = new QueryCache(10, 0);
+        put(cache, "query", 1L);
+        cache.put("other", cache.snapshot(new String[]{"C"}), 2L);
+
+        cache.invalidate("B");
+        assertNull(cache.get("query"));
+        assertEquals(2L, cache.get("other"));
+
+        cache.invalidateAll();
+        assertNull(cache.get("other"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testWriteDuringQuery() {
+        QueryCache cache = new QueryCache(10, 0);
+        QueryCache.Snapshot snapshot = cache.snapshot(TABLES);
+        cache.invalidate("A");
+        cache.put("query", snapshot, 1L);
+
+        assertNull(cache.get("query"));
+    }
+
+    @Test
+    public void testTimeToLive() throws InterruptedException {
+        QueryCache cache = new QueryCache(10, 50);
+        put(cache, "query", 1L);
+        assertEquals(1L, cache.get("query"));
+
+        Thread.sleep(100);
+        assertNull(cache.get("query"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        QueryCache cache = new QueryCache(2, 0);
+        put(cache, "first", 1L);
+        put(cache, "second", 2L);
+        cache.get("first");
+        put(cache, "third", 3L);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1L, cache.get("first"));
+        assertNull(cache.get("second"));
+        assertEquals(3L, cache.get("third"));
+    }
+
+    @Test
+    public void testDisabled() {
+        QueryCache cache = new QueryCache(0, 0);
+        put(cache, "query", 1L);
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("query"));
+        assertEquals(0, cache.getMissCount());
+    }
+}
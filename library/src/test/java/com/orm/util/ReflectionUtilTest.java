@@ -4,8 +4,10 @@ import android.content.ContentValues;
 import android.database.Cursor;
 
 import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
 import com.orm.app.ClientApp;
 import com.orm.dsl.BuildConfig;
+import com.orm.model.SimpleModel;
 import com.orm.model.TestRecord;
 import com.orm.query.Select;
 
@@ -14,6 +16,7 @@ import junit.framework.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import java.lang.reflect.Field;
@@ -72,7 +75,28 @@ public final class ReflectionUtilTest {
     @Test
     public void testGetAllClasses() {
         List<Class> classes = ReflectionUtil.getDomainClasses();
-        Assert.assertEquals(41, classes.size());
+        Assert.assertEquals(44, classes.size());
+    }
+
+    @Test
+    public void testGetRegisteredClasses() {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration()
+                .setEntityClasses(SimpleModel.class, TestRecord.class));
+
+        List<Class> classes = ReflectionUtil.getDomainClasses();
+        Assert.assertEquals(2, classes.size());
+        Assert.assertEquals(SimpleModel.class, classes.get(0));
+        Assert.assertEquals(TestRecord.class, classes.get(1));
+    }
+
+    @Test
+    public void testGetIndexedClasses() {
+        List<Class> classes = ReflectionUtil.getIndexedClasses(TestEntityIndex.class.getName());
+        Assert.assertEquals(2, classes.size());
+        Assert.assertEquals(TestRecord.class, classes.get(0));
+        Assert.assertEquals(SimpleModel.class, classes.get(1));
+
+        Assert.assertNull(ReflectionUtil.getIndexedClasses("com.orm.util.MissingEntityIndex"));
     }
 
     @Test(expected = NoSuchFieldException.class)
@@ -0,0 +1,105 @@
+package com.orm.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+public final class SqlScriptReaderTest {
+
+    private static List<String> read(String script) throws IOException {
+        List<String> statements = new ArrayList<>();
+        SqlScriptReader reader = new SqlScriptReader(new StringReader(script));
+        String statement;
+        while ((statement = reader.nextStatement()) != null) {
+            statements.add(statement);
+        }
+        reader.close();
+        return statements;
+    }
+
+    @Test
+    public void testStatements() throws IOException {
+        assertEquals(Arrays.asList("CREATE TABLE A (ID INTEGER)", "INSERT INTO A VALUES (1)"),
+                read("CREATE TABLE A (ID INTEGER);\nINSERT INTO A VALUES (1);\n"));
+        assertEquals(Arrays.asList("DELETE FROM A", "DELETE FROM B"), read(";;DELETE FROM A;  ;\nDELETE FROM B"));
+        assertEquals(0, read("  \n-- nothing\n;").size());
+    }
+
+    @Test
+    public void testNewLinesKeepTokensApart() throws IOException {
+        assertEquals(Arrays.asList("SELECT *\nFROM A"), read("SELECT *\nFROM A;"));
+    }
+
+    @Test
+    public void testComments() throws IOException {
+        assertEquals(Arrays.asList("INSERT INTO A VALUES (1)", "INSERT INTO B VALUES (2)"),
+                read("-- first\nINSERT INTO A /* the table */VALUES (1); -- done\n/* second; */INSERT INTO B VALUES (2);"));
+        assertEquals(Arrays.asList("SELECT 1 FROM A"), read("SELECT 1/*comment*/FROM A"));
+    }
+
+    @Test
+    public void testQuotedSemicolonsAndComments() throws IOException {
+        assertEquals(Arrays.asList(
+                "INSERT INTO A VALUES ('a;b', 'it''s -- not a comment', \"c;d\", `e;f`, [g;h])",
+                "INSERT INTO A VALUES ('/* neither */')"),
+                read("INSERT INTO A VALUES ('a;b', 'it''s -- not a comment', \"c;d\", `e;f`, [g;h]);\n"
+                        + "INSERT INTO A VALUES ('/* neither */');"));
+    }
+
+    @Test
+    public void testTrigger() throws IOException {
+        String trigger = "CREATE TRIGGER A_AUDIT AFTER UPDATE ON A\nBEGIN\n"
+                + "  INSERT INTO LOG VALUES (CASE WHEN NEW.ID > 0 THEN 'up' ELSE 'down' END);\n"
+                + "  DELETE FROM B WHERE ID = OLD.ID;\nEND";
+        String temporary = "create temp trigger T before delete on A begin select 1; end";
+
+        assertEquals(Arrays.asList(trigger, temporary, "BEGIN TRANSACTION", "COMMIT"),
+                read(trigger + ";\n" + temporary + ";\nBEGIN TRANSACTION;\nCOMMIT;"));
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+        final int count = 100000;
+        Reader script = new Reader() {
+            private final char[] statement = "INSERT INTO A VALUES ('row;');\n".toCharArray();
+            private int written;
+            private int offset;
+
+            @Override
+            public int read(char[] buffer, int start, int length) {
+                if (written == count) {
+                    return -1;
+                }
+                int read = Math.min(length, statement.length - offset);
+                System.arraycopy(statement, offset, buffer, start, read);
+                offset += read;
+                if (offset == statement.length) {
+                    offset = 0;
+                    written++;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() { }
+        };
+
+        SqlScriptReader reader = new SqlScriptReader(script);
+        int statements = 0;
+        String statement;
+        while ((statement = reader.nextStatement()) != null) {
+            assertEquals("INSERT INTO A VALUES ('row;')", statement);
+            statements++;
+        }
+        assertEquals(count, statements);
+        assertNull(reader.nextStatement());
+    }
+}
@@ -0,0 +1,98 @@
+package com.orm.util;
+
+import com.orm.SugarDb;
+import com.orm.SugarRecord;
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.TestRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarContext.getSugarContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class StatementCacheTest {
+
+    private static SugarDb getSugarDb() {
+        return getSugarContext().getSugarDb();
+    }
+
+    @Test
+    public void testStatementsReused() {
+        StatementCache cache = getSugarDb().getStatementCache();
+
+        SugarRecord.save(new TestRecord().setName("first"));
+        SugarRecord.save(new TestRecord().setName("second"));
+
+        assertSame(cache, getSugarDb().getStatementCache());
+        assertSame(cache.get(TestRecord.class), cache.get(TestRecord.class));
+        assertEquals(1, cache.size());
+        assertEquals(2L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test
+    public void testBoundToConnection() {
+        StatementCache cache = getSugarDb().getStatementCache();
+
+        assertTrue(cache.isFor(getSugarDb().getDB()));
+        assertFalse(cache.isFor(null));
+    }
+
+    @Test
+    public void testInsertReplacesById() {
+        TestRecord record = new TestRecord().setName("before");
+        long id = SugarRecord.save(record);
+
+        record.setName("after");
+        long replaced = SugarRecord.save(record);
+
+        assertEquals(id, replaced);
+        assertEquals(1L, SugarRecord.count(TestRecord.class));
+        assertEquals("after", SugarRecord.findById(TestRecord.class, id).getName());
+    }
+
+    @Test
+    public void testDeleteById() {
+        TestRecord record = new TestRecord().setName("deleted");
+        SugarRecord.save(record);
+
+        assertTrue(record.delete());
+        assertNull(SugarRecord.findById(TestRecord.class, record.getId()));
+        assertFalse(SugarRecord.delete(record));
+    }
+
+    @Test
+    public void testClear() {
+        StatementCache cache = getSugarDb().getStatementCache();
+        SugarRecord.save(new TestRecord().setName("first"));
+
+        getSugarDb().clearStatementCache();
+        assertEquals(0, cache.size());
+
+        StatementCache recompiled = getSugarDb().getStatementCache();
+        SugarRecord.save(new TestRecord().setName("second"));
+
+        assertNotSame(cache, recompiled);
+        assertEquals(1, recompiled.size());
+        assertEquals(2L, SugarRecord.count(TestRecord.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClearedStatementsUnusable() {
+        StatementCache cache = getSugarDb().getStatementCache();
+        StatementCache.TableStatements statements = cache.get(TestRecord.class);
+
+        cache.clear();
+        statements.delete(1L);
+    }
+}
@@ -0,0 +1,125 @@
+package com.orm.util;
+
+import com.orm.app.ClientApp;
+import com.orm.dsl.BuildConfig;
+import com.orm.model.AllAnotatedModel;
+import com.orm.model.IndexedModel;
+import com.orm.model.IntUniqueModel;
+import com.orm.model.RelationshipExtendedModel;
+import com.orm.model.StringFieldAnnotatedNoIdModel;
+import com.orm.model.TestRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class, application = ClientApp.class, packageName = "com.orm.model", manifest = Config.NONE)
+public final class TableInfoTest {
+
+    @Test
+    public void testCached() {
+        assertSame(TableInfo.get(TestRecord.class), TableInfo.get(TestRecord.class));
+    }
+
+    @Test
+    public void testTableName() {
+        TableInfo table = TableInfo.get(TestRecord.class);
+
+        assertEquals("TEST_RECORD", table.getName());
+        assertTrue(table.isSugarRecord());
+        assertFalse(table.isAnnotated());
+        assertNotNull(table.getIdColumn());
+    }
+
+    @Test
+    public void testAnnotatedColumns() {
+        TableInfo table = TableInfo.get(AllAnotatedModel.class);
+        ColumnInfo id = table.getIdColumn();
+        ColumnInfo name = find(table, "name");
+
+        assertTrue(table.isAnnotated());
+        assertEquals(2, table.getColumns().size());
+
+        assertEquals("ID", id.getName());
+        assertEquals("INTEGER", id.getSqlType());
+        assertEquals(ColumnInfo.Converter.LONG, id.getConverter());
+        assertTrue(id.isNotNull());
+        assertTrue(id.isUniqueKey());
+
+        assertEquals("name", name.getName());
+        assertEquals("TEXT", name.getSqlType());
+        assertEquals(ColumnInfo.Converter.STRING, name.getConverter());
+        assertTrue(name.isNotNull());
+        assertTrue(name.isUnique());
+        assertFalse(name.isUniqueKey());
+    }
+
+    @Test
+    public void testUniqueKeys() {
+        TableInfo table = TableInfo.get(IntUniqueModel.class);
+
+        assertEquals(1, table.getUniqueKeys().size());
+        assertEquals("VALUE", table.getUniqueKeys().get(0).getName());
+        assertEquals(ColumnInfo.Converter.INTEGER, table.getUniqueKeys().get(0).getConverter());
+    }
+
+    @Test
+    public void testRelation() {
+        ColumnInfo simple = find(TableInfo.get(RelationshipExtendedModel.class), "simple");
+        assertEquals(ColumnInfo.Converter.RELATION, simple.getConverter());
+    }
+
+    @Test
+    public void testNoId() {
+        assertNull(TableInfo.get(StringFieldAnnotatedNoIdModel.class).getIdColumn());
+    }
+
+    @Test
+    public void testIndexes() {
+        List<IndexInfo> indexes = TableInfo.get(IndexedModel.class).getIndexes();
+
+        assertEquals(4, indexes.size());
+        assertEquals("IDX_INDEXED_MODEL_STATUS", indexes.get(0).getName());
+        assertFalse(indexes.get(0).isPartial());
+        assertEquals("IDX_INDEXED_MODEL_RECENT", indexes.get(1).getName());
+        assertEquals("CREATED > 0", indexes.get(1).getWhere());
+        assertEquals("IDX_INDEXED_MODEL_STATUS_PRIORITY", indexes.get(2).getName());
+        assertEquals(2, indexes.get(2).getColumns().length);
+        assertEquals("PRIORITY", indexes.get(2).getColumns()[1]);
+        assertEquals("IDX_INDEXED_MODEL_OPEN_PRIORITY", indexes.get(3).getName());
+        assertTrue(TableInfo.get(TestRecord.class).getIndexes().isEmpty());
+    }
+
+    @Test
+    public void testIndexSQL() {
+        IndexInfo index = TableInfo.get(IndexedModel.class).getIndexes().get(3);
+
+        assertEquals("CREATE INDEX IF NOT EXISTS IDX_INDEXED_MODEL_OPEN_PRIORITY ON INDEXED_MODEL ( PRIORITY ) WHERE STATUS = 'open'",
+                index.createSQL(true));
+        assertEquals("CREATE INDEX IF NOT EXISTS IDX_INDEXED_MODEL_OPEN_PRIORITY ON INDEXED_MODEL ( PRIORITY )",
+                index.createSQL(false));
+        assertTrue(index.isCreatedBy("CREATE INDEX IDX_INDEXED_MODEL_OPEN_PRIORITY ON INDEXED_MODEL(PRIORITY) WHERE STATUS = 'open'", true));
+        assertFalse(index.isCreatedBy("CREATE INDEX IDX_INDEXED_MODEL_OPEN_PRIORITY ON INDEXED_MODEL ( PRIORITY )", true));
+        assertFalse(index.isCreatedBy("CREATE INDEX IDX_INDEXED_MODEL_OPEN_PRIORITY ON INDEXED_MODEL ( STATUS )", false));
+    }
+
+    private static ColumnInfo find(TableInfo table, String fieldName) {
+        for (ColumnInfo column : table.getColumns()) {
+            if (column.getFieldName().equals(fieldName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.orm.util;
+
+import com.orm.mapper.EntityIndex;
+
+/**
+ * Stands in for a generated index, listing a class that no longer exists.
+ */
+public final class TestEntityIndex implements EntityIndex {
+
+    @Override
+    public String[] getEntityClassNames() {
+        return new String[]{"com.orm.model.TestRecord", "com.orm.model.Removed", "com.orm.model.SimpleModel"};
+    }
+}
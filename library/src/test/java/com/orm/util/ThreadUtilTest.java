@@ -0,0 +1,138 @@
+package com.orm.util;
+
+import com.orm.SugarContext;
+import com.orm.SugarDbConfiguration;
+import com.orm.dsl.BuildConfig;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk = 18, constants = BuildConfig.class)
+public final class ThreadUtilTest {
+
+    @After
+    public void tearDown() {
+        ThreadUtil.shutdown();
+    }
+
+    private static Callable<String> threadName(final CountDownLatch started, final CountDownLatch release) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return Thread.currentThread().getName();
+            }
+        };
+    }
+
+    @Test
+    public void testSingleNamedWriter() throws Exception {
+        CountDownLatch release = new CountDownLatch(0);
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            names.add(ThreadUtil.writeInBackground(threadName(new CountDownLatch(1), release)).get());
+        }
+
+        assertEquals(1, names.size());
+        assertTrue(names.iterator().next().startsWith("Sugar-writer"));
+    }
+
+    @Test
+    public void testWritesInOrder() throws Exception {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int value = i;
+            futures.add(ThreadUtil.writeInBackground(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    order.add(value);
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testReaderPoolSize() throws Exception {
+        SugarContext.init(RuntimeEnvironment.application, new SugarDbConfiguration().setReaderPoolSize(3));
+
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(ThreadUtil.readInBackground(threadName(started, release)));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(3, ThreadUtil.getReaderQueueDepth());
+        assertEquals(3, ThreadUtil.getActiveCount());
+        release.countDown();
+
+        Set<String> names = new HashSet<>();
+        for (Future<String> future : futures) {
+            String name = future.get();
+            assertTrue(name.startsWith("Sugar-reader"));
+            names.add(name);
+        }
+        assertEquals(3, names.size());
+        assertEquals(0, ThreadUtil.getReaderQueueDepth());
+    }
+
+    @Test
+    public void testWriterQueueDepth() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(ThreadUtil.writeInBackground(threadName(started, release)));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(3, ThreadUtil.getWriterQueueDepth());
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            future.get();
+        }
+        assertEquals(0, ThreadUtil.getWriterQueueDepth());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        CountDownLatch release = new CountDownLatch(0);
+        String before = ThreadUtil.writeInBackground(threadName(new CountDownLatch(1), release)).get();
+
+        ThreadUtil.shutdown();
+        assertEquals(0, ThreadUtil.getCompletedTaskCount());
+
+        String after = ThreadUtil.writeInBackground(threadName(new CountDownLatch(1), release)).get();
+        assertEquals(before, after);
+    }
+}
@@ -0,0 +1,137 @@
+package com.orm.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public final class WeakIdentityMapTest {
+
+    /**
+     * Equal to every other instance, like a model with a careless equals.
+     */
+    private static final class Equal {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Equal;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    @Test
+    public void testKeyedByIdentity() {
+        Map<Object, Long> map = new WeakIdentityMap<>();
+        Equal first = new Equal();
+        Equal second = new Equal();
+
+        map.put(first, 1L);
+        assertTrue(map.containsKey(first));
+        assertFalse(map.containsKey(second));
+        assertNull(map.get(second));
+
+        map.put(second, 2L);
+        assertEquals(Long.valueOf(1L), map.get(first));
+        assertEquals(Long.valueOf(2L), map.get(second));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testPutReplaces() {
+        Map<Object, Long> map = new WeakIdentityMap<>();
+        Object key = new Object();
+
+        assertNull(map.put(key, 1L));
+        assertEquals(Long.valueOf(1L), map.put(key, 2L));
+        assertEquals(Long.valueOf(2L), map.get(key));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        Map<Object, Long> map = new WeakIdentityMap<>();
+        Object first = new Object();
+        Object second = new Object();
+        map.put(first, 1L);
+        map.put(second, 2L);
+
+        assertEquals(Long.valueOf(1L), map.remove(first));
+        assertFalse(map.containsKey(first));
+        assertEquals(1, map.entrySet().size());
+        assertEquals(second, map.entrySet().iterator().next().getKey());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(null));
+        assertFalse(map.containsKey(null));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        new WeakIdentityMap<Object, Long>().put(null, 1L);
+    }
+
+    @Test
+    public void testCollectedKeysRemoved() throws InterruptedException {
+        Map<Object, Long> map = new WeakIdentityMap<>();
+        Object kept = new Object();
+        map.put(kept, 0L);
+        for (long i = 1; i <= 1000; i++) {
+            map.put(new Object(), i);
+        }
+
+        for (int i = 0; i < 50 && map.size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, map.size());
+        assertEquals(Long.valueOf(0L), map.get(kept));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final Map<Object, Long> map = new WeakIdentityMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final long first = t * 1000L;
+                futures.add(executor.submit(new Callable<List<Object>>() {
+                    @Override
+                    public List<Object> call() {
+                        List<Object> keys = new ArrayList<>();
+                        for (long i = first; i < first + 1000; i++) {
+                            Object key = new Object();
+                            map.put(key, i);
+                            keys.add(key);
+                        }
+                        return keys;
+                    }
+                }));
+            }
+
+            for (int t = 0; t < 4; t++) {
+                List<Object> keys = futures.get(t).get();
+                for (int i = 0; i < keys.size(); i++) {
+                    assertEquals(Long.valueOf(t * 1000L + i), map.get(keys.get(i)));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}